@@ -4,27 +4,51 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-import io.mosip.commons.khazana.impl.S3Adapter;
 import io.mosip.commons.khazana.spi.ObjectStoreAdapter;
+import io.mosip.datashare.objectstore.DataShareS3Adapter;
+import io.mosip.datashare.objectstore.FileSystemAdapter;
+import io.mosip.datashare.objectstore.TieredS3Adapter;
+import io.mosip.datashare.objectstore.WriteBehindS3Adapter;
 import io.mosip.datashare.util.RestUtil;
 
 
 @Configuration
 @EnableCaching
 @EnableScheduling
+@EnableJpaRepositories(basePackages = "io.mosip.datashare.repository")
+@EntityScan(basePackages = "io.mosip.datashare.entity")
 @PropertySource("classpath:bootstrap.properties")
 public class DataShareBeanConfig {
 
+	/** Defines whether stored objects are also kept on local disk and read from there. */
+	@Value("${mosip.data.share.object-store.local-tier.enabled:false}")
+	private boolean localTierEnabled;
+
+	/** Defines whether created objects are acknowledged once spooled locally and uploaded in the background. */
+	@Value("${mosip.data.share.object-store.write-behind.enabled:false}")
+	private boolean writeBehindEnabled;
+
+	/** Defines whether objects are stored on the local file system instead of S3, for standalone deployments. */
+	@Value("${mosip.data.share.object-store.filesystem.enabled:false}")
+	private boolean fileSystemEnabled;
+
 	@Bean
 	public ObjectStoreAdapter objectStoreAdapter() {
-		return new S3Adapter();
+		if (fileSystemEnabled)
+			return new FileSystemAdapter();
+		if (writeBehindEnabled)
+			return new WriteBehindS3Adapter();
+		return localTierEnabled ? new TieredS3Adapter() : new DataShareS3Adapter();
 	}
 
 	@Bean
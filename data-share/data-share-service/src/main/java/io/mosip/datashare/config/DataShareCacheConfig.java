@@ -0,0 +1,94 @@
+package io.mosip.datashare.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.mosip.datashare.config.DataShareCacheProperties.CacheSpec;
+
+/**
+ * Backs the spring caches with bounded Caffeine caches configured per cache
+ * through {@link DataShareCacheProperties} and exports their statistics to the
+ * meter registry.
+ */
+@Configuration
+public class DataShareCacheConfig {
+
+	public static final String CACHE_MANAGER_NAME = "cacheManager";
+
+	@Bean(name = CACHE_MANAGER_NAME)
+	public CacheManager cacheManager(DataShareCacheProperties cacheProperties, ObjectMapper mapper,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+			@Override
+			protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+				Cache<Object, Object> cache = newBuilder(cacheProperties.getSpec(name), mapper).build();
+				meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, name,
+						Tags.of("cacheManager", CACHE_MANAGER_NAME)));
+				return cache;
+			}
+		};
+		return cacheManager;
+	}
+
+	/**
+	 * Creates a builder that applies the size, expiry and statistics settings of
+	 * the spec. Refresh is left to callers that build a loading cache.
+	 *
+	 * @param spec   the cache spec
+	 * @param mapper the mapper used to estimate entry weights
+	 * @return the builder
+	 */
+	public static Caffeine<Object, Object> newBuilder(CacheSpec spec, ObjectMapper mapper) {
+		Caffeine<Object, Object> builder = Caffeine.newBuilder();
+		if (spec.getMaximumWeight() != null) {
+			builder.maximumWeight(spec.getMaximumWeight()).weigher(new EstimatedSizeWeigher(mapper));
+		} else if (spec.getMaximumSize() != null) {
+			builder.maximumSize(spec.getMaximumSize());
+		}
+		if (spec.getExpireAfterWrite() != null)
+			builder.expireAfterWrite(spec.getExpireAfterWrite());
+		if (spec.getExpireAfterAccess() != null)
+			builder.expireAfterAccess(spec.getExpireAfterAccess());
+		if (spec.isRecordStats())
+			builder.recordStats();
+		return builder;
+	}
+
+	/**
+	 * Weighs entries by their approximate size in bytes: raw length for bytes
+	 * and strings, serialized JSON length for everything else.
+	 */
+	static class EstimatedSizeWeigher implements Weigher<Object, Object> {
+
+		private final ObjectMapper mapper;
+
+		EstimatedSizeWeigher(ObjectMapper mapper) {
+			this.mapper = mapper;
+		}
+
+		@Override
+		public int weigh(Object key, Object value) {
+			if (value instanceof byte[])
+				return ((byte[]) value).length;
+			if (value instanceof CharSequence)
+				return ((CharSequence) value).length();
+			try {
+				return mapper.writeValueAsBytes(value).length;
+			} catch (JsonProcessingException e) {
+				return 1;
+			}
+		}
+	}
+}
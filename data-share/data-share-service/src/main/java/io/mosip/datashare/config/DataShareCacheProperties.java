@@ -0,0 +1,61 @@
+package io.mosip.datashare.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Per cache policies bound from {@code mosip.data.share.cache.*}, e.g.
+ *
+ * <pre>
+ * mosip.data.share.cache.specs.partnerpolicyCache.maximum-size=1000
+ * mosip.data.share.cache.specs.partnerpolicyCache.expire-after-write=30m
+ * </pre>
+ *
+ * Caches without a spec of their own use {@code default-spec}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "mosip.data.share.cache")
+@Data
+public class DataShareCacheProperties {
+
+	/** Spec applied to caches that are not listed in specs. */
+	private CacheSpec defaultSpec = new CacheSpec();
+
+	/** Specs by cache name. */
+	private Map<String, CacheSpec> specs = new HashMap<>();
+
+	public CacheSpec getSpec(String cacheName) {
+		return specs.getOrDefault(cacheName, defaultSpec);
+	}
+
+	@Data
+	public static class CacheSpec {
+
+		/** Maximum number of entries, ignored when maximumWeight is set. */
+		private Long maximumSize = 1000L;
+
+		/** Maximum estimated weight of all entries in bytes. */
+		private Long maximumWeight;
+
+		/** Time to live of an entry after it is written. */
+		private Duration expireAfterWrite;
+
+		/**
+		 * Age after which an entry is reloaded in the background on its next read.
+		 * Only honoured by caches that know how to load their entries.
+		 */
+		private Duration refreshAfterWrite;
+
+		/** Time to live of an entry after it was last read or written. */
+		private Duration expireAfterAccess;
+
+		/** Defines whether hit, miss, eviction and load statistics are recorded. */
+		private boolean recordStats = true;
+	}
+}
@@ -10,7 +10,8 @@ public enum DataUtilityErrorCodes {
 	SIGNATURE_EXCEPTION("DAT-SER-005", "Failed to generate digital signature"),
 	DATA_SHARE_NOT_FOUND_EXCEPTION("DAT-SER-008", "Data share not found"),
 	DATA_SHARE_EXPIRED_EXCEPTION("DAT-SER-006", "Data share usuage expired"),
-	POLICY_EXCEPTION("DAT-SER-007", "Exception while fetching policy details");
+	POLICY_EXCEPTION("DAT-SER-007", "Exception while fetching policy details"),
+	DATA_SHARE_RANGE_NOT_SATISFIABLE_EXCEPTION("DAT-SER-009", "Requested range not satisfiable");
 
 	private final String errorCode;
 	private final String errorMessage;
@@ -1,9 +1,16 @@
 package io.mosip.datashare.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -14,21 +21,27 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.mosip.datashare.dto.DataShare;
 import io.mosip.datashare.dto.DataShareGetResponse;
+import io.mosip.datashare.dto.DataShareRange;
 import io.mosip.datashare.dto.DataShareResponseDto;
+import io.mosip.datashare.objectstore.FileObjectInputStream;
 import io.mosip.datashare.service.DataShareService;
+import io.mosip.datashare.util.DownloadSessionUtil.DownloadLease;
 import io.mosip.kernel.core.util.DateUtils2;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * The Class DataShareController.
@@ -50,6 +63,28 @@ public class DataShareController {
 
 	private static final String DATA_SHARE_SERVICE_VERSION = "mosip.data.share.service.version";
 
+	/** The Constant DEFAULT_DOWNLOAD_BUFFER_SIZE. */
+	private static final int DEFAULT_DOWNLOAD_BUFFER_SIZE = 8192;
+
+	/** A single byte range from a position, optionally up to a position. */
+	private static final Pattern BYTE_RANGE = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
+
+	/** Header carrying the download session a range continues. */
+	private static final String DOWNLOAD_SESSION = "Download-Session";
+
+	/** Request attributes through which Tomcat sends a file with sendfile once the response is committed. */
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	/** Size of the buffer used to copy a share from object store to the response */
+	@Value("${mosip.data.share.download.buffer-size:8192}")
+	private int downloadBufferSize;
+
 	/**
 	 * Creates the data share.
 	 *
@@ -103,22 +138,29 @@ public class DataShareController {
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Get share data file successfully",
 					content = @Content(schema = @Schema(implementation = String.class))),
+			@ApiResponse(responseCode = "206", description = "Get the requested range of the share data file successfully",
+					content = @Content(schema = @Schema(implementation = String.class))),
 			@ApiResponse(responseCode = "400", description = "Unable to fetch file" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "401", description = "Unauthorized" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "403", description = "Forbidden" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "404", description = "Not Found" ,content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "416", description = "Range Not Satisfiable" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "500", description = "Internal Server Error" ,content = @Content(schema = @Schema(hidden = true)))
 	})
 	@ResponseBody
-	public ResponseEntity<byte[]> getFile(@PathVariable("policyId") String policyId,
-			@PathVariable("subscriberId") String subscriberId, @PathVariable("randomShareKey") String randomShareKey) {
+	public ResponseEntity<StreamingResponseBody> getFile(@PathVariable("policyId") String policyId,
+			@PathVariable("subscriberId") String subscriberId, @PathVariable("randomShareKey") String randomShareKey,
+			@RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+			@RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRangeHeader,
+			@RequestHeader(value = DOWNLOAD_SESSION, required = false) String downloadSession,
+			HttpServletRequest request) {
 
-		DataShareGetResponse dataShareGetResponse = dataShareService.getDataFile(policyId, subscriberId,
-				randomShareKey);
-		MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>();
-		headers.add("Signature", dataShareGetResponse.getSignature());
+		DataShareRange range = parseRange(rangeHeader, ifRangeHeader, downloadSession);
+		DataShareGetResponse dataShareGetResponse = range == null
+				? dataShareService.getDataFile(policyId, subscriberId, randomShareKey)
+				: dataShareService.getDataFile(policyId, subscriberId, randomShareKey, range);
 
-		return new ResponseEntity<byte[]>(dataShareGetResponse.getFileBytes(), headers, HttpStatus.OK);
+		return buildResponse(dataShareGetResponse, request);
 
 	}
 
@@ -134,21 +176,163 @@ public class DataShareController {
 	@ApiResponses(value = {
 			@ApiResponse(responseCode = "200", description = "Get share data file successfully",
 					content = @Content(schema = @Schema(implementation = String.class))),
+			@ApiResponse(responseCode = "206", description = "Get the requested range of the share data file successfully",
+					content = @Content(schema = @Schema(implementation = String.class))),
 			@ApiResponse(responseCode = "400", description = "Unable to fetch file" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "401", description = "Unauthorized" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "403", description = "Forbidden" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "404", description = "Not Found" ,content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "416", description = "Range Not Satisfiable" ,content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "500", description = "Internal Server Error" ,content = @Content(schema = @Schema(hidden = true)))})
 	@ResponseBody
-	public ResponseEntity<byte[]> getFile(@PathVariable("shortUrlKey") String shortUrlKey) {
+	public ResponseEntity<StreamingResponseBody> getFile(@PathVariable("shortUrlKey") String shortUrlKey,
+			@RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+			@RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRangeHeader,
+			@RequestHeader(value = DOWNLOAD_SESSION, required = false) String downloadSession,
+			HttpServletRequest request) {
+
+
+		DataShareRange range = parseRange(rangeHeader, ifRangeHeader, downloadSession);
+		DataShareGetResponse dataShareGetResponse = range == null ? dataShareService.getDataFile(shortUrlKey)
+				: dataShareService.getDataFile(shortUrlKey, range);
+
+		return buildResponse(dataShareGetResponse, request);
+
+	}
+
+	/**
+	 * Parses the Range header. Only a single range from a position is served
+	 * partially, any other range is answered with the whole file as HTTP allows.
+	 *
+	 * @param rangeHeader   the Range header
+	 * @param ifRangeHeader   the If-Range header, the ETag the range is conditional on
+	 * @param downloadSession the download session the range continues
+	 * @return the range, null for the whole file
+	 */
+	private static DataShareRange parseRange(String rangeHeader, String ifRangeHeader, String downloadSession) {
+		if (rangeHeader == null)
+			return null;
+		Matcher matcher = BYTE_RANGE.matcher(rangeHeader.trim());
+		if (!matcher.matches())
+			return null;
+		try {
+			long start = Long.parseLong(matcher.group(1));
+			long end = matcher.group(2).isEmpty() ? -1 : Long.parseLong(matcher.group(2));
+			if (end >= 0 && end < start)
+				return null;
+			String ifRange = ifRangeHeader == null ? null : unquote(ifRangeHeader.trim());
+			return new DataShareRange(start, end, downloadSession, ifRange);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Removes the quotes of a strong entity tag. A weak tag or a date is kept
+	 * as is and never matches.
+	 */
+	private static String unquote(String entityTag) {
+		return entityTag.length() > 1 && entityTag.startsWith("\"") && entityTag.endsWith("\"")
+				? entityTag.substring(1, entityTag.length() - 1)
+				: entityTag;
+	}
 
+	/**
+	 * Builds the response with the signature header and, for resumable
+	 * downloads, the range headers.
+	 *
+	 * @param dataShareGetResponse the data share get response
+	 * @param request              the request
+	 * @return the response
+	 */
+	private ResponseEntity<StreamingResponseBody> buildResponse(DataShareGetResponse dataShareGetResponse,
+			HttpServletRequest request) {
+		MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>();
+		headers.add("Signature", dataShareGetResponse.getSignature());
+		HttpStatus status = HttpStatus.OK;
+		if (dataShareGetResponse.getEntityTag() != null) {
+			headers.add(HttpHeaders.ACCEPT_RANGES, "bytes");
+			headers.add(HttpHeaders.ETAG, "\"" + dataShareGetResponse.getEntityTag() + "\"");
+		}
+		if (dataShareGetResponse.getDownloadSession() != null) {
+			headers.add(DOWNLOAD_SESSION, dataShareGetResponse.getDownloadSession());
+		}
+		if (dataShareGetResponse.isPartial()) {
+			status = HttpStatus.PARTIAL_CONTENT;
+			headers.add(HttpHeaders.CONTENT_RANGE, "bytes " + dataShareGetResponse.getRangeStart() + "-"
+					+ dataShareGetResponse.getRangeEnd() + "/" + dataShareGetResponse.getLength());
+			headers.add(HttpHeaders.CONTENT_LENGTH,
+					String.valueOf(dataShareGetResponse.getRangeEnd() - dataShareGetResponse.getRangeStart() + 1));
+		} else if (dataShareGetResponse.getLength() >= 0 && dataShareGetResponse.getFileStream() != null) {
+			headers.add(HttpHeaders.CONTENT_LENGTH, String.valueOf(dataShareGetResponse.getLength()));
+		}
+		/* The container reports no progress of sendfile, so a resumable download is copied */
+		if (dataShareGetResponse.getFileStream() instanceof FileObjectInputStream
+				&& dataShareGetResponse.getDownloadLease() == null
+				&& Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			return sendFile((FileObjectInputStream) dataShareGetResponse.getFileStream(), request, headers, status);
+		}
 
-		DataShareGetResponse dataShareGetResponse = dataShareService.getDataFile(shortUrlKey);
-		  MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>();
-		  headers.add("Signature", dataShareGetResponse.getSignature());
+		return new ResponseEntity<StreamingResponseBody>(buildResponseBody(dataShareGetResponse), headers, status);
+	}
 
-		return new ResponseEntity<byte[]>(dataShareGetResponse.getFileBytes(), headers,
-				HttpStatus.OK);
+	/**
+	 * Hands a file of the local object store to the servlet container, which
+	 * writes it to the socket with sendfile without copying it through the heap.
+	 *
+	 * @param fileStream the file stream, closed as the container reads the file itself
+	 * @param request    the request
+	 * @param headers    the response headers
+	 * @param status     the response status
+	 * @return the response without body
+	 */
+	private ResponseEntity<StreamingResponseBody> sendFile(FileObjectInputStream fileStream,
+			HttpServletRequest request, MultiValueMap<String, String> headers, HttpStatus status) {
+		request.setAttribute(SENDFILE_FILENAME, fileStream.getFile().toAbsolutePath().toString());
+		request.setAttribute(SENDFILE_START, fileStream.getPosition());
+		request.setAttribute(SENDFILE_END, fileStream.getEnd());
+		headers.set(HttpHeaders.CONTENT_LENGTH, String.valueOf(fileStream.getRemaining()));
+		try {
+			fileStream.close();
+		} catch (IOException e) {
+			// the channel only held the file open until now
+		}
+		return new ResponseEntity<StreamingResponseBody>(headers, status);
+	}
 
+	/**
+	 * Builds the response body. Object store streams are copied to the servlet
+	 * output with a fixed size buffer so that the share is never held in memory.
+	 * Every successful write moves the download session past the written bytes,
+	 * so that a dropped download resumes from the first byte not delivered.
+	 *
+	 * @param dataShareGetResponse the data share get response
+	 * @return the streaming response body
+	 */
+	private StreamingResponseBody buildResponseBody(DataShareGetResponse dataShareGetResponse) {
+		InputStream fileStream = dataShareGetResponse.getFileStream();
+		DownloadLease downloadLease = dataShareGetResponse.getDownloadLease();
+		if (fileStream == null) {
+			byte[] fileBytes = dataShareGetResponse.getFileBytes();
+			return outputStream -> {
+				outputStream.write(fileBytes);
+				if (downloadLease != null) {
+					downloadLease.delivered(fileBytes.length);
+				}
+			};
+		}
+		int bufferSize = downloadBufferSize > 0 ? downloadBufferSize : DEFAULT_DOWNLOAD_BUFFER_SIZE;
+		return outputStream -> {
+			try (InputStream inputStream = fileStream) {
+				byte[] buffer = new byte[bufferSize];
+				int read;
+				while ((read = inputStream.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, read);
+					if (downloadLease != null && !downloadLease.delivered(read)) {
+						throw new IOException("Download continued by another request");
+					}
+				}
+			}
+		};
 	}
 }
@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -19,6 +20,7 @@ import io.mosip.datashare.exception.ApiNotAccessibleException;
 import io.mosip.datashare.exception.DataEncryptionFailureException;
 import io.mosip.datashare.exception.DataShareExpiredException;
 import io.mosip.datashare.exception.DataShareNotFoundException;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
 import io.mosip.datashare.exception.FileException;
 import io.mosip.datashare.exception.PolicyException;
 import io.mosip.datashare.exception.SignatureException;
@@ -71,6 +73,15 @@ public class DataShareExceptionHandler {
 		return buildDataShareApiExceptionResponse((Exception) e);
 	}
 
+	@ExceptionHandler(DataShareRangeNotSatisfiableException.class)
+	public ResponseEntity<DataShareResponseDto> dataShareRangeNotSatisfiableException(
+			DataShareRangeNotSatisfiableException e) {
+		/* Range clients rely on the status to tell a finished download from a failed one */
+		ResponseEntity<DataShareResponseDto> response = buildDataShareApiExceptionResponse((Exception) e);
+		return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+				.contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+	}
+
 	@ExceptionHandler(URLCreationException.class)
 	public ResponseEntity<DataShareResponseDto> uRLCreationException(URLCreationException e) {
 		return buildDataShareApiExceptionResponse((Exception) e);
@@ -1,11 +1,45 @@
 package io.mosip.datashare.dto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+
+import io.mosip.datashare.util.DownloadSessionUtil.DownloadLease;
 import lombok.Data;
 
 @Data
 public class DataShareGetResponse {
 
 	private byte[] fileBytes;
+
+	/** Object store stream of the share, set instead of fileBytes when downloads are streamed. */
+	private InputStream fileStream;
 	
 	private String signature;
+
+	/** Set when only the requested range of the share is returned. */
+	private boolean partial;
+
+	/** First byte returned when partial. */
+	private long rangeStart;
+
+	/** Last byte returned when partial, inclusive. */
+	private long rangeEnd;
+
+	/** Size of the whole share, -1 if unknown. */
+	private long length = -1;
+
+	/** Entity tag of the share, null if ranges are not supported. */
+	private String entityTag;
+
+	/** Download session a later range can continue, null if the download spends nothing. */
+	private String downloadSession;
+
+	/** Records the bytes delivered in the download session, null without a session. */
+	private DownloadLease downloadLease;
+
+	/** Set when the share allows unlimited downloads. */
+	private boolean unlimitedUsage;
+
+	/** UTC expiry time of the share, null if unknown. */
+	private LocalDateTime expiryDtimes;
 }
@@ -0,0 +1,26 @@
+package io.mosip.datashare.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A byte range of a share requested with the Range header.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataShareRange {
+
+	/** First byte of the range. */
+	private long start;
+
+	/** Last byte of the range, inclusive, -1 for the end of the share. */
+	private long end;
+
+	/** Download session the range continues, from the Download-Session header. */
+	private String downloadSession;
+
+	/** Entity tag the range is conditional on, from the If-Range header. */
+	private String ifRange;
+}
@@ -0,0 +1,59 @@
+package io.mosip.datashare.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * Metadata of a share, kept apart from the shared object.
+ */
+@Data
+@Entity
+@Table(name = "share_record", indexes = {
+		@Index(name = "idx_share_record_subscriber", columnList = "subscriber_id"),
+		@Index(name = "idx_share_record_expiry", columnList = "expiry_dtimes") })
+public class ShareRecordEntity {
+
+	/** The random share key. */
+	@Id
+	@Column(name = "share_key", length = 255)
+	private String shareKey;
+
+	/** The policy id. */
+	@Column(name = "policy_id", nullable = false)
+	private String policyId;
+
+	/** The subscriber id. */
+	@Column(name = "subscriber_id", nullable = false)
+	private String subscriberId;
+
+	/** Publish date of the policy the share was created with. */
+	@Column(name = "policy_publish_dtimes")
+	private LocalDateTime policyPublishDtimes;
+
+	/** The share validity in minutes. */
+	@Column(name = "valid_for_minutes", nullable = false)
+	private int validForInMinutes;
+
+	/** The downloads allowed at creation, -1 for unlimited. */
+	@Column(name = "transactions_allowed", nullable = false)
+	private int transactionsAllowed;
+
+	/** The JWT signature of the shared data. */
+	@Column(name = "signature", length = 8192)
+	private String signature;
+
+	/** UTC time after which the share is expired. */
+	@Column(name = "expiry_dtimes", nullable = false)
+	private LocalDateTime expiryDtimes;
+
+	/** The created time. */
+	@Column(name = "cr_dtimes", nullable = false)
+	private LocalDateTime crDtimes;
+}
@@ -0,0 +1,32 @@
+package io.mosip.datashare.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * Remaining downloads of a share.
+ */
+@Data
+@Entity
+@Table(name = "share_usage")
+public class ShareUsageEntity {
+
+	/** The random share key. */
+	@Id
+	@Column(name = "share_key", length = 255)
+	private String shareKey;
+
+	/** Downloads left, -1 for unlimited. */
+	@Column(name = "remaining", nullable = false)
+	private int remaining;
+
+	/** The created time. */
+	@Column(name = "cr_dtimes", nullable = false)
+	private LocalDateTime crDtimes;
+}
@@ -0,0 +1,45 @@
+package io.mosip.datashare.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * Mapping of a short url key to the share it resolves to.
+ */
+@Data
+@Entity
+@Table(name = "short_url", indexes = { @Index(name = "idx_short_url_expiry", columnList = "expiry_dtimes") })
+public class ShortUrlEntity {
+
+	/** The short url key. */
+	@Id
+	@Column(name = "short_key", length = 128)
+	private String shortKey;
+
+	/** The policy id. */
+	@Column(name = "policy_id", nullable = false)
+	private String policyId;
+
+	/** The subscriber id. */
+	@Column(name = "subscriber_id", nullable = false)
+	private String subscriberId;
+
+	/** The random share key. */
+	@Column(name = "share_key", nullable = false)
+	private String shareKey;
+
+	/** UTC time after which the short url no longer resolves. */
+	@Column(name = "expiry_dtimes", nullable = false)
+	private LocalDateTime expiryDtimes;
+
+	/** The created time. */
+	@Column(name = "cr_dtimes", nullable = false)
+	private LocalDateTime crDtimes;
+}
@@ -0,0 +1,20 @@
+package io.mosip.datashare.exception;
+
+import io.mosip.datashare.constant.DataUtilityErrorCodes;
+import io.mosip.kernel.core.exception.BaseUncheckedException;
+
+public class DataShareRangeNotSatisfiableException extends BaseUncheckedException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DataShareRangeNotSatisfiableException() {
+		super(DataUtilityErrorCodes.DATA_SHARE_RANGE_NOT_SATISFIABLE_EXCEPTION.getErrorCode(),
+				DataUtilityErrorCodes.DATA_SHARE_RANGE_NOT_SATISFIABLE_EXCEPTION.getErrorMessage());
+	}
+
+	public DataShareRangeNotSatisfiableException(Throwable t) {
+		super(DataUtilityErrorCodes.DATA_SHARE_RANGE_NOT_SATISFIABLE_EXCEPTION.getErrorCode(),
+				DataUtilityErrorCodes.DATA_SHARE_RANGE_NOT_SATISFIABLE_EXCEPTION.getErrorMessage(), t);
+	}
+
+}
@@ -0,0 +1,331 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.IOUtils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ReflectionUtils;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+import io.mosip.commons.khazana.constant.KhazanaErrorCodes;
+import io.mosip.commons.khazana.exception.ObjectStoreAdapterException;
+import io.mosip.commons.khazana.impl.S3Adapter;
+import io.mosip.commons.khazana.util.ObjectStoreUtil;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * {@link S3Adapter} that additionally reads an object and its user metadata
+ * with a single GET and stores them with a single PUT, or with a parallel
+ * multipart upload for objects above a size threshold. The requests go
+ * through the S3 client of the parent adapter, so there is a single
+ * connection pool, and object names are built with the same
+ * {@link ObjectStoreUtil} naming, so objects written through either are read
+ * back under the same key. Operations not overridden here are left to the
+ * parent adapter.
+ */
+public class DataShareS3Adapter extends S3Adapter implements MetadataAwareObjectStore {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(DataShareS3Adapter.class);
+
+	private static final int NOT_FOUND = 404;
+
+	private static final int RANGE_NOT_SATISFIABLE = 416;
+
+	/**
+	 * Method through which the parent adapter creates and returns its S3
+	 * client, which it does not otherwise expose.
+	 */
+	private static final Method CONNECTION_METHOD = connectionMethod();
+
+	/** The setting of the parent adapter, which keeps its own copy private. */
+	@Value("${object.store.s3.use.account.as.bucketname:false}")
+	private boolean useAccountAsBucketname;
+
+	/** Bytes of an upload of unknown length kept for retries. */
+	@Value("${object.store.s3.readlimit:10000000}")
+	private int readlimit;
+
+	/** Defines whether large objects of known length are uploaded in parts. */
+	@Value("${mosip.data.share.object-store.multipart.enabled:true}")
+	private boolean multipartEnabled;
+
+	/** Size from which an object is uploaded in parts. */
+	@Value("${mosip.data.share.object-store.multipart.threshold-bytes:67108864}")
+	private long multipartThreshold;
+
+	/** Size of each part but the last, at least 5 MB for S3. */
+	@Value("${mosip.data.share.object-store.multipart.part-size-bytes:16777216}")
+	private int partSize;
+
+	/** Number of parts uploaded at once across all uploads, which also bounds the buffered parts. */
+	@Value("${mosip.data.share.object-store.multipart.max-threads:8}")
+	private int multipartMaxThreads;
+
+	private ExecutorService partUploadExecutor;
+
+	/** Permits for parts read into memory and not yet uploaded. */
+	private Semaphore partPermits;
+
+	/** Buckets known to exist. */
+	private final Set<String> existingBuckets = ConcurrentHashMap.newKeySet();
+
+	@PostConstruct
+	private void initPartUpload() {
+		if (!multipartEnabled)
+			return;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("datashare-part-upload-");
+		threadFactory.setDaemon(true);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(multipartMaxThreads, multipartMaxThreads, 60,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		partUploadExecutor = executor;
+		partPermits = new Semaphore(multipartMaxThreads);
+	}
+
+	@PreDestroy
+	private void shutdownPartUpload() {
+		if (partUploadExecutor != null)
+			partUploadExecutor.shutdownNow();
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectWithMetadata(String account, String container, String source, String process,
+			String objectName) {
+		return getObject(new GetObjectRequest(bucketName(account, container),
+				objectName(container, source, process, objectName)));
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectRangeWithMetadata(String account, String container, String source,
+			String process, String objectName, long start, long end) {
+		GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName(account, container),
+				objectName(container, source, process, objectName));
+		if (end < 0)
+			getObjectRequest.setRange(start);
+		else
+			getObjectRequest.setRange(start, end);
+		return getObject(getObjectRequest);
+	}
+
+	private ObjectWithMetadata getObject(GetObjectRequest getObjectRequest) {
+		S3Object s3Object;
+		try {
+			s3Object = getS3Client(getObjectRequest.getBucketName()).getObject(getObjectRequest);
+		} catch (AmazonS3Exception e) {
+			if (e.getStatusCode() == NOT_FOUND)
+				return null;
+			if (e.getStatusCode() == RANGE_NOT_SATISFIABLE)
+				throw new DataShareRangeNotSatisfiableException(e);
+			throw notAccessible(getObjectRequest.getKey(), e);
+		} catch (SdkClientException e) {
+			throw notAccessible(getObjectRequest.getKey(), e);
+		}
+		ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+		Map<String, Object> metadata = new HashMap<>(objectMetadata.getUserMetadata());
+		return new ObjectWithMetadata(s3Object.getObjectContent(), metadata, objectMetadata.getInstanceLength());
+	}
+
+	@Override
+	public boolean putObjectWithMetadata(String account, String container, String source, String process,
+			String objectName, InputStream data, long contentLength, Map<String, Object> metadata) {
+		return store(account, container, source, process, objectName, data, contentLength, metadata);
+	}
+
+	@Override
+	public boolean putObject(String account, String container, String source, String process, String objectName,
+			InputStream data, long contentLength) {
+		return store(account, container, source, process, objectName, data, contentLength, Collections.emptyMap());
+	}
+
+	private boolean store(String account, String container, String source, String process, String objectName,
+			InputStream data, long contentLength, Map<String, Object> metadata) {
+		String bucketName = bucketName(account, container);
+		String finalObjectName = objectName(container, source, process, objectName);
+		ObjectMetadata objectMetadata = new ObjectMetadata();
+		metadata.forEach((key, value) -> {
+			if (value != null)
+				objectMetadata.addUserMetadata(key, value.toString());
+		});
+		try {
+			AmazonS3 client = getS3Client(bucketName);
+			ensureBucket(client, bucketName);
+			if (partUploadExecutor != null && contentLength >= multipartThreshold) {
+				return putObjectInParts(client, bucketName, finalObjectName, data, contentLength, objectMetadata);
+			}
+			if (contentLength >= 0)
+				objectMetadata.setContentLength(contentLength);
+			PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, finalObjectName, data,
+					objectMetadata);
+			putObjectRequest.getRequestClientOptions().setReadLimit(readlimit);
+			client.putObject(putObjectRequest);
+			return true;
+		} catch (SdkClientException e) {
+			throw notAccessible(finalObjectName, e);
+		}
+	}
+
+	/**
+	 * Uploads the object as a multipart upload. Parts are read from the stream
+	 * one after the other and uploaded concurrently, the upload is aborted if
+	 * any part fails so that no incomplete parts are left behind.
+	 */
+	private boolean putObjectInParts(AmazonS3 client, String bucketName, String objectName, InputStream data,
+			long contentLength, ObjectMetadata objectMetadata) {
+		String uploadId = client
+				.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, objectName, objectMetadata))
+				.getUploadId();
+		List<Future<PartETag>> parts = new ArrayList<>();
+		AtomicBoolean aborted = new AtomicBoolean();
+		try {
+			long remaining = contentLength;
+			int partNumber = 1;
+			while (remaining > 0) {
+				int size = (int) Math.min(partSize, remaining);
+				/* The permit is taken before the part is buffered, so that waiting uploads hold no part memory */
+				partPermits.acquire();
+				int number = partNumber++;
+				try {
+					byte[] part = new byte[size];
+					IOUtils.readFully(data, part);
+					parts.add(partUploadExecutor.submit(() -> {
+						try {
+							if (aborted.get())
+								throw new CancellationException();
+							return client.uploadPart(new UploadPartRequest().withBucketName(bucketName)
+									.withKey(objectName).withUploadId(uploadId).withPartNumber(number)
+									.withPartSize(size).withInputStream(new ByteArrayInputStream(part)))
+									.getPartETag();
+						} finally {
+							partPermits.release();
+						}
+					}));
+				} catch (IOException | RuntimeException e) {
+					partPermits.release();
+					throw e;
+				}
+				remaining -= size;
+				failOnCompletedPartError(parts);
+			}
+			List<PartETag> partETags = new ArrayList<>(parts.size());
+			for (Future<PartETag> part : parts)
+				partETags.add(part.get());
+			client.completeMultipartUpload(
+					new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+			LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), objectName,
+					"Uploaded in " + partETags.size() + " parts");
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abortUpload(client, bucketName, objectName, uploadId, aborted);
+			throw notAccessible(objectName, e);
+		} catch (ExecutionException e) {
+			abortUpload(client, bucketName, objectName, uploadId, aborted);
+			throw notAccessible(objectName, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+		} catch (IOException | RuntimeException e) {
+			abortUpload(client, bucketName, objectName, uploadId, aborted);
+			throw notAccessible(objectName, e);
+		}
+	}
+
+	/** Stops reading further parts once an uploaded part has failed. */
+	private static void failOnCompletedPartError(List<Future<PartETag>> parts)
+			throws InterruptedException, ExecutionException {
+		for (Future<PartETag> part : parts) {
+			if (part.isDone())
+				part.get();
+		}
+	}
+
+	private void abortUpload(AmazonS3 client, String bucketName, String objectName, String uploadId,
+			AtomicBoolean aborted) {
+		/* Queued parts are skipped rather than cancelled so that each still returns its permit */
+		aborted.set(true);
+		try {
+			client.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+		} catch (SdkClientException e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), objectName,
+					"Failed to abort multipart upload " + uploadId + " " + ExceptionUtils.getStackTrace(e));
+		}
+	}
+
+	private void ensureBucket(AmazonS3 client, String bucketName) {
+		if (existingBuckets.contains(bucketName))
+			return;
+		if (!client.doesBucketExistV2(bucketName))
+			client.createBucket(bucketName);
+		existingBuckets.add(bucketName);
+	}
+
+	protected String bucketName(String account, String container) {
+		return useAccountAsBucketname ? account : container;
+	}
+
+	protected String objectName(String container, String source, String process, String objectName) {
+		return useAccountAsBucketname ? ObjectStoreUtil.getName(container, source, process, objectName)
+				: ObjectStoreUtil.getName(source, process, objectName);
+	}
+
+	/**
+	 * Gets the S3 client of the parent adapter, which creates it on first use.
+	 *
+	 * @param bucketName the bucket the client is first used for
+	 * @return the client
+	 */
+	protected AmazonS3 getS3Client(String bucketName) {
+		return (AmazonS3) ReflectionUtils.invokeMethod(CONNECTION_METHOD, this, bucketName);
+	}
+
+	protected ObjectStoreAdapterException notAccessible(String objectName, Exception e) {
+		LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), objectName,
+				"DataShareS3Adapter:: error with error message " + e.getMessage());
+		return new ObjectStoreAdapterException(KhazanaErrorCodes.OBJECT_STORE_NOT_ACCESSIBLE.getErrorCode(),
+				KhazanaErrorCodes.OBJECT_STORE_NOT_ACCESSIBLE.getErrorMessage(), e);
+	}
+
+	private static Method connectionMethod() {
+		Method method = ReflectionUtils.findMethod(S3Adapter.class, "getConnection", String.class);
+		if (method == null)
+			throw new IllegalStateException("S3Adapter of this khazana version does not provide its S3 client");
+		ReflectionUtils.makeAccessible(method);
+		return method;
+	}
+}
@@ -0,0 +1,106 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Stream over a region of a file in the local object store. Besides being
+ * read like any stream, the region can be handed to the servlet container for
+ * sendfile, so that the content does not pass through the heap.
+ */
+public class FileObjectInputStream extends InputStream {
+
+	private final Path file;
+
+	private final FileChannel channel;
+
+	private final long end;
+
+	private long position;
+
+	private FileObjectInputStream(Path file, FileChannel channel, long start, long end) {
+		this.file = file;
+		this.channel = channel;
+		this.end = end;
+		this.position = start;
+	}
+
+	/**
+	 * Opens a region of the file.
+	 *
+	 * @param file  the file
+	 * @param start the first byte
+	 * @param end   the last byte, inclusive, -1 for the end of the file
+	 * @return the stream
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static FileObjectInputStream open(Path file, long start, long end) throws IOException {
+		FileChannel channel = FileChannel.open(file);
+		try {
+			long size = channel.size();
+			long last = end < 0 || end >= size ? size - 1 : end;
+			return new FileObjectInputStream(file, channel, start, Math.max(start, last + 1));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/** First byte of the region not read yet. */
+	public long getPosition() {
+		return position;
+	}
+
+	/** Byte after the last byte of the region. */
+	public long getEnd() {
+		return end;
+	}
+
+	/** Number of bytes of the region not read yet. */
+	public long getRemaining() {
+		return end - position;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		if (length == 0)
+			return 0;
+		long remaining = getRemaining();
+		if (remaining <= 0)
+			return -1;
+		int read = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, remaining)), position);
+		if (read > 0)
+			position += read;
+		return read;
+	}
+
+	@Override
+	public long skip(long count) {
+		long skipped = Math.max(0, Math.min(count, getRemaining()));
+		position += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, getRemaining());
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,298 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import io.mosip.commons.khazana.constant.KhazanaErrorCodes;
+import io.mosip.commons.khazana.exception.ObjectStoreAdapterException;
+import io.mosip.commons.khazana.impl.PosixAdapter;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.logger.spi.Logger;
+
+/**
+ * Object store on the local file system, for standalone deployments and load
+ * tests without an S3 compatible store.
+ * <p>
+ * Objects are stored as plain files under
+ * {@code base-directory/account/container[/source][/process]/shard/objectName},
+ * the shard being the first byte of the SHA-256 of the object name in hex so
+ * that no directory grows beyond a few thousand entries. User metadata is kept
+ * in a {@code .metadata} properties file next to the object. Every write goes
+ * to a temporary file that is synced and renamed into place, so readers see
+ * either the old or the new content. Reads return a
+ * {@link FileObjectInputStream}, which the controller hands to the servlet
+ * container for sendfile when the container supports it.
+ * <p>
+ * Operations data share does not use, such as tags, packing and listing, are
+ * left to {@link PosixAdapter}.
+ */
+public class FileSystemAdapter extends PosixAdapter implements MetadataAwareObjectStore {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(FileSystemAdapter.class);
+
+	private static final String METADATA_SUFFIX = ".metadata";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** Number of locks metadata updates are spread over. */
+	private static final int LOCK_STRIPES = 64;
+
+	/** Root directory of the objects. */
+	@Value("${mosip.data.share.object-store.filesystem.base-directory:${java.io.tmpdir}/datashare-objects}")
+	private String baseDirectory;
+
+	private final Object[] metadataLocks = new Object[LOCK_STRIPES];
+
+	public FileSystemAdapter() {
+		for (int i = 0; i < LOCK_STRIPES; i++)
+			metadataLocks[i] = new Object();
+	}
+
+	@Override
+	public boolean putObject(String account, String container, String source, String process, String objectName,
+			InputStream data) {
+		Path file = objectFile(account, container, source, process, objectName);
+		try {
+			write(file, data);
+			return true;
+		} catch (IOException e) {
+			throw notAccessible(objectName, e);
+		}
+	}
+
+	@Override
+	public boolean putObject(String account, String container, String source, String process, String objectName,
+			InputStream data, long contentLength) {
+		return putObject(account, container, source, process, objectName, data);
+	}
+
+	@Override
+	public boolean putObjectWithMetadata(String account, String container, String source, String process,
+			String objectName, InputStream data, long contentLength, Map<String, Object> metadata) {
+		Path file = objectFile(account, container, source, process, objectName);
+		try {
+			/* Metadata is committed first so that a visible object always has its metadata */
+			writeMetadata(file, metadata);
+			write(file, data);
+			return true;
+		} catch (IOException e) {
+			throw notAccessible(objectName, e);
+		}
+	}
+
+	@Override
+	public InputStream getObject(String account, String container, String source, String process,
+			String objectName) {
+		return open(objectFile(account, container, source, process, objectName), 0, -1, objectName);
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectWithMetadata(String account, String container, String source, String process,
+			String objectName) {
+		return getObjectRangeWithMetadata(account, container, source, process, objectName, 0, -1);
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectRangeWithMetadata(String account, String container, String source,
+			String process, String objectName, long start, long end) {
+		Path file = objectFile(account, container, source, process, objectName);
+		FileObjectInputStream content = open(file, start, end, objectName);
+		if (content == null)
+			return null;
+		try {
+			long length = Files.size(file);
+			if (start > 0 && start >= length)
+				throw new DataShareRangeNotSatisfiableException();
+			return new ObjectWithMetadata(content, readMetadata(file), length);
+		} catch (IOException | RuntimeException e) {
+			closeQuietly(content);
+			if (e instanceof RuntimeException)
+				throw (RuntimeException) e;
+			throw notAccessible(objectName, (IOException) e);
+		}
+	}
+
+	@Override
+	public boolean exists(String account, String container, String source, String process, String objectName) {
+		return Files.exists(objectFile(account, container, source, process, objectName));
+	}
+
+	@Override
+	public Map<String, Object> getMetaData(String account, String container, String source, String process,
+			String objectName) {
+		Path file = objectFile(account, container, source, process, objectName);
+		if (!Files.exists(file))
+			return null;
+		try {
+			return readMetadata(file);
+		} catch (IOException e) {
+			throw notAccessible(objectName, e);
+		}
+	}
+
+	@Override
+	public Map<String, Object> addObjectMetaData(String account, String container, String source, String process,
+			String objectName, Map<String, Object> metadata) {
+		Path file = objectFile(account, container, source, process, objectName);
+		synchronized (metadataLocks[Math.floorMod(file.hashCode(), LOCK_STRIPES)]) {
+			try {
+				Map<String, Object> merged = readMetadata(file);
+				merged.putAll(metadata);
+				writeMetadata(file, merged);
+				return merged;
+			} catch (IOException e) {
+				throw notAccessible(objectName, e);
+			}
+		}
+	}
+
+	@Override
+	public boolean deleteObject(String account, String container, String source, String process,
+			String objectName) {
+		Path file = objectFile(account, container, source, process, objectName);
+		try {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(metadataFile(file));
+			return true;
+		} catch (IOException e) {
+			throw notAccessible(objectName, e);
+		}
+	}
+
+	/**
+	 * Resolves the file of an object. Every name is encoded into a single path
+	 * segment so that no name can leave the base directory.
+	 */
+	protected Path objectFile(String account, String container, String source, String process,
+			String objectName) {
+		Path directory = Paths.get(baseDirectory).resolve(segment(account)).resolve(segment(container));
+		if (source != null)
+			directory = directory.resolve(segment(source));
+		if (process != null)
+			directory = directory.resolve(segment(process));
+		return directory.resolve(shard(objectName)).resolve(segment(objectName));
+	}
+
+	private FileObjectInputStream open(Path file, long start, long end, String objectName) {
+		try {
+			return FileObjectInputStream.open(file, start, end);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw notAccessible(objectName, e);
+		}
+	}
+
+	private static void write(Path file, InputStream data) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path temp = temporaryFile(file);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				OutputStream out = Channels.newOutputStream(channel);
+				data.transferTo(out);
+				out.flush();
+				channel.force(true);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static Map<String, Object> readMetadata(Path file) throws IOException {
+		Map<String, Object> metadata = new HashMap<>();
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(metadataFile(file))) {
+			properties.load(in);
+		} catch (NoSuchFileException e) {
+			return metadata;
+		}
+		for (String key : properties.stringPropertyNames())
+			metadata.put(key, properties.getProperty(key));
+		return metadata;
+	}
+
+	private static void writeMetadata(Path file, Map<String, Object> metadata) throws IOException {
+		Properties properties = new Properties();
+		metadata.forEach((key, value) -> {
+			if (value != null)
+				properties.setProperty(key, value.toString());
+		});
+		Path metadataFile = metadataFile(file);
+		Files.createDirectories(file.getParent());
+		Path temp = temporaryFile(metadataFile);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				OutputStream out = Channels.newOutputStream(channel);
+				properties.store(out, null);
+				out.flush();
+				channel.force(true);
+			}
+			Files.move(temp, metadataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static Path metadataFile(Path file) {
+		return file.resolveSibling(file.getFileName() + METADATA_SUFFIX);
+	}
+
+	private static Path temporaryFile(Path file) {
+		return file.resolveSibling("." + file.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+	}
+
+	private static String segment(String name) {
+		String encoded = URLEncoder.encode(name, StandardCharsets.UTF_8).replace("*", "%2A");
+		/* Keeps ".", ".." and the hidden temporary files out of the name space */
+		return encoded.startsWith(".") ? "%2E" + encoded.substring(1) : encoded;
+	}
+
+	private static String shard(String objectName) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectName.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().toHexDigits(hash[0]);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void closeQuietly(InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// nothing to release beyond the channel
+		}
+	}
+
+	private ObjectStoreAdapterException notAccessible(String objectName, IOException e) {
+		LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), objectName,
+				"FileSystemAdapter:: error with error message " + e.getMessage());
+		return new ObjectStoreAdapterException(KhazanaErrorCodes.OBJECT_STORE_NOT_ACCESSIBLE.getErrorCode(),
+				KhazanaErrorCodes.OBJECT_STORE_NOT_ACCESSIBLE.getErrorMessage(), e);
+	}
+}
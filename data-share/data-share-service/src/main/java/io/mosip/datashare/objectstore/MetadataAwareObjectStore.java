@@ -0,0 +1,76 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Object store operations that handle an object and its user metadata in a
+ * single request. Implemented by {@link io.mosip.commons.khazana.spi.ObjectStoreAdapter}s
+ * that can do so; callers check for it and fall back to the separate calls.
+ */
+public interface MetadataAwareObjectStore {
+
+	/**
+	 * Gets the object and its user metadata with one request.
+	 *
+	 * @param account    the account
+	 * @param container  the container
+	 * @param source     the source
+	 * @param process    the process
+	 * @param objectName the object name
+	 * @return the object with its metadata, null if the object does not exist
+	 */
+	ObjectWithMetadata getObjectWithMetadata(String account, String container, String source, String process,
+			String objectName);
+
+	/**
+	 * Gets a byte range of the object and its user metadata with one request.
+	 *
+	 * @param account    the account
+	 * @param container  the container
+	 * @param source     the source
+	 * @param process    the process
+	 * @param objectName the object name
+	 * @param start      the first byte
+	 * @param end        the last byte, inclusive, -1 for the end of the object
+	 * @return the range with the metadata and the whole object length, null if
+	 *         the object does not exist
+	 * @throws io.mosip.datashare.exception.DataShareRangeNotSatisfiableException
+	 *         if the range starts after the end of the object
+	 */
+	ObjectWithMetadata getObjectRangeWithMetadata(String account, String container, String source, String process,
+			String objectName, long start, long end);
+
+	/**
+	 * Stores the object together with its user metadata in one write, so the
+	 * object never exists without its metadata.
+	 *
+	 * @param account       the account
+	 * @param container     the container
+	 * @param source        the source
+	 * @param process       the process
+	 * @param objectName    the object name
+	 * @param data          the object content, fully consumed on return
+	 * @param contentLength the content length, -1 if unknown
+	 * @param metadata      the user metadata
+	 * @return true if the object is stored
+	 */
+	boolean putObjectWithMetadata(String account, String container, String source, String process,
+			String objectName, InputStream data, long contentLength, Map<String, Object> metadata);
+
+	/**
+	 * Stores the object with its known length, so that it is streamed to the
+	 * store instead of being buffered in memory to find its length.
+	 *
+	 * @param account       the account
+	 * @param container     the container
+	 * @param source        the source
+	 * @param process       the process
+	 * @param objectName    the object name
+	 * @param data          the object content, fully consumed on return
+	 * @param contentLength the content length
+	 * @return true if the object is stored
+	 */
+	boolean putObject(String account, String container, String source, String process, String objectName,
+			InputStream data, long contentLength);
+}
@@ -0,0 +1,28 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An object read together with its user metadata.
+ */
+@Getter
+@AllArgsConstructor
+public class ObjectWithMetadata {
+
+	/** The object content or the requested range of it, to be closed by the caller. */
+	private final InputStream content;
+
+	/** The user metadata of the object. */
+	private final Map<String, Object> metadata;
+
+	/** Size of the whole object, -1 if unknown. */
+	private final long length;
+
+	public ObjectWithMetadata(InputStream content, Map<String, Object> metadata) {
+		this(content, metadata, -1);
+	}
+}
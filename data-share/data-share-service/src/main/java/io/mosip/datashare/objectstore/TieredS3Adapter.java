@@ -0,0 +1,332 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.exception.FileException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * {@link DataShareS3Adapter} that keeps a copy of the objects it stores in a
+ * local directory and serves reads of them from there, reading through to S3
+ * for objects it does not hold. The directory is bounded by a total size and
+ * the least recently used objects are evicted first.
+ * <p>
+ * Without the usage counter, the remaining downloads of a share are kept in
+ * its user metadata, which any instance may update. The metadata is then
+ * always read from S3, with a HEAD request when the content is local. With
+ * the usage counter, the count is kept in the database and the metadata
+ * stored with an object does not change, so it is kept in memory with the
+ * local copy and reads of local copies make no request to S3. The kept
+ * metadata is also updated with the metadata updates made through this
+ * adapter.
+ * <p>
+ * The directory is emptied on start because objects deleted while the
+ * instance was down cannot be told apart.
+ */
+public class TieredS3Adapter extends DataShareS3Adapter {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(TieredS3Adapter.class);
+
+	private static final int NOT_FOUND = 404;
+
+	/** Directory of the local copies. */
+	@Value("${mosip.data.share.object-store.local-tier.directory:${java.io.tmpdir}/datashare-local-tier}")
+	private String directory;
+
+	/** Total size of the local copies. */
+	@Value("${mosip.data.share.object-store.local-tier.max-bytes:10737418240}")
+	private long maxBytes;
+
+	/** Size of the largest object that is copied locally. */
+	@Value("${mosip.data.share.object-store.local-tier.max-object-bytes:67108864}")
+	private long maxObjectBytes;
+
+	/** Defines whether download counts are kept by the usage counter, which leaves the object metadata unchanged. */
+	@Value("${mosip.data.share.usage-counter.enabled:false}")
+	private boolean usageCounterEnabled;
+
+	private Path tierDirectory;
+
+	/** Local copies by file name, least recently used first. */
+	private final LinkedHashMap<String, LocalObject> localObjects = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long localBytes;
+
+	@PostConstruct
+	private void initLocalTier() {
+		tierDirectory = Paths.get(directory);
+		try {
+			Files.createDirectories(tierDirectory);
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(tierDirectory)) {
+				for (Path file : files)
+					Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			throw new FileException("Unable to prepare the local object directory " + directory, e);
+		}
+		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), directory,
+				"Local object tier enabled with " + maxBytes + " bytes");
+	}
+
+	@Override
+	public boolean putObject(String account, String container, String source, String process, String objectName,
+			InputStream data) {
+		return putObjectWithMetadata(account, container, source, process, objectName, data, -1,
+				Collections.emptyMap());
+	}
+
+	@Override
+	public boolean putObject(String account, String container, String source, String process, String objectName,
+			InputStream data, long contentLength) {
+		return putObjectWithMetadata(account, container, source, process, objectName, data, contentLength,
+				Collections.emptyMap());
+	}
+
+	@Override
+	public boolean putObjectWithMetadata(String account, String container, String source, String process,
+			String objectName, InputStream data, long contentLength, Map<String, Object> metadata) {
+		String fileName = fileName(bucketName(account, container), objectName(container, source, process, objectName));
+		if (contentLength > maxObjectBytes) {
+			evict(fileName);
+			return super.putObjectWithMetadata(account, container, source, process, objectName, data,
+					contentLength, metadata);
+		}
+		Path spool = null;
+		try {
+			/* The object is spooled first so that the upload knows its length and the copy is complete */
+			spool = Files.createTempFile(tierDirectory, "upload-", ".tmp");
+			long length = Files.copy(data, spool, StandardCopyOption.REPLACE_EXISTING);
+			boolean stored;
+			try (InputStream in = Files.newInputStream(spool)) {
+				stored = super.putObjectWithMetadata(account, container, source, process, objectName, in, length,
+						metadata);
+			}
+			if (stored && length <= maxObjectBytes) {
+				keep(fileName, spool, new LocalObject(length, toStrings(metadata)));
+				spool = null;
+			} else {
+				evict(fileName);
+			}
+			return stored;
+		} catch (IOException e) {
+			throw notAccessible(objectName, e);
+		} finally {
+			deleteQuietly(spool);
+		}
+	}
+
+	@Override
+	public InputStream getObject(String account, String container, String source, String process,
+			String objectName) {
+		String fileName = fileName(bucketName(account, container), objectName(container, source, process, objectName));
+		InputStream content = localObject(fileName) != null ? open(tierDirectory.resolve(fileName), 0, -1) : null;
+		return content != null ? content
+				: super.getObject(account, container, source, process, objectName);
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectWithMetadata(String account, String container, String source, String process,
+			String objectName) {
+		ObjectWithMetadata object = getLocalObject(account, container, source, process, objectName, 0, -1);
+		return object != null ? object
+				: super.getObjectWithMetadata(account, container, source, process, objectName);
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectRangeWithMetadata(String account, String container, String source,
+			String process, String objectName, long start, long end) {
+		ObjectWithMetadata object = getLocalObject(account, container, source, process, objectName, start, end);
+		return object != null ? object
+				: super.getObjectRangeWithMetadata(account, container, source, process, objectName, start, end);
+	}
+
+	@Override
+	public Map<String, Object> getMetaData(String account, String container, String source, String process,
+			String objectName) {
+		LocalObject localObject = usageCounterEnabled ? localObject(
+				fileName(bucketName(account, container), objectName(container, source, process, objectName))) : null;
+		return localObject != null ? new HashMap<String, Object>(localObject.metadata)
+				: super.getMetaData(account, container, source, process, objectName);
+	}
+
+	@Override
+	public Map<String, Object> addObjectMetaData(String account, String container, String source, String process,
+			String objectName, Map<String, Object> metadata) {
+		String fileName = fileName(bucketName(account, container), objectName(container, source, process, objectName));
+		LocalObject localObject = localObject(fileName);
+		if (localObject == null)
+			return super.addObjectMetaData(account, container, source, process, objectName, metadata);
+		/* Updates of the same object are applied in turn so that the kept metadata is the last one stored */
+		synchronized (localObject) {
+			try {
+				Map<String, Object> result = super.addObjectMetaData(account, container, source, process,
+						objectName, metadata);
+				Map<String, String> merged = new HashMap<>(localObject.metadata);
+				merged.putAll(toStrings(metadata));
+				localObject.metadata = merged;
+				return result;
+			} catch (RuntimeException e) {
+				/* The metadata in S3 is unknown after a failed update */
+				evict(fileName);
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public boolean deleteObject(String account, String container, String source, String process,
+			String objectName) {
+		evict(fileName(bucketName(account, container), objectName(container, source, process, objectName)));
+		return super.deleteObject(account, container, source, process, objectName);
+	}
+
+	/**
+	 * Reads the local copy of the object with its kept metadata, or with the
+	 * metadata from S3 when the metadata holds the download count.
+	 *
+	 * @return the object, null if there is no usable local copy
+	 */
+	private ObjectWithMetadata getLocalObject(String account, String container, String source, String process,
+			String objectName, long start, long end) {
+		String bucketName = bucketName(account, container);
+		String key = objectName(container, source, process, objectName);
+		String fileName = fileName(bucketName, key);
+		LocalObject localObject = localObject(fileName);
+		if (localObject == null)
+			return null;
+		Map<String, Object> metadata;
+		if (usageCounterEnabled) {
+			metadata = new HashMap<String, Object>(localObject.metadata);
+		} else {
+			try {
+				metadata = new HashMap<String, Object>(
+						getS3Client(bucketName).getObjectMetadata(bucketName, key).getUserMetadata());
+			} catch (AmazonS3Exception e) {
+				/* Deleted through another instance, other failures are left to the read from S3 */
+				if (e.getStatusCode() == NOT_FOUND)
+					evict(fileName);
+				return null;
+			} catch (SdkClientException e) {
+				return null;
+			}
+		}
+		if (start > 0 && start >= localObject.length)
+			throw new DataShareRangeNotSatisfiableException();
+		InputStream content = open(tierDirectory.resolve(fileName), start, end);
+		if (content == null)
+			return null;
+		return new ObjectWithMetadata(content, metadata, localObject.length);
+	}
+
+	private InputStream open(Path file, long start, long end) {
+		try {
+			FileChannel channel = FileChannel.open(file).position(start);
+			InputStream content = Channels.newInputStream(channel);
+			return end < 0 ? content : new BoundedInputStream(content, end - start + 1);
+		} catch (NoSuchFileException e) {
+			evict(file.getFileName().toString());
+			return null;
+		} catch (IOException e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+					file.toString(), "Failed to read local copy, reading from object store " + e.getMessage());
+			return null;
+		}
+	}
+
+	private synchronized LocalObject localObject(String fileName) {
+		return localObjects.get(fileName);
+	}
+
+	private synchronized void keep(String fileName, Path spool, LocalObject localObject) throws IOException {
+		Files.move(spool, tierDirectory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		LocalObject previous = localObjects.put(fileName, localObject);
+		localBytes += localObject.length - (previous != null ? previous.length : 0);
+		Iterator<Map.Entry<String, LocalObject>> eldest = localObjects.entrySet().iterator();
+		while (localBytes > maxBytes && eldest.hasNext()) {
+			Map.Entry<String, LocalObject> entry = eldest.next();
+			eldest.remove();
+			localBytes -= entry.getValue().length;
+			deleteQuietly(tierDirectory.resolve(entry.getKey()));
+		}
+	}
+
+	private synchronized void evict(String fileName) {
+		LocalObject localObject = localObjects.remove(fileName);
+		if (localObject != null) {
+			localBytes -= localObject.length;
+			deleteQuietly(tierDirectory.resolve(fileName));
+		}
+	}
+
+	private static Map<String, String> toStrings(Map<String, Object> metadata) {
+		Map<String, String> values = new HashMap<>();
+		metadata.forEach((key, value) -> {
+			if (value != null)
+				values.put(key, value.toString());
+		});
+		return values;
+	}
+
+	/** Object names may contain separators and characters the file system does not accept, so they are hashed. */
+	private static String fileName(String bucketName, String key) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+					.digest((bucketName + "/" + key).getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		if (file == null)
+			return;
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+					file.toString(), "Failed to delete local copy " + e.getMessage());
+		}
+	}
+
+	/** A local copy, with the user metadata last stored for it. */
+	private static final class LocalObject {
+
+		private final long length;
+
+		private volatile Map<String, String> metadata;
+
+		private LocalObject(long length, Map<String, String> metadata) {
+			this.length = length;
+			this.metadata = metadata;
+		}
+	}
+}
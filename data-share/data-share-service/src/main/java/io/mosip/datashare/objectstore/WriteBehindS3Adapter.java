@@ -0,0 +1,506 @@
+package io.mosip.datashare.objectstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.exception.FileException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * {@link DataShareS3Adapter} that acknowledges objects stored with their
+ * metadata once they are durably written to a local spool, and uploads them
+ * to S3 in the background, retrying with backoff up to a maximum number of
+ * attempts. Entries still failing then are moved to the {@code failed}
+ * subdirectory of the spool, where they are kept for a manual upload, and
+ * counted in the {@code datashare.spool.upload.failed} metric.
+ * <p>
+ * Each spooled object is a content file and a properties file with its
+ * location and user metadata, both synced to disk before the properties file
+ * is renamed into place, which commits the entry. Until uploaded, reads,
+ * metadata updates and deletes of the object are served from the spool.
+ * Committed entries left by a previous run are uploaded again on start.
+ * <p>
+ * Objects are only visible to other instances once uploaded. Objects stored
+ * without metadata, and objects arriving while the spool is full, are
+ * written to S3 directly.
+ */
+public class WriteBehindS3Adapter extends DataShareS3Adapter {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(WriteBehindS3Adapter.class);
+
+	private static final String DATA_SUFFIX = ".data";
+
+	private static final String ENTRY_SUFFIX = ".entry";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private static final String METADATA_PREFIX = "metadata.";
+
+	private static final String FAILED_DIRECTORY = "failed";
+
+	/** Directory of the spooled objects. */
+	@Value("${mosip.data.share.object-store.write-behind.directory:${java.io.tmpdir}/datashare-spool}")
+	private String directory;
+
+	/** Size of the spooled objects above which objects are written to S3 directly. */
+	@Value("${mosip.data.share.object-store.write-behind.max-bytes:1073741824}")
+	private long maxBytes;
+
+	/** Number of concurrent uploads. */
+	@Value("${mosip.data.share.object-store.write-behind.upload-threads:4}")
+	private int uploadThreads;
+
+	/** Delay before the first retry of a failed upload, doubled on each further failure. */
+	@Value("${mosip.data.share.object-store.write-behind.retry-initial-delay-millisec:1000}")
+	private long retryInitialDelayMillis;
+
+	@Value("${mosip.data.share.object-store.write-behind.retry-max-delay-millisec:60000}")
+	private long retryMaxDelayMillis;
+
+	/** Number of upload attempts after which a spooled object is moved to the failed directory. */
+	@Value("${mosip.data.share.object-store.write-behind.max-attempts:20}")
+	private int maxAttempts;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private Counter failedUploadCounter;
+
+	private Path spoolDirectory;
+
+	private ScheduledThreadPoolExecutor uploadExecutor;
+
+	/** Spooled objects not uploaded yet, by entry name. */
+	private final Map<String, SpoolEntry> pendingEntries = new ConcurrentHashMap<>();
+
+	private final AtomicLong spooledBytes = new AtomicLong();
+
+	@PostConstruct
+	private void initSpool() {
+		spoolDirectory = Paths.get(directory);
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("datashare-write-behind-");
+		threadFactory.setDaemon(true);
+		uploadExecutor = new ScheduledThreadPoolExecutor(uploadThreads, threadFactory);
+		if (meterRegistry != null) {
+			Gauge.builder("datashare.spool.bytes", spooledBytes, AtomicLong::get)
+					.description("Size of the spooled objects not uploaded yet").register(meterRegistry);
+			failedUploadCounter = Counter.builder("datashare.spool.upload.failed")
+					.description("Spooled objects moved to the failed directory after their last upload attempt")
+					.register(meterRegistry);
+		}
+		try {
+			Files.createDirectories(spoolDirectory);
+			recover();
+		} catch (IOException e) {
+			throw new FileException("Unable to prepare the spool directory " + directory, e);
+		}
+	}
+
+	@PreDestroy
+	private void shutdownSpool() {
+		/* Entries still pending are committed on disk and uploaded on the next start */
+		if (uploadExecutor != null)
+			uploadExecutor.shutdownNow();
+	}
+
+	@Override
+	public boolean putObjectWithMetadata(String account, String container, String source, String process,
+			String objectName, InputStream data, long contentLength, Map<String, Object> metadata) {
+		if (contentLength < 0 || !reserve(contentLength))
+			return super.putObjectWithMetadata(account, container, source, process, objectName, data,
+					contentLength, metadata);
+		String name = entryName(bucketName(account, container), objectName(container, source, process, objectName));
+		SpoolEntry entry = new SpoolEntry(name, account, container, source, process, objectName,
+				toStrings(metadata));
+		Path dataTemp = spoolDirectory.resolve(name + DATA_SUFFIX + TEMP_SUFFIX);
+		try {
+			try (FileChannel channel = FileChannel.open(dataTemp, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				entry.length = channel.transferFrom(Channels.newChannel(data), 0, Long.MAX_VALUE);
+				channel.force(true);
+			}
+			Files.move(dataTemp, entry.dataFile(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			writeEntry(entry);
+		} catch (IOException e) {
+			spooledBytes.addAndGet(-contentLength);
+			deleteQuietly(dataTemp);
+			deleteQuietly(entry.dataFile());
+			throw notAccessible(objectName, e);
+		}
+		/* The reservation is corrected to the bytes actually spooled */
+		spooledBytes.addAndGet(entry.length - contentLength);
+		SpoolEntry previous = pendingEntries.put(name, entry);
+		if (previous != null) {
+			previous.discarded = true;
+			spooledBytes.addAndGet(-previous.length);
+		}
+		uploadExecutor.execute(() -> upload(entry));
+		return true;
+	}
+
+	@Override
+	public InputStream getObject(String account, String container, String source, String process,
+			String objectName) {
+		SpoolEntry entry = pendingEntry(account, container, source, process, objectName);
+		InputStream content = entry != null ? open(entry, 0, -1) : null;
+		return content != null ? content : super.getObject(account, container, source, process, objectName);
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectWithMetadata(String account, String container, String source, String process,
+			String objectName) {
+		SpoolEntry entry = pendingEntry(account, container, source, process, objectName);
+		InputStream content = entry != null ? open(entry, 0, -1) : null;
+		return content != null
+				? new ObjectWithMetadata(content, new HashMap<String, Object>(entry.metadata), entry.length)
+				: super.getObjectWithMetadata(account, container, source, process, objectName);
+	}
+
+	@Override
+	public ObjectWithMetadata getObjectRangeWithMetadata(String account, String container, String source,
+			String process, String objectName, long start, long end) {
+		SpoolEntry entry = pendingEntry(account, container, source, process, objectName);
+		if (entry != null && start > 0 && start >= entry.length)
+			throw new DataShareRangeNotSatisfiableException();
+		InputStream content = entry != null ? open(entry, start, end) : null;
+		return content != null
+				? new ObjectWithMetadata(content, new HashMap<String, Object>(entry.metadata), entry.length)
+				: super.getObjectRangeWithMetadata(account, container, source, process, objectName, start, end);
+	}
+
+	@Override
+	public Map<String, Object> getMetaData(String account, String container, String source, String process,
+			String objectName) {
+		SpoolEntry entry = pendingEntry(account, container, source, process, objectName);
+		return entry != null ? new HashMap<String, Object>(entry.metadata)
+				: super.getMetaData(account, container, source, process, objectName);
+	}
+
+	@Override
+	public Map<String, Object> addObjectMetaData(String account, String container, String source, String process,
+			String objectName, Map<String, Object> metadata) {
+		SpoolEntry entry = pendingEntry(account, container, source, process, objectName);
+		if (entry != null) {
+			/* Waits for a running upload, after which the update goes to S3 */
+			synchronized (entry) {
+				if (!entry.uploaded && !entry.discarded) {
+					Map<String, String> previous = entry.metadata;
+					entry.metadata = toStrings(metadata);
+					try {
+						writeEntry(entry);
+						return metadata;
+					} catch (IOException e) {
+						entry.metadata = previous;
+						throw notAccessible(objectName, e);
+					}
+				}
+			}
+		}
+		return super.addObjectMetaData(account, container, source, process, objectName, metadata);
+	}
+
+	@Override
+	public boolean deleteObject(String account, String container, String source, String process,
+			String objectName) {
+		SpoolEntry entry = pendingEntry(account, container, source, process, objectName);
+		if (entry != null) {
+			synchronized (entry) {
+				entry.discarded = true;
+				remove(entry);
+			}
+		}
+		return super.deleteObject(account, container, source, process, objectName);
+	}
+
+	private void upload(SpoolEntry entry) {
+		synchronized (entry) {
+			if (entry.discarded || entry.uploaded)
+				return;
+			try (InputStream in = Files.newInputStream(entry.dataFile())) {
+				super.putObjectWithMetadata(entry.account, entry.container, entry.source, entry.process,
+						entry.objectName, in, entry.length, new HashMap<String, Object>(entry.metadata));
+				entry.uploaded = true;
+				remove(entry);
+				LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+						entry.objectName, "Spooled object uploaded after " + (entry.attempts + 1) + " attempts");
+			} catch (Exception e) {
+				long delay = Math.min(retryMaxDelayMillis,
+						retryInitialDelayMillis << Math.min(entry.attempts, 20));
+				entry.attempts++;
+				if (entry.attempts >= maxAttempts) {
+					fail(entry, e);
+					return;
+				}
+				LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+						entry.objectName, "Upload of spooled object failed, retrying in " + delay + " ms "
+								+ ExceptionUtils.getStackTrace(e));
+				if (!uploadExecutor.isShutdown())
+					uploadExecutor.schedule(() -> upload(entry), delay, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Reserves spool space for an object.
+	 *
+	 * @param length the size of the object
+	 * @return false if the spool is full, nothing being reserved then
+	 */
+	private boolean reserve(long length) {
+		if (spooledBytes.addAndGet(length) <= maxBytes)
+			return true;
+		spooledBytes.addAndGet(-length);
+		return false;
+	}
+
+	/** Moves an entry whose last upload attempt failed out of the spool, keeping its files. */
+	private void fail(SpoolEntry entry, Exception e) {
+		if (pendingEntries.remove(entry.name, entry))
+			spooledBytes.addAndGet(-entry.length);
+		Path failedDirectory = spoolDirectory.resolve(FAILED_DIRECTORY);
+		/* A newer entry of the same object owns the files */
+		if (!pendingEntries.containsKey(entry.name)) {
+			try {
+				Files.createDirectories(failedDirectory);
+				Files.move(entry.dataFile(), failedDirectory.resolve(entry.dataFile().getFileName()),
+						StandardCopyOption.REPLACE_EXISTING);
+				Files.move(entry.entryFile(), failedDirectory.resolve(entry.entryFile().getFileName()),
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException moveFailure) {
+				LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+						entry.objectName, "Failed to move spooled object to the failed directory "
+								+ moveFailure.getMessage());
+			}
+		}
+		if (failedUploadCounter != null)
+			failedUploadCounter.increment();
+		LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), entry.objectName,
+				"Upload of spooled object failed after " + entry.attempts + " attempts, moved to " + failedDirectory
+						+ " " + ExceptionUtils.getStackTrace(e));
+	}
+
+	/** Queues the committed entries of a previous run and deletes the uncommitted ones. */
+	private void recover() throws IOException {
+		int recovered = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory)) {
+			for (Path file : files) {
+				String fileName = file.getFileName().toString();
+				if (fileName.endsWith(TEMP_SUFFIX)) {
+					deleteQuietly(file);
+				} else if (fileName.endsWith(ENTRY_SUFFIX)) {
+					SpoolEntry entry = readEntry(fileName.substring(0, fileName.length() - ENTRY_SUFFIX.length()));
+					if (entry == null)
+						continue;
+					pendingEntries.put(entry.name, entry);
+					spooledBytes.addAndGet(entry.length);
+					uploadExecutor.execute(() -> upload(entry));
+					recovered++;
+				}
+			}
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDirectory, "*" + DATA_SUFFIX)) {
+			for (Path file : files) {
+				String fileName = file.getFileName().toString();
+				if (!pendingEntries.containsKey(fileName.substring(0, fileName.length() - DATA_SUFFIX.length())))
+					deleteQuietly(file);
+			}
+		}
+		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), directory,
+				"Spooled objects queued for upload : " + recovered);
+	}
+
+	private SpoolEntry readEntry(String name) {
+		Properties properties = new Properties();
+		SpoolEntry entry;
+		try (InputStream in = Files.newInputStream(spoolDirectory.resolve(name + ENTRY_SUFFIX))) {
+			properties.load(in);
+			Map<String, String> metadata = new HashMap<>();
+			for (String key : properties.stringPropertyNames()) {
+				if (key.startsWith(METADATA_PREFIX))
+					metadata.put(key.substring(METADATA_PREFIX.length()), properties.getProperty(key));
+			}
+			entry = new SpoolEntry(name, properties.getProperty("account"), properties.getProperty("container"),
+					properties.getProperty("source"), properties.getProperty("process"),
+					properties.getProperty("objectName"), metadata);
+			entry.length = Files.size(entry.dataFile());
+			return entry;
+		} catch (IOException e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), name,
+					"Discarding unreadable spool entry " + e.getMessage());
+			deleteQuietly(spoolDirectory.resolve(name + ENTRY_SUFFIX));
+			return null;
+		}
+	}
+
+	/** Writes the entry file durably, replacing the previous one in a single rename. */
+	private void writeEntry(SpoolEntry entry) throws IOException {
+		Properties properties = new Properties();
+		setIfPresent(properties, "account", entry.account);
+		setIfPresent(properties, "container", entry.container);
+		setIfPresent(properties, "source", entry.source);
+		setIfPresent(properties, "process", entry.process);
+		setIfPresent(properties, "objectName", entry.objectName);
+		entry.metadata.forEach((key, value) -> properties.setProperty(METADATA_PREFIX + key, value));
+		Path entryTemp = spoolDirectory.resolve(entry.name + ENTRY_SUFFIX + TEMP_SUFFIX);
+		try (FileChannel channel = FileChannel.open(entryTemp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			OutputStream out = Channels.newOutputStream(channel);
+			properties.store(out, null);
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(entryTemp, entry.entryFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+	}
+
+	private void syncDirectory() {
+		try (FileChannel channel = FileChannel.open(spoolDirectory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			/* Not supported on every platform, the renames are then only as durable as the file system makes them */
+		}
+	}
+
+	private void remove(SpoolEntry entry) {
+		if (pendingEntries.remove(entry.name, entry))
+			spooledBytes.addAndGet(-entry.length);
+		/* A newer entry of the same object owns the files */
+		if (!pendingEntries.containsKey(entry.name)) {
+			deleteQuietly(entry.entryFile());
+			deleteQuietly(entry.dataFile());
+		}
+	}
+
+	private SpoolEntry pendingEntry(String account, String container, String source, String process,
+			String objectName) {
+		if (pendingEntries.isEmpty())
+			return null;
+		return pendingEntries.get(entryName(bucketName(account, container),
+				objectName(container, source, process, objectName)));
+	}
+
+	private InputStream open(SpoolEntry entry, long start, long end) {
+		try {
+			InputStream content = Channels.newInputStream(FileChannel.open(entry.dataFile()).position(start));
+			return end < 0 ? content : new BoundedInputStream(content, end - start + 1);
+		} catch (NoSuchFileException e) {
+			/* Uploaded meanwhile */
+			return null;
+		} catch (IOException e) {
+			throw notAccessible(entry.objectName, e);
+		}
+	}
+
+	private static Map<String, String> toStrings(Map<String, Object> metadata) {
+		Map<String, String> values = new HashMap<>();
+		metadata.forEach((key, value) -> {
+			if (value != null)
+				values.put(key, value.toString());
+		});
+		return values;
+	}
+
+	private static void setIfPresent(Properties properties, String key, String value) {
+		if (value != null)
+			properties.setProperty(key, value);
+	}
+
+	private static String entryName(String bucketName, String key) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+					.digest((bucketName + "/" + key).getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+					file.toString(), "Failed to delete spool file " + e.getMessage());
+		}
+	}
+
+	private class SpoolEntry {
+
+		private final String name;
+
+		private final String account;
+
+		private final String container;
+
+		private final String source;
+
+		private final String process;
+
+		private final String objectName;
+
+		private volatile Map<String, String> metadata;
+
+		private long length;
+
+		private int attempts;
+
+		private volatile boolean uploaded;
+
+		/** Set when the object was deleted or stored again before the upload. */
+		private volatile boolean discarded;
+
+		SpoolEntry(String name, String account, String container, String source, String process, String objectName,
+				Map<String, String> metadata) {
+			this.name = name;
+			this.account = account;
+			this.container = container;
+			this.source = source;
+			this.process = process;
+			this.objectName = objectName;
+			this.metadata = metadata;
+		}
+
+		Path dataFile() {
+			return spoolDirectory.resolve(name + DATA_SUFFIX);
+		}
+
+		Path entryFile() {
+			return spoolDirectory.resolve(name + ENTRY_SUFFIX);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package io.mosip.datashare.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import io.mosip.datashare.entity.ShareRecordEntity;
+
+/**
+ * Share records, indexed by share key, subscriber and expiry.
+ */
+@Repository
+public interface ShareRecordRepository extends JpaRepository<ShareRecordEntity, String> {
+
+	/**
+	 * Lists the shares of a subscriber.
+	 *
+	 * @param subscriberId the subscriber id
+	 * @param pageable     the page
+	 * @return the shares
+	 */
+	Page<ShareRecordEntity> findBySubscriberId(String subscriberId, Pageable pageable);
+
+	/**
+	 * Finds shares expired before the given time.
+	 *
+	 * @param time     the UTC time
+	 * @param pageable the page, usually the first page of a batch size
+	 * @return the expired shares
+	 */
+	List<ShareRecordEntity> findByExpiryDtimesBefore(LocalDateTime time, Pageable pageable);
+}
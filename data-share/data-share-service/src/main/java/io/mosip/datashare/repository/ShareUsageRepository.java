@@ -0,0 +1,31 @@
+package io.mosip.datashare.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.mosip.datashare.entity.ShareUsageEntity;
+
+/**
+ * Usage counters of shares.
+ */
+@Repository
+public interface ShareUsageRepository extends JpaRepository<ShareUsageEntity, String> {
+
+	/**
+	 * Spends one download of the share in a single conditional update. Unlimited
+	 * shares match without being decremented.
+	 *
+	 * @param shareKey the random share key
+	 * @return 1 if a download was available, 0 if the share is exhausted or not
+	 *         tracked
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE ShareUsageEntity u SET u.remaining = CASE WHEN u.remaining > 0 THEN u.remaining - 1 ELSE u.remaining END "
+			+ "WHERE u.shareKey = :shareKey AND (u.remaining > 0 OR u.remaining = -1)")
+	int consume(@Param("shareKey") String shareKey);
+}
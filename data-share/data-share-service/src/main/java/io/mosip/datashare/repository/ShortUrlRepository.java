@@ -0,0 +1,30 @@
+package io.mosip.datashare.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.mosip.datashare.entity.ShortUrlEntity;
+
+/**
+ * Durable, cluster wide store of short url mappings.
+ */
+@Repository
+public interface ShortUrlRepository extends JpaRepository<ShortUrlEntity, String> {
+
+	/**
+	 * Deletes the short urls expired before the given time.
+	 *
+	 * @param time the UTC time
+	 * @return the number of deleted short urls
+	 */
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM ShortUrlEntity s WHERE s.expiryDtimes < :time")
+	int deleteExpiredBefore(@Param("time") LocalDateTime time);
+}
@@ -5,6 +5,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import io.mosip.datashare.dto.DataShare;
 import io.mosip.datashare.dto.DataShareGetResponse;
+import io.mosip.datashare.dto.DataShareRange;
 
 
 /**
@@ -35,6 +36,28 @@ public interface DataShareService {
 
 	public DataShareGetResponse getDataFile(String randomShareKey);
 
+	/**
+	 * Gets the data file or a byte range of it. A range continuing the download
+	 * session it names does not spend another download of the share.
+	 *
+	 * @param policyId       the policy id
+	 * @param subscriberId   the subscriber id
+	 * @param randomShareKey the random share key
+	 * @param range          the requested range, null for the whole file
+	 * @return the data file
+	 */
+	public DataShareGetResponse getDataFile(String policyId, String subscriberId, String randomShareKey,
+			DataShareRange range);
+
+	/**
+	 * Gets the data file of a short url or a byte range of it.
+	 *
+	 * @param shortUrlKey the short url key
+	 * @param range       the requested range, null for the whole file
+	 * @return the data file
+	 */
+	public DataShareGetResponse getDataFile(String shortUrlKey, DataShareRange range);
+
 
 
 
@@ -3,19 +3,40 @@ package io.mosip.datashare.service.impl;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import io.mosip.commons.khazana.exception.ObjectStoreAdapterException;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -25,16 +46,33 @@ import io.mosip.datashare.constant.LoggerFileConstant;
 import io.mosip.datashare.dto.DataShare;
 import io.mosip.datashare.dto.DataShareDto;
 import io.mosip.datashare.dto.DataShareGetResponse;
+import io.mosip.datashare.dto.DataShareRange;
 import io.mosip.datashare.dto.PolicyResponseDto;
+import io.mosip.datashare.entity.ShareRecordEntity;
+import io.mosip.datashare.exception.ApiNotAccessibleException;
+import io.mosip.datashare.exception.DataEncryptionFailureException;
 import io.mosip.datashare.exception.DataShareExpiredException;
 import io.mosip.datashare.exception.DataShareNotFoundException;
 import io.mosip.datashare.exception.FileException;
+import io.mosip.datashare.exception.PolicyException;
+import io.mosip.datashare.exception.SignatureException;
 import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.datashare.objectstore.MetadataAwareObjectStore;
+import io.mosip.datashare.objectstore.ObjectWithMetadata;
 import io.mosip.datashare.service.DataShareService;
 import io.mosip.datashare.util.CacheUtil;
 import io.mosip.datashare.util.DigitalSignatureUtil;
+import io.mosip.datashare.util.DownloadSessionUtil;
+import io.mosip.datashare.util.DownloadSessionUtil.DownloadLease;
 import io.mosip.datashare.util.EncryptionUtil;
+import io.mosip.datashare.util.HotObjectCacheUtil;
+import io.mosip.datashare.util.HotObjectCacheUtil.HotObject;
 import io.mosip.datashare.util.PolicyUtil;
+import io.mosip.datashare.util.ShareRecordUtil;
+import io.mosip.datashare.util.ShortUrlTokenUtil;
+import io.mosip.datashare.util.ShortUrlTokenUtil.ShortUrlClaims;
+import io.mosip.datashare.util.UsageCounterUtil;
+import io.mosip.datashare.util.UsageCounterUtil.Consumption;
 import io.mosip.kernel.core.exception.ExceptionUtils;
 import io.mosip.kernel.core.logger.spi.Logger;
 import io.mosip.kernel.core.util.CryptoUtil;
@@ -74,6 +112,25 @@ public class DataShareServiceImpl implements DataShareService {
 	@Autowired
 	private CacheUtil cacheUtil;
 
+	/** The short url token util. */
+	@Autowired
+	private ShortUrlTokenUtil shortUrlTokenUtil;
+
+	/** The usage counter util. */
+	@Autowired
+	private UsageCounterUtil usageCounterUtil;
+
+	/** The share record util. */
+	@Autowired
+	private ShareRecordUtil shareRecordUtil;
+
+	/** The download session util. */
+	@Autowired
+	private DownloadSessionUtil downloadSessionUtil;
+
+	/** The hot object cache util. */
+	@Autowired
+	private HotObjectCacheUtil hotObjectCacheUtil;
 
 	/** The Constant KEY_LENGTH. */
 	private static final String KEY_LENGTH = "mosip.data.share.key.length";
@@ -81,6 +138,18 @@ public class DataShareServiceImpl implements DataShareService {
 	/** The Constant DEFAULT_KEY_LENGTH. */
 	private static final int DEFAULT_KEY_LENGTH = 8;
 
+	/** Share keys starting with subscriber id, policy id and creation time, as created so far. */
+	public static final String KEY_LAYOUT_LEGACY = "legacy";
+
+	/** Share keys starting with hex digits of their hash, spreading them evenly over the object store key space. */
+	public static final String KEY_LAYOUT_HASH_PREFIXED = "hash-prefixed";
+
+	/** Share keys starting with one of a fixed number of buckets derived from their hash. */
+	public static final String KEY_LAYOUT_BUCKETED = "bucketed";
+
+	/** The Constant DIGEST_ALGORITHM used for the signature digest. */
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
 	/** The Constant IO_EXCEPTION. */
 	private static final String IO_EXCEPTION = "Exception while reading file";
 
@@ -117,6 +186,12 @@ public class DataShareServiceImpl implements DataShareService {
 
 	public static final String SIGNATURE = "signature";
 
+	/** Metadata key of the UTC expiry time, absent on shares created before expiry was enforced. */
+	public static final String EXPIRYDTIMES = "expirydtimes";
+
+	/** Metadata key marking a share whose downloads are counted by the usage counter. */
+	public static final String USAGECOUNTED = "usagecounted";
+
 	@Value("${mosip.data.share.protocol}")
 	private String httpProtocol;
 
@@ -128,12 +203,79 @@ public class DataShareServiceImpl implements DataShareService {
 	@Value("${mosip.data.share.signature.disabled:false}")
 	private boolean isSignatureDisabled;
 
+	/** Defines whether the object is streamed to the client instead of being read into memory */
+	@Value("${mosip.data.share.download.streaming.enabled:true}")
+	private boolean streamingDownloadEnabled;
+
+	/** Defines whether the object and its metadata are read with one object store request when supported */
+	@Value("${mosip.data.share.download.single-request.enabled:true}")
+	private boolean singleRequestReadEnabled;
+
+	/** Defines whether byte ranges of a share can be downloaded when the object store supports it */
+	@Value("${mosip.data.share.download.range.enabled:true}")
+	private boolean rangeDownloadEnabled;
+
+	/** Defines whether the object and its metadata are stored with one object store request when supported */
+	@Value("${mosip.data.share.create.single-request.enabled:true}")
+	private boolean pipelinedStoreEnabled;
+
+	/** Defines whether encryption and signing of a partner based share run concurrently */
+	@Value("${mosip.data.share.create.parallel.enabled:true}")
+	private boolean parallelCryptoEnabled;
+
+	/** Maximum number of threads running encryption and signing calls */
+	@Value("${mosip.data.share.create.parallel.max-threads:16}")
+	private int parallelCryptoMaxThreads;
+
+	/** Time allowed for encryption and signing of a share together */
+	@Value("${mosip.data.share.create.parallel.timeout-millisec:30000}")
+	private long parallelCryptoTimeoutMillis;
+
+	/** Defines whether concurrent encryption and signing are asynchronous calls instead of calls on the crypto threads */
+	@Value("${mosip.data.share.create.parallel.async.enabled:false}")
+	private boolean asyncCryptoEnabled;
+
+	/** Layout of the keys of new shares: legacy, hash-prefixed or bucketed. Existing keys resolve under any layout */
+	@Value("${mosip.data.share.key.layout:legacy}")
+	private String keyLayout;
+
+	/** Number of hex digits prefixed to the keys in the hash-prefixed layout */
+	@Value("${mosip.data.share.key.hash-prefix-length:4}")
+	private int keyHashPrefixLength;
+
+	/** Number of buckets in the bucketed layout */
+	@Value("${mosip.data.share.key.buckets:256}")
+	private int keyBuckets;
+
+	/** Runs the encryption and signing calls of a share */
+	private ExecutorService cryptoExecutor;
+
 	/** The Constant DATETIME_PATTERN. */
 	private static final String DATETIME_PATTERN = "mosip.data.share.datetime.pattern";
 
 	/** The constant defines unlimited usage count for the created share */
 	public static final int UNLIMITED_USAGE_COUNT = -1;
 
+	@PostConstruct
+	private void init() {
+		if (parallelCryptoEnabled && !asyncCryptoEnabled) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("datashare-crypto-");
+			threadFactory.setDaemon(true);
+			/* When saturated the call runs on the request thread, i.e. falls back to sequential execution */
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelCryptoMaxThreads, parallelCryptoMaxThreads,
+					60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(parallelCryptoMaxThreads * 4), threadFactory,
+					new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.allowCoreThreadTimeOut(true);
+			cryptoExecutor = executor;
+		}
+	}
+
+	@PreDestroy
+	private void shutdown() {
+		if (cryptoExecutor != null)
+			cryptoExecutor.shutdown();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -148,9 +290,8 @@ public class DataShareServiceImpl implements DataShareService {
 				"DataShareServiceImpl::createDataShare()::entry");
 		DataShare dataShare = new DataShare();
 		if (file != null && !file.isEmpty()) {
-			String randomShareKey;
-			try {
-				byte[] fileData = file.getBytes();
+			String storedShareKey = null;
+			try (InputStream fileStream = file.getInputStream()) {
 				DataShareDto dataSharePolicy;
 				LocalDateTime policyPublishDate = null;
 				LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
@@ -162,34 +303,130 @@ public class DataShareServiceImpl implements DataShareService {
 				} else {
 					dataSharePolicy = policyUtil.getStaticDataSharePolicy(policyId, subscriberId, usageCountForStandaloneMode);
 				}
-				byte[] encryptedData = null;
+
+				String createShareTime = DateUtils2
+						.getUTCCurrentDateTimeString(env.getProperty(DATETIME_PATTERN));
+				Date createShareDate = DateUtils2.parseUTCToDate(createShareTime);
+				int validForInMinutes = Integer.parseInt(dataSharePolicy.getValidForInMinutes());
+				String expiryTime = DateUtils2.toISOString(DateUtils2.addMinutes(createShareDate, validForInMinutes));
+				/* The deadline is fixed here once, reads only compare against it */
+				LocalDateTime createDtimes = LocalDateTime.ofInstant(createShareDate.toInstant(), ZoneOffset.UTC);
+				LocalDateTime expiryDtimes = createDtimes.plusMinutes(validForInMinutes);
+
+				String jwtSignature = "";
+				String randomShareKey = generateRandomShareKey(policyId, subscriberId);
+				/* With a combined put the upload waits until the metadata is known and is written together with it */
+				boolean combinedPut = pipelinedStoreEnabled && objectStoreAdapter instanceof MetadataAwareObjectStore;
+				InputStream pendingUpload = null;
+				long pendingUploadLength = -1;
 				if (PARTNERBASED.equalsIgnoreCase(dataSharePolicy.getEncryptionType())) {
 					LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 							policyId, subscriberId + "encryptionNeeded" + dataSharePolicy.getEncryptionType());
-					encryptedData = encryptionUtil.encryptData(fileData, subscriberId);
+					/* Keymanager encrypts the whole payload in a single JSON request hence it has to be buffered */
+					byte[] fileData = IOUtils.toByteArray(fileStream);
+					byte[] encryptedData;
+					if (parallelCryptoEnabled && asyncCryptoEnabled && !isSignatureDisabled) {
+						/* Both calls wait for their api without a thread, the request thread only awaits the results */
+						long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelCryptoTimeoutMillis);
+						CompletableFuture<byte[]> encryption = encryptionUtil.encryptDataAsync(fileData, subscriberId);
+						CompletableFuture<String> signature = digitalSignatureUtil.jwtSignAsync(fileData,
+								file.getName(), subscriberId, createShareTime, expiryTime);
+						encryption.whenComplete((result, failure) -> {
+							if (failure != null)
+								signature.cancel(true);
+						});
+						signature.whenComplete((result, failure) -> {
+							if (failure != null)
+								encryption.cancel(true);
+						});
+						encryptedData = awaitCryptoResult(encryption, signature, deadline);
+						jwtSignature = awaitCryptoResult(signature, encryption, deadline);
+					} else if (cryptoExecutor != null && !isSignatureDisabled) {
+						/* Both calls only need the file data, so the slower of the two sets the latency */
+						long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelCryptoTimeoutMillis);
+						CryptoTask<byte[]> encryption = new CryptoTask<>(
+								() -> encryptionUtil.encryptData(fileData, subscriberId));
+						CryptoTask<String> signature = new CryptoTask<>(
+								() -> digitalSignatureUtil.jwtSign(fileData, file.getName(), subscriberId,
+										createShareTime, expiryTime));
+						encryption.sibling = signature;
+						signature.sibling = encryption;
+						cryptoExecutor.execute(encryption);
+						cryptoExecutor.execute(signature);
+						encryptedData = awaitCryptoResult(encryption, signature, deadline);
+						jwtSignature = awaitCryptoResult(signature, encryption, deadline);
+					} else {
+						encryptedData = encryptionUtil.encryptData(fileData, subscriberId);
+						if(!isSignatureDisabled) {
+							jwtSignature = digitalSignatureUtil.jwtSign(fileData, file.getName(), subscriberId,
+									createShareTime, expiryTime);
+						}
+					}
+					if (combinedPut) {
+						pendingUpload = new ByteArrayInputStream(encryptedData);
+						pendingUploadLength = encryptedData.length;
+					} else {
+						storeObject(new ByteArrayInputStream(encryptedData), encryptedData.length, randomShareKey,
+								policyId, subscriberId);
+						storedShareKey = randomShareKey;
+					}
 
 				} else if (NONE.equalsIgnoreCase(dataSharePolicy.getEncryptionType())) {
-
-					encryptedData = fileData;
 					LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 							policyId, subscriberId + "Without encryption" + dataSharePolicy.getEncryptionType());
+					if (combinedPut) {
+						if (!isSignatureDisabled) {
+							/* The file is read once for the digest and again for the upload, so it is never buffered */
+							MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+							try (DigestInputStream digestStream = new DigestInputStream(fileStream, messageDigest)) {
+								digestStream.transferTo(OutputStream.nullOutputStream());
+							}
+							jwtSignature = digitalSignatureUtil.jwtSignDigest(messageDigest.digest(), file.getName(),
+									subscriberId, createShareTime, expiryTime);
+							pendingUpload = file.getInputStream();
+						} else {
+							pendingUpload = fileStream;
+						}
+						pendingUploadLength = file.getSize();
+					} else {
+						/* Upload is streamed to object store and the digest for signature is computed on the way */
+						MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+						storeObject(new DigestInputStream(fileStream, messageDigest), file.getSize(), randomShareKey,
+								policyId, subscriberId);
+						storedShareKey = randomShareKey;
+						if(!isSignatureDisabled) {
+							jwtSignature = digitalSignatureUtil.jwtSignDigest(messageDigest.digest(), file.getName(),
+									subscriberId, createShareTime, expiryTime);
+						}
+					}
 
+				} else {
+					throw new PolicyException("Unsupported encryption type : " + dataSharePolicy.getEncryptionType());
 				}
-				
-				String createShareTime = DateUtils2
-						.getUTCCurrentDateTimeString(env.getProperty(DATETIME_PATTERN));
-				String expiryTime = DateUtils2
-						.toISOString(DateUtils2.addMinutes(DateUtils2.parseUTCToDate(createShareTime),
-								Integer.parseInt(dataSharePolicy.getValidForInMinutes())));
 
-				String jwtSignature = "";
-				if(!isSignatureDisabled) {
-					jwtSignature = digitalSignatureUtil.jwtSign(fileData, file.getName(), subscriberId,
-							createShareTime, expiryTime);
-				}
 				Map<String, Object> aclMap = prepareMetaData(subscriberId, policyId, dataSharePolicy,
-						jwtSignature, policyPublishDate);
-				randomShareKey = storefile(aclMap, new ByteArrayInputStream(encryptedData), policyId, subscriberId);
+						jwtSignature, policyPublishDate, expiryDtimes);
+				if (pendingUpload != null) {
+					boolean isDataStored;
+					try (InputStream upload = pendingUpload) {
+						isDataStored = ((MetadataAwareObjectStore) objectStoreAdapter).putObjectWithMetadata(
+								subscriberId, policyId, null, null, randomShareKey, upload, pendingUploadLength,
+								aclMap);
+					}
+					storedShareKey = randomShareKey;
+					LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
+							randomShareKey, "Is data stored to object store with metadata" + isDataStored);
+				} else {
+					objectStoreAdapter.addObjectMetaData(subscriberId, policyId, null, null, randomShareKey, aclMap);
+				}
+				if (shareRecordUtil.isEnabled()) {
+					shareRecordUtil.save(prepareShareRecord(randomShareKey, subscriberId, policyId, dataSharePolicy,
+							jwtSignature, policyPublishDate, createDtimes, expiryDtimes));
+				}
+				if (usageCounterUtil.isEnabled()) {
+					usageCounterUtil.register(randomShareKey,
+							Integer.parseInt(dataSharePolicy.getTransactionsAllowed()));
+				}
 				String dataShareUrl = constructURL(randomShareKey, dataSharePolicy, policyId,
 						subscriberId);
 
@@ -197,7 +434,7 @@ public class DataShareServiceImpl implements DataShareService {
 				dataShare.setUrl(dataShareUrl);
 				dataShare.setPolicyId(policyId);
 				dataShare.setSubscriberId(subscriberId);
-				dataShare.setValidForInMinutes(Integer.parseInt(dataSharePolicy.getValidForInMinutes()));
+				dataShare.setValidForInMinutes(validForInMinutes);
 				dataShare.setTransactionsAllowed(Integer.parseInt(dataSharePolicy.getTransactionsAllowed()));
 				LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
 						"Datashare" + dataShare.toString());
@@ -206,7 +443,15 @@ public class DataShareServiceImpl implements DataShareService {
 			} catch (IOException e) {
 				LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 						policyId, IO_EXCEPTION + ExceptionUtils.getStackTrace(e));
+				deleteIncompleteShare(storedShareKey, policyId, subscriberId);
 				throw new FileException(IO_EXCEPTION, e);
+			} catch (NoSuchAlgorithmException e) {
+				LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
+						policyId, ExceptionUtils.getStackTrace(e));
+				throw new SignatureException(e);
+			} catch (RuntimeException e) {
+				deleteIncompleteShare(storedShareKey, policyId, subscriberId);
+				throw e;
 			}
 
 		}else {
@@ -218,6 +463,70 @@ public class DataShareServiceImpl implements DataShareService {
 		return dataShare;
 	}
 
+	/**
+	 * Encryption or signing call run on the crypto executor. Unlike a
+	 * {@link java.util.concurrent.CompletableFuture}, cancelling it interrupts
+	 * the thread running the call. A failed call cancels its sibling.
+	 */
+	private static final class CryptoTask<T> extends FutureTask<T> {
+
+		private volatile Future<?> sibling;
+
+		private CryptoTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			super.setException(t);
+			Future<?> other = sibling;
+			if (other != null)
+				other.cancel(true);
+		}
+	}
+
+	/**
+	 * Waits for an encryption or signing call until the shared deadline and
+	 * rethrows its failure, or the failure of its sibling if that cancelled it.
+	 */
+	private <T> T awaitCryptoResult(Future<T> future, Future<?> sibling, long deadline) {
+		try {
+			return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			throw propagate(e.getCause());
+		} catch (CancellationException e) {
+			/* The sibling failed before cancelling this call, so it is done */
+			if (sibling.isDone() && !sibling.isCancelled()) {
+				try {
+					sibling.get();
+				} catch (ExecutionException siblingFailure) {
+					throw propagate(siblingFailure.getCause());
+				} catch (InterruptedException siblingInterrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			throw e;
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			sibling.cancel(true);
+			throw new ApiNotAccessibleException(
+					"Encryption and signing not completed in " + parallelCryptoTimeoutMillis + " ms", e);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			sibling.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ApiNotAccessibleException(e);
+		}
+	}
+
+	private static RuntimeException propagate(Throwable cause) {
+		if (cause instanceof RuntimeException)
+			return (RuntimeException) cause;
+		if (cause instanceof Error)
+			throw (Error) cause;
+		return new DataEncryptionFailureException(cause);
+	}
+
 	/**
 	 * Construct URL.
 	 *
@@ -231,13 +540,20 @@ public class DataShareServiceImpl implements DataShareService {
 		String protocol = (dataSharePolicy.getProtocol() != null) ? dataSharePolicy.getProtocol() :HTTP_PROTOCOL ;
 		String url = null;
 		if (isShortUrl) {
-			int length = DEFAULT_KEY_LENGTH;
-			if (env.getProperty(KEY_LENGTH) != null) {
-				length = Integer.parseInt(env.getProperty(KEY_LENGTH));
-			}
+			String shortRandomShareKey;
+			if (shortUrlTokenUtil.isEnabled()) {
+				shortRandomShareKey = shortUrlTokenUtil.createToken(policyId, subscriberId, randomShareKey,
+						Integer.parseInt(dataSharePolicy.getValidForInMinutes()));
+			} else {
+				int length = DEFAULT_KEY_LENGTH;
+				if (env.getProperty(KEY_LENGTH) != null) {
+					length = Integer.parseInt(env.getProperty(KEY_LENGTH));
+				}
 
-			String shortRandomShareKey = generateShortRandomShareKey(length);
-			cacheUtil.getShortUrlData(shortRandomShareKey, policyId, subscriberId, randomShareKey);
+				shortRandomShareKey = generateShortRandomShareKey(length);
+				cacheUtil.saveShortUrlData(shortRandomShareKey, policyId, subscriberId, randomShareKey,
+						Integer.parseInt(dataSharePolicy.getValidForInMinutes()));
+			}
 			url = dataSharePolicy.getShareDomainUrlRead() != null ?
 					dataSharePolicy.getShareDomainUrlRead() +
 							servletPath + DATASHARE + FORWARD_SLASH + shortRandomShareKey
@@ -268,19 +584,101 @@ public class DataShareServiceImpl implements DataShareService {
 	 */
 	@Override
 	public DataShareGetResponse getDataFile(String policyId, String subcriberId, String randomShareKey) {
+		return getDataFile(policyId, subcriberId, randomShareKey, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.datashare.service.DataShareService#getDataFile(java.lang.String,
+	 * java.lang.String, java.lang.String, io.mosip.datashare.dto.DataShareRange)
+	 */
+	@Override
+	public DataShareGetResponse getDataFile(String policyId, String subcriberId, String randomShareKey,
+			DataShareRange range) {
 		DataShareGetResponse dataShareGetResponse = new DataShareGetResponse();
 		byte[] dataBytes = null;
 		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
 				"DataShareServiceImpl::getDataFile()::entry");
+		boolean rangeSupported = rangeDownloadEnabled && objectStoreAdapter instanceof MetadataAwareObjectStore;
+		String entityTag = rangeSupported ? entityTag(randomShareKey) : null;
+		/* A range conditional on another entity tag is answered with the whole share */
+		boolean ranged = rangeSupported && range != null
+				&& (range.getIfRange() == null || range.getIfRange().equals(entityTag));
+		/* Ranges continuing a download past the bytes already delivered were paid for by the first request */
+		DownloadLease downloadLease = ranged
+				? downloadSessionUtil.resume(range.getDownloadSession(), randomShareKey, range.getStart())
+				: null;
+		boolean continuation = downloadLease != null;
+		boolean hotObjectCacheable = !ranged && hotObjectCacheUtil.isEnabled();
+		InputStream inputStream = null;
 		try {
-			boolean isDataShareAllow = getAndUpdateMetaData(randomShareKey, policyId, subcriberId,
-					dataShareGetResponse);
+			Map<String, Object> metaDataMap = null;
+			HotObject hotObject = hotObjectCacheable ? hotObjectCacheUtil.get(policyId, subcriberId, randomShareKey)
+					: null;
+			if (hotObject != null) {
+				/* Unlimited usage shares spend nothing, so a cached share needs neither metadata nor object */
+				inputStream = hotObject.openStream();
+				dataShareGetResponse.setSignature(hotObject.getSignature());
+				dataShareGetResponse.setLength(hotObject.getLength());
+			} else if (ranged) {
+				ObjectWithMetadata object = ((MetadataAwareObjectStore) objectStoreAdapter).getObjectRangeWithMetadata(
+						subcriberId, policyId, null, null, randomShareKey, range.getStart(), range.getEnd());
+				if (object == null) {
+					throw new DataShareNotFoundException();
+				}
+				inputStream = object.getContent();
+				metaDataMap = object.getMetadata();
+				long length = object.getLength();
+				dataShareGetResponse.setPartial(true);
+				dataShareGetResponse.setLength(length);
+				dataShareGetResponse.setRangeStart(range.getStart());
+				dataShareGetResponse.setRangeEnd(
+						range.getEnd() < 0 || range.getEnd() >= length ? length - 1 : range.getEnd());
+			} else if (singleRequestReadEnabled && objectStoreAdapter instanceof MetadataAwareObjectStore) {
+				/* Metadata comes with the object, the body is only streamed once the share is validated */
+				ObjectWithMetadata object = ((MetadataAwareObjectStore) objectStoreAdapter)
+						.getObjectWithMetadata(subcriberId, policyId, null, null, randomShareKey);
+				if (object == null) {
+					throw new DataShareNotFoundException();
+				}
+				inputStream = object.getContent();
+				metaDataMap = object.getMetadata();
+				dataShareGetResponse.setLength(object.getLength());
+			}
+			boolean isDataShareAllow = hotObject != null || getAndUpdateMetaData(randomShareKey, policyId,
+					subcriberId, metaDataMap, !continuation, dataShareGetResponse);
 			if (isDataShareAllow) {
-				InputStream inputStream = objectStoreAdapter.getObject(subcriberId, policyId, null, null,
-						randomShareKey);
+				if (inputStream == null) {
+					inputStream = objectStoreAdapter.getObject(subcriberId, policyId, null, null, randomShareKey);
+				}
+				if (hotObject == null && hotObjectCacheable && inputStream != null
+						&& dataShareGetResponse.isUnlimitedUsage()) {
+					inputStream = hotObjectCacheUtil.admit(policyId, subcriberId, randomShareKey, inputStream,
+							dataShareGetResponse.getLength(), dataShareGetResponse.getSignature(),
+							dataShareGetResponse.getExpiryDtimes());
+				}
 				if (inputStream != null) {
-					dataBytes = IOUtils.toByteArray(inputStream);
-					dataShareGetResponse.setFileBytes(dataBytes);
+					if (streamingDownloadEnabled) {
+						dataShareGetResponse.setFileStream(inputStream);
+					} else {
+						dataBytes = IOUtils.toByteArray(inputStream);
+						IOUtils.closeQuietly(inputStream);
+						dataShareGetResponse.setFileBytes(dataBytes);
+					}
+					if (rangeSupported) {
+						dataShareGetResponse.setEntityTag(entityTag);
+					}
+					/* A download that spends a credit can be resumed from the bytes delivered until it drops */
+					if (!continuation && rangeSupported && hotObject == null
+							&& !dataShareGetResponse.isUnlimitedUsage() && dataShareGetResponse.getLength() >= 0) {
+						downloadLease = downloadSessionUtil.open(randomShareKey,
+								ranged ? dataShareGetResponse.getRangeStart() : 0, dataShareGetResponse.getLength());
+					}
+					if (downloadLease != null) {
+						dataShareGetResponse.setDownloadSession(downloadLease.getSessionId());
+						dataShareGetResponse.setDownloadLease(downloadLease);
+					}
 					LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 							policyId, "Successfully get the object from object store");
 				} else {
@@ -295,13 +693,20 @@ public class DataShareServiceImpl implements DataShareService {
 					"DataShareServiceImpl::getDataFile()::exit");
 		}
 		catch (ObjectStoreAdapterException e){
+			IOUtils.closeQuietly(inputStream);
 			throw new DataShareNotFoundException();
 		}
 		catch (IOException e) {
+			IOUtils.closeQuietly(inputStream);
 			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
 					IO_EXCEPTION + ExceptionUtils.getStackTrace(e));
 			throw new FileException(IO_EXCEPTION, e);
 		}
+		catch (RuntimeException e) {
+			/* A rejected share must not keep the connection of an already opened object */
+			IOUtils.closeQuietly(inputStream);
+			throw e;
+		}
 
 		return dataShareGetResponse;
 	}
@@ -312,21 +717,80 @@ public class DataShareServiceImpl implements DataShareService {
 	 * @param randomShareKey the random share key
 	 * @param policyId       the policy id
 	 * @param subcriberId    the subcriber id
+	 * @param metaDataMap    the metadata already read with the object, null to read it
+	 * @param consume        whether a download is spent, false for a resumed download
 	 * @return the and update meta data
 	 */
 	private boolean getAndUpdateMetaData(String randomShareKey, String policyId, String subcriberId,
-			DataShareGetResponse dataShareGetResponse) {
+			Map<String, Object> metaDataMap, boolean consume, DataShareGetResponse dataShareGetResponse) {
 		boolean isDataShareAllow = false;
 		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
 				"DataShareServiceImpl::getAndUpdateMetaData()::entry");
-		Map<String, Object> metaDataMap = objectStoreAdapter.getMetaData(subcriberId, policyId, null, null,
-				randomShareKey);
+		ShareRecordEntity shareRecord = shareRecordUtil.isEnabled() ? shareRecordUtil.find(randomShareKey) : null;
+		Consumption consumption = null;
+		if (shareRecord != null && usageCounterUtil.isEnabled()) {
+			/* The record holds everything needed to validate the share, so the object metadata is not read */
+			if (!shareRecord.getPolicyId().equals(policyId) || !shareRecord.getSubscriberId().equals(subcriberId)) {
+				throw new DataShareNotFoundException();
+			}
+			if (isExpired(shareRecord.getExpiryDtimes())) {
+				LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+						"Data share validity is over");
+				return false;
+			}
+			dataShareGetResponse.setExpiryDtimes(shareRecord.getExpiryDtimes());
+			dataShareGetResponse.setUnlimitedUsage(shareRecord.getTransactionsAllowed() == UNLIMITED_USAGE_COUNT);
+			if (!consume) {
+				dataShareGetResponse.setSignature(shareRecord.getSignature());
+				return true;
+			}
+			consumption = usageCounterUtil.consume(randomShareKey);
+			if (consumption != Consumption.UNTRACKED) {
+				dataShareGetResponse.setSignature(shareRecord.getSignature());
+				LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+						"DataShareServiceImpl::getAndUpdateMetaData()::exit");
+				return consumption == Consumption.ALLOWED;
+			}
+		}
+		if (metaDataMap == null) {
+			metaDataMap = objectStoreAdapter.getMetaData(subcriberId, policyId, null, null, randomShareKey);
+		}
 		if (metaDataMap == null || metaDataMap.isEmpty()) {
 			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
 					"metadata is empty");
 			throw new DataShareNotFoundException();
 		}else {
+			Object expiry = metaDataMap.get(EXPIRYDTIMES);
+			LocalDateTime expiryDtimes = expiry != null ? LocalDateTime.parse(expiry.toString()) : null;
+			if (isExpired(expiryDtimes)) {
+				LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+						"Data share validity is over");
+				return false;
+			}
 			dataShareGetResponse.setSignature((String) metaDataMap.get(SIGNATURE));
+			dataShareGetResponse.setExpiryDtimes(expiryDtimes);
+			dataShareGetResponse.setUnlimitedUsage(
+					String.valueOf(UNLIMITED_USAGE_COUNT).equals(String.valueOf(metaDataMap.get(TRANSACTIONSALLOWED))));
+			if (!consume) {
+				LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+						"Resumed download, usage is not updated");
+				return true;
+			}
+			if (consumption == null) {
+				consumption = usageCounterUtil.isEnabled() ? usageCounterUtil.consume(randomShareKey)
+						: Consumption.UNTRACKED;
+			}
+			if (consumption != Consumption.UNTRACKED) {
+				LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+						"DataShareServiceImpl::getAndUpdateMetaData()::exit");
+				return consumption == Consumption.ALLOWED;
+			}
+			if (Boolean.parseBoolean(String.valueOf(metaDataMap.get(USAGECOUNTED)))) {
+				/* The metadata count was never spent, so a counted share without counter is refused */
+				LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+						"Usage counter of the share is missing, download refused");
+				return false;
+			}
 			int transactionAllowed = Integer.parseInt((String) metaDataMap.get(TRANSACTIONSALLOWED));
 			if(transactionAllowed >= 1) {
 				isDataShareAllow=true;
@@ -349,6 +813,10 @@ public class DataShareServiceImpl implements DataShareService {
 	}
 
 
+	private static boolean isExpired(LocalDateTime expiryDtimes) {
+		return expiryDtimes != null && LocalDateTime.now(ZoneOffset.UTC).isAfter(expiryDtimes);
+	}
+
 	/**
 	 * Prepare meta data.
 	 *
@@ -357,10 +825,12 @@ public class DataShareServiceImpl implements DataShareService {
 	 * @param dataSharePolicies    the data share policies
 	 * @param jwtSignature 		   the jwt signature for shared object
 	 * @param policyPublishDate 		   the policy publish date
+	 * @param expiryDtimes         the UTC expiry time of the share
 	 * @return the map
 	 */
 	private Map<String, Object> prepareMetaData(String subscriberId, String policyId,
-												DataShareDto dataSharePolicies, String jwtSignature, LocalDateTime policyPublishDate) {
+												DataShareDto dataSharePolicies, String jwtSignature, LocalDateTime policyPublishDate,
+												LocalDateTime expiryDtimes) {
 
 		Map<String, Object> aclMap = new HashMap<>();
 
@@ -370,6 +840,9 @@ public class DataShareServiceImpl implements DataShareService {
 		aclMap.put("validforinminutes", dataSharePolicies.getValidForInMinutes());
 		aclMap.put("transactionsallowed", dataSharePolicies.getTransactionsAllowed());
 		aclMap.put("signature", jwtSignature);
+		aclMap.put(EXPIRYDTIMES, expiryDtimes.toString());
+		if (usageCounterUtil.isEnabled())
+			aclMap.put(USAGECOUNTED, Boolean.TRUE.toString());
 
 
 		return aclMap;
@@ -378,32 +851,143 @@ public class DataShareServiceImpl implements DataShareService {
 
 
 	/**
-	 * Storefile.
+	 * Prepare share record.
+	 *
+	 * @param randomShareKey    the random share key
+	 * @param subscriberId      the subscriber id
+	 * @param policyId          the policy id
+	 * @param dataSharePolicies the data share policies
+	 * @param jwtSignature      the jwt signature for shared object
+	 * @param policyPublishDate the policy publish date
+	 * @param createDtimes      the UTC creation time of the share
+	 * @param expiryDtimes      the UTC expiry time of the share
+	 * @return the share record
+	 */
+	private ShareRecordEntity prepareShareRecord(String randomShareKey, String subscriberId, String policyId,
+			DataShareDto dataSharePolicies, String jwtSignature, LocalDateTime policyPublishDate,
+			LocalDateTime createDtimes, LocalDateTime expiryDtimes) {
+		ShareRecordEntity shareRecord = new ShareRecordEntity();
+		shareRecord.setShareKey(randomShareKey);
+		shareRecord.setPolicyId(policyId);
+		shareRecord.setSubscriberId(subscriberId);
+		shareRecord.setPolicyPublishDtimes(policyPublishDate);
+		shareRecord.setValidForInMinutes(Integer.parseInt(dataSharePolicies.getValidForInMinutes()));
+		shareRecord.setTransactionsAllowed(Integer.parseInt(dataSharePolicies.getTransactionsAllowed()));
+		shareRecord.setSignature(jwtSignature);
+		shareRecord.setExpiryDtimes(expiryDtimes);
+		shareRecord.setCrDtimes(createDtimes);
+		return shareRecord;
+	}
+
+	/**
+	 * Generate random share key.
 	 *
-	 * @param metaDataMap  the meta data map
-	 * @param filedata     the filedata
 	 * @param policyId     the policy id
 	 * @param subscriberId the subscriber id
 	 * @return the string
 	 */
-	private String storefile(Map<String, Object> metaDataMap, InputStream filedata, String policyId,
-			String subscriberId) {
+	private String generateRandomShareKey(String policyId, String subscriberId) {
 		int length = DEFAULT_KEY_LENGTH;
 		if (env.getProperty(KEY_LENGTH) != null) {
 			length = Integer.parseInt(env.getProperty(KEY_LENGTH));
 		}
 
-		String randomShareKey = subscriberId + policyId
+		String shareKey = subscriberId + policyId
 				+ DateTimeFormatter.ofPattern("yyyyMMddHHmmss").format(LocalDateTime.now())
 				+ generateShortRandomShareKey(length);
-		boolean isDataStored = objectStoreAdapter.putObject(subscriberId, policyId, null, null, randomShareKey,
-				filedata);
-		objectStoreAdapter.addObjectMetaData(subscriberId, policyId, null, null, randomShareKey, metaDataMap);
+		return layoutShareKey(shareKey);
+	}
+
+	/**
+	 * Derives the entity tag of a share. The object behind a share key is never
+	 * rewritten, so the tag only depends on the key.
+	 *
+	 * @param shareKey the random share key
+	 * @return the entity tag, without quotes
+	 */
+	private static String entityTag(String shareKey) {
+		try {
+			byte[] hash = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(shareKey.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(hash, 0, 16);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Prefixes the share key according to the key layout. Keys of one partner
+	 * otherwise share a long time ordered prefix, so that all writes and reads
+	 * of a busy partner hit the same object store partition. The share key
+	 * stays the object name, so keys created under another layout keep
+	 * resolving.
+	 *
+	 * @param shareKey the share key
+	 * @return the share key in the configured layout
+	 */
+	private String layoutShareKey(String shareKey) {
+		if (!KEY_LAYOUT_HASH_PREFIXED.equals(keyLayout) && !KEY_LAYOUT_BUCKETED.equals(keyLayout))
+			return shareKey;
+		byte[] hash;
+		try {
+			hash = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(shareKey.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		if (KEY_LAYOUT_HASH_PREFIXED.equals(keyLayout)) {
+			int prefixLength = Math.max(1, Math.min(keyHashPrefixLength, hash.length * 2));
+			return HexFormat.of().formatHex(hash).substring(0, prefixLength) + shareKey;
+		}
+		int buckets = Math.max(1, keyBuckets);
+		int bucket = Math.floorMod(((hash[0] & 0xFF) << 24 | (hash[1] & 0xFF) << 16 | (hash[2] & 0xFF) << 8
+				| (hash[3] & 0xFF)), buckets);
+		/* Fixed width so that the buckets list in order */
+		int width = Integer.toHexString(buckets - 1).length();
+		String prefix = Integer.toHexString(bucket);
+		return "0".repeat(width - prefix.length()) + prefix + shareKey;
+	}
+
+	/**
+	 * Stores the object. The stream is handed over to the object store as is and
+	 * is fully consumed by the time this method returns.
+	 *
+	 * @param filedata       the filedata
+	 * @param length         the length of the filedata
+	 * @param randomShareKey the random share key
+	 * @param policyId       the policy id
+	 * @param subscriberId   the subscriber id
+	 */
+	private void storeObject(InputStream filedata, long length, String randomShareKey, String policyId,
+			String subscriberId) {
+		/* Without the length the S3 client buffers the whole object in memory to find it */
+		boolean isDataStored = objectStoreAdapter instanceof MetadataAwareObjectStore
+				? ((MetadataAwareObjectStore) objectStoreAdapter).putObject(subscriberId, policyId, null, null,
+						randomShareKey, filedata, length)
+				: objectStoreAdapter.putObject(subscriberId, policyId, null, null, randomShareKey, filedata);
 		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), randomShareKey,
 				"Is data stored to object store" + isDataStored);
+	}
 
-		return randomShareKey;
-
+	/**
+	 * Removes the object of a share whose creation failed after the upload, so
+	 * that no blob is left behind without its metadata.
+	 *
+	 * @param randomShareKey the random share key
+	 * @param policyId       the policy id
+	 * @param subscriberId   the subscriber id
+	 */
+	private void deleteIncompleteShare(String randomShareKey, String policyId, String subscriberId) {
+		if (randomShareKey == null)
+			return;
+		try {
+			objectStoreAdapter.deleteObject(subscriberId, policyId, null, null, randomShareKey);
+			if (usageCounterUtil.isEnabled())
+				usageCounterUtil.remove(randomShareKey);
+			if (shareRecordUtil.isEnabled())
+				shareRecordUtil.remove(randomShareKey);
+		} catch (Exception e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), randomShareKey,
+					"Failed to delete incomplete share " + ExceptionUtils.getStackTrace(e));
+		}
 	}
 
 	/*
@@ -414,14 +998,30 @@ public class DataShareServiceImpl implements DataShareService {
 	 */
 	@Override
 	public DataShareGetResponse getDataFile(String shortUrlKey) {
+		return getDataFile(shortUrlKey, (DataShareRange) null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.datashare.service.DataShareService#getDataFile(java.lang.String,
+	 * io.mosip.datashare.dto.DataShareRange)
+	 */
+	@Override
+	public DataShareGetResponse getDataFile(String shortUrlKey, DataShareRange range) {
 		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), shortUrlKey,
 				"DataShareServiceImpl::getDataFile()");
+		if (shortUrlTokenUtil.isEnabled()) {
+			ShortUrlClaims claims = verifyShortUrlToken(shortUrlKey);
+			if (claims != null)
+				return getDataFile(claims.getPolicyId(), claims.getSubscriberId(), claims.getShareKey(), range);
+		}
 		String data = cacheUtil.getShortUrlData(shortUrlKey, null, null, null);
 		
 		if (data != null && !data.isEmpty()) {
 			String[] datas = data.split(",");
 			if (datas != null && datas.length == 3) {
-				return getDataFile(datas[0], datas[1], datas[2]);
+				return getDataFile(datas[0], datas[1], datas[2], range);
 			} else {
 				throw new DataShareNotFoundException();
 			}
@@ -433,6 +1033,22 @@ public class DataShareServiceImpl implements DataShareService {
 
 	}
 
+	/**
+	 * Verifies a short url token.
+	 *
+	 * @return the share, null if the key is not a valid token, as for short urls
+	 *         stored before tokens were enabled, which are resolved from the store
+	 */
+	private ShortUrlClaims verifyShortUrlToken(String shortUrlKey) {
+		try {
+			return shortUrlTokenUtil.verifyToken(shortUrlKey);
+		} catch (DataShareNotFoundException e) {
+			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), shortUrlKey,
+					"Not a short url token, looking up the stored short url");
+			return null;
+		}
+	}
+
 	private String generateShortRandomShareKey(int byteLength) {
 		SecureRandom secureRandom = new SecureRandom();
 		byte[] token = new byte[byteLength];
@@ -0,0 +1,180 @@
+package io.mosip.datashare.util;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.mosip.datashare.constant.ApiName;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.logger.spi.Logger;
+
+/**
+ * Resolves the urls of the downstream apis, configured under the
+ * {@link ApiName} names. Each url is parsed once into an immutable
+ * {@link ApiEndpoint}, so that calls without path segments or query
+ * parameters reuse the built uri and the others only append to the parsed
+ * url. Endpoints are compiled again after a config refresh changes their url.
+ */
+@Component
+public class ApiEndpointUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(ApiEndpointUtil.class);
+
+	/** Marks an api without configured url, as the map cannot hold null. */
+	private static final ApiEndpoint NOT_CONFIGURED = new ApiEndpoint(null);
+
+	@Autowired
+	private Environment environment;
+
+	private final ConcurrentMap<ApiName, ApiEndpoint> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the endpoint of the api.
+	 *
+	 * @param apiName the api name
+	 * @return the endpoint, null if no url is configured for the api
+	 */
+	public ApiEndpoint getEndpoint(ApiName apiName) {
+		ApiEndpoint endpoint = endpoints.computeIfAbsent(apiName, name -> {
+			String url = environment.getProperty(name.name());
+			return url != null ? new ApiEndpoint(url) : NOT_CONFIGURED;
+		});
+		return endpoint != NOT_CONFIGURED ? endpoint : null;
+	}
+
+	/**
+	 * Drops the endpoints whose url changed with a config refresh.
+	 *
+	 * @param event the environment change event
+	 */
+	@EventListener
+	public void onEnvironmentChange(EnvironmentChangeEvent event) {
+		for (ApiName apiName : ApiName.values()) {
+			if (event.getKeys().contains(apiName.name()) && endpoints.remove(apiName) != null) {
+				LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+						apiName.name(), "Api endpoint refreshed");
+			}
+		}
+	}
+
+	/**
+	 * The url of an api, parsed once.
+	 */
+	public static final class ApiEndpoint {
+
+		private final String url;
+
+		/** The url as written, to append path segments and query parameters to. */
+		private final UriComponents components;
+
+		/** The url with its uri variables to be encoded on expansion. */
+		private final UriComponents template;
+
+		private final String uriString;
+
+		private final URI uri;
+
+		/** Names of the query parameters by the comma separated list they were given as. */
+		private final ConcurrentMap<String, String[]> queryParamNames = new ConcurrentHashMap<>();
+
+		private ApiEndpoint(String url) {
+			this.url = url;
+			if (url == null) {
+				components = null;
+				template = null;
+				uriString = null;
+				uri = null;
+				return;
+			}
+			components = UriComponentsBuilder.fromUriString(url).build();
+			template = UriComponentsBuilder.fromUriString(url).encode().build();
+			uriString = UriComponentsBuilder.fromUriString(url).toUriString();
+			URI encodedUri;
+			try {
+				encodedUri = components.encode().toUri();
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				/* Left to each call, which fails as before */
+				encodedUri = null;
+			}
+			uri = encodedUri;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		/**
+		 * Builds the url string with the path segments and query parameters
+		 * appended, the url string being reused when there are none.
+		 *
+		 * @param pathsegments    the path segments, empty ones are skipped
+		 * @param queryParamName  the comma separated query parameter names
+		 * @param queryParamValue the comma separated query parameter values
+		 * @return the url string
+		 */
+		public String toUriString(List<String> pathsegments, String queryParamName, String queryParamValue) {
+			if (isPlain(pathsegments, queryParamName))
+				return uriString;
+			return builder(pathsegments, queryParamName, queryParamValue).toUriString();
+		}
+
+		/**
+		 * Builds the encoded uri with the path segments and query parameters
+		 * appended, the uri being reused when there are none.
+		 *
+		 * @param pathsegments    the path segments, empty ones are skipped
+		 * @param queryParamName  the comma separated query parameter names
+		 * @param queryParamValue the comma separated query parameter values
+		 * @return the uri
+		 */
+		public URI toUri(List<String> pathsegments, String queryParamName, String queryParamValue) {
+			if (uri != null && isPlain(pathsegments, queryParamName))
+				return uri;
+			return builder(pathsegments, queryParamName, queryParamValue).build(false).encode().toUri();
+		}
+
+		/**
+		 * Expands the uri variables of the url, encoding their values.
+		 *
+		 * @param uriVariables the uri variables
+		 * @return the uri
+		 */
+		public URI expand(Map<String, ?> uriVariables) {
+			return template.expand(uriVariables).toUri();
+		}
+
+		private static boolean isPlain(List<String> pathsegments, String queryParamName) {
+			return (pathsegments == null || pathsegments.isEmpty())
+					&& (queryParamName == null || queryParamName.isEmpty());
+		}
+
+		private UriComponentsBuilder builder(List<String> pathsegments, String queryParamName,
+				String queryParamValue) {
+			UriComponentsBuilder builder = UriComponentsBuilder.newInstance().uriComponents(components);
+			if (pathsegments != null) {
+				for (String segment : pathsegments) {
+					if (segment != null && !segment.isEmpty())
+						builder.pathSegment(segment);
+				}
+			}
+			if (queryParamName != null && !queryParamName.isEmpty()) {
+				String[] names = queryParamNames.computeIfAbsent(queryParamName, name -> name.split(","));
+				String[] values = queryParamValue.split(",");
+				for (int i = 0; i < names.length; i++)
+					builder.queryParam(names[i], values[i]);
+			}
+			return builder;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package io.mosip.datashare.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import io.mosip.datashare.exception.ApiNotAccessibleException;
+
+/**
+ * Sends the requests of {@link RestUtil}'s asynchronous api with a pooled
+ * {@link CloseableHttpAsyncClient}, which waits for responses on its I/O
+ * reactor without holding a thread per request.
+ * <p>
+ * Requests are prepared like the rest template of the api would: the body is
+ * written and the response read with its message converters, and its
+ * interceptors run before the request is sent so that the auth token is added.
+ * Failures complete the future with the exceptions the rest template throws,
+ * wrapped in {@link ApiNotAccessibleException}.
+ */
+class AsyncRestClient {
+
+	/** Headers the client sets itself from the request body. */
+	private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+	static {
+		RESTRICTED_HEADERS.addAll(Set.of(HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH,
+				HttpHeaders.TRANSFER_ENCODING, HttpHeaders.HOST));
+	}
+
+	private final RestTemplate restTemplate;
+
+	private final CloseableHttpAsyncClient httpClient;
+
+	AsyncRestClient(RestTemplate restTemplate, CloseableHttpAsyncClient httpClient) {
+		this.restTemplate = restTemplate;
+		this.httpClient = httpClient;
+	}
+
+	/**
+	 * Sends the request. Cancelling the returned future aborts the exchange.
+	 *
+	 * @param uri          the uri
+	 * @param method       the method
+	 * @param entity       the request headers and body
+	 * @param responseType the response type
+	 * @return the future response body
+	 */
+	<T> CompletableFuture<T> exchange(URI uri, HttpMethod method, HttpEntity<Object> entity, Class<T> responseType) {
+		CapturedRequest captured;
+		try {
+			captured = prepare(uri, method, entity);
+		} catch (IOException | RuntimeException e) {
+			return CompletableFuture.failedFuture(new ApiNotAccessibleException(e));
+		}
+		SimpleRequestBuilder request = SimpleRequestBuilder.create(method.name()).setUri(uri);
+		captured.headers.forEach((name, values) -> {
+			if (!RESTRICTED_HEADERS.contains(name))
+				values.forEach(value -> request.addHeader(name, value));
+		});
+		if (captured.body.length > 0) {
+			String contentType = captured.headers.getFirst(HttpHeaders.CONTENT_TYPE);
+			request.setBody(captured.body, contentType != null ? ContentType.parse(contentType) : null);
+		}
+		SimpleHttpRequest httpRequest = request.build();
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Future<SimpleHttpResponse> exchange = httpClient.execute(httpRequest,
+				new FutureCallback<SimpleHttpResponse>() {
+					@Override
+					public void completed(SimpleHttpResponse response) {
+						try {
+							result.complete(read(response, responseType));
+						} catch (IOException | RestClientException e) {
+							result.completeExceptionally(new ApiNotAccessibleException(e));
+						}
+					}
+
+					@Override
+					public void failed(Exception e) {
+						result.completeExceptionally(new ApiNotAccessibleException(new ResourceAccessException(
+								"I/O error on " + method + " request for \"" + uri + "\": " + e.getMessage(),
+								e instanceof IOException ? (IOException) e : new IOException(e))));
+					}
+
+					@Override
+					public void cancelled() {
+						result.cancel(false);
+					}
+				});
+		result.whenComplete((body, failure) -> {
+			if (result.isCancelled())
+				exchange.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * Writes the body and runs the interceptors of the rest template, which
+	 * hand the request to a request that only records it.
+	 */
+	private CapturedRequest prepare(URI uri, HttpMethod method, HttpEntity<Object> entity) throws IOException {
+		CapturedRequest captured = new CapturedRequest(uri, method);
+		ClientHttpRequest request = new InterceptingClientHttpRequestFactory((u, m) -> captured,
+				restTemplate.getInterceptors()).createRequest(uri, method);
+		request.getHeaders().putAll(entity.getHeaders());
+		if (entity.getBody() != null)
+			write(entity.getBody(), request);
+		request.execute().close();
+		return captured;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void write(Object body, HttpOutputMessage request) throws IOException {
+		MediaType contentType = request.getHeaders().getContentType();
+		for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+			if (converter.canWrite(body.getClass(), contentType)) {
+				((HttpMessageConverter<Object>) converter).write(body, contentType, request);
+				return;
+			}
+		}
+		throw new RestClientException("No HttpMessageConverter for " + body.getClass().getName()
+				+ " and content type \"" + contentType + "\"");
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T read(SimpleHttpResponse response, Class<T> responseType) throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		for (Header header : response.getHeaders())
+			headers.add(header.getName(), header.getValue());
+		HttpStatusCode statusCode = HttpStatusCode.valueOf(response.getCode());
+		byte[] body = response.getBodyBytes() != null ? response.getBodyBytes() : new byte[0];
+		if (statusCode.isError()) {
+			HttpStatus status = HttpStatus.resolve(statusCode.value());
+			String statusText = status != null ? status.getReasonPhrase() : "";
+			Charset charset = headers.getContentType() != null && headers.getContentType().getCharset() != null
+					? headers.getContentType().getCharset()
+					: StandardCharsets.UTF_8;
+			if (statusCode.is4xxClientError())
+				throw HttpClientErrorException.create(statusCode, statusText, headers, body, charset);
+			if (statusCode.is5xxServerError())
+				throw HttpServerErrorException.create(statusCode, statusText, headers, body, charset);
+			throw new UnknownHttpStatusCodeException(statusCode.value(), statusText, headers, body, charset);
+		}
+		if (responseType == null || responseType == Void.class || body.length == 0)
+			return null;
+		MediaType contentType = headers.getContentType() != null ? headers.getContentType()
+				: MediaType.APPLICATION_OCTET_STREAM;
+		HttpInputMessage message = new HttpInputMessage() {
+			@Override
+			public InputStream getBody() {
+				return new ByteArrayInputStream(body);
+			}
+
+			@Override
+			public HttpHeaders getHeaders() {
+				return headers;
+			}
+		};
+		for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+			if (converter.canRead(responseType, contentType))
+				return ((HttpMessageConverter<T>) converter).read(responseType, message);
+		}
+		throw new RestClientException("No HttpMessageConverter for " + responseType.getName()
+				+ " and content type \"" + contentType + "\"");
+	}
+
+	/**
+	 * Last request of the interceptor chain. Records the headers and body
+	 * instead of sending them and answers with an empty response.
+	 */
+	private static class CapturedRequest extends AbstractClientHttpRequest {
+
+		private final URI uri;
+
+		private final HttpMethod method;
+
+		private final ByteArrayOutputStream bodyStream = new ByteArrayOutputStream();
+
+		private HttpHeaders headers;
+
+		private byte[] body;
+
+		CapturedRequest(URI uri, HttpMethod method) {
+			this.uri = uri;
+			this.method = method;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return method;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		protected OutputStream getBodyInternal(HttpHeaders headers) {
+			return bodyStream;
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers) {
+			this.headers = headers;
+			this.body = bodyStream.toByteArray();
+			return new EmptyResponse();
+		}
+	}
+
+	private static class EmptyResponse implements ClientHttpResponse {
+
+		@Override
+		public HttpStatusCode getStatusCode() {
+			return HttpStatus.OK;
+		}
+
+		@Override
+		public String getStatusText() {
+			return HttpStatus.OK.getReasonPhrase();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return new HttpHeaders();
+		}
+
+		@Override
+		public InputStream getBody() {
+			return InputStream.nullInputStream();
+		}
+
+		@Override
+		public void close() {
+			// nothing was received
+		}
+	}
+}
@@ -1,20 +1,174 @@
 package io.mosip.datashare.util;
 
-import org.springframework.cache.annotation.Cacheable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.mosip.datashare.config.DataShareCacheConfig;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.entity.ShortUrlEntity;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.datashare.repository.ShortUrlRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Short url store with a bounded local tier in front of the shared durable
+ * {@link ShortUrlRepository}. Entries expire along with the share they point
+ * to, so a short url resolves on every replica for exactly the share validity.
+ * <p>
+ * The durable store needs a datasource shared by all replicas, configured
+ * through the {@code spring.datasource} properties. Without it short urls are
+ * only kept in the local tier of the replica that created them.
+ */
 @Component
 public class CacheUtil {
 
-	@Cacheable(value = "shortdata", key = "#shortRandomShareKey")
+	private static final Logger LOGGER = DataShareLogger.getLogger(CacheUtil.class);
+
+	/** Name the local tier is reported under in cache metrics. */
+	public static final String SHORT_URL_CACHE = "shortdata";
+
+	/** The Constant SEPARATOR. */
+	private static final String SEPARATOR = ",";
+
+	/** The short url repository. */
+	@Autowired
+	private ShortUrlRepository shortUrlRepository;
+
+	/** The meter registry. */
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	/** Maximum number of short urls held in the local tier. */
+	@Value("${mosip.data.share.cache.specs.shortdata.maximum-size:${mosip.data.share.shorturl.local-cache.max-size:10000}}")
+	private long localCacheMaxSize;
+
+	/** Validity of short urls stored without the share validity. */
+	@Value("${mosip.data.share.shorturl.default-validity-minutes:60}")
+	private int defaultValidityInMinutes;
+
+	/** Defines whether short urls are persisted to the shared durable store. */
+	@Value("${mosip.data.share.shorturl.durable-store.enabled:false}")
+	private boolean durableStoreEnabled;
+
+	/** The local tier. */
+	private Cache<String, ShortUrlEntity> localCache;
+
+	@PostConstruct
+	private void init() {
+		localCache = Caffeine.newBuilder().maximumSize(localCacheMaxSize).recordStats()
+				.expireAfter(new Expiry<String, ShortUrlEntity>() {
+					@Override
+					public long expireAfterCreate(String key, ShortUrlEntity value, long currentTime) {
+						return remainingNanos(value);
+					}
+
+					@Override
+					public long expireAfterUpdate(String key, ShortUrlEntity value, long currentTime,
+							long currentDuration) {
+						return remainingNanos(value);
+					}
+
+					@Override
+					public long expireAfterRead(String key, ShortUrlEntity value, long currentTime,
+							long currentDuration) {
+						return currentDuration;
+					}
+				}).build();
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, localCache, SHORT_URL_CACHE,
+					Tags.of("cacheManager", DataShareCacheConfig.CACHE_MANAGER_NAME));
+		}
+	}
+
+	/**
+	 * Stores the short url when the share details are given, otherwise resolves
+	 * it.
+	 *
+	 * @param shortRandomShareKey the short random share key
+	 * @param policyId            the policy id
+	 * @param subscriberId        the subscriber id
+	 * @param randomShareKey      the random share key
+	 * @return policyId,subscriberId,randomShareKey or null if not found
+	 */
 	public String getShortUrlData(String shortRandomShareKey, String policyId, String subscriberId,
 			String randomShareKey) {
 		if (policyId == null || subscriberId == null || randomShareKey == null) {
-			return null;
+			return findShortUrlData(shortRandomShareKey);
 		} else {
-			return policyId + "," + subscriberId + "," + randomShareKey;
+			saveShortUrlData(shortRandomShareKey, policyId, subscriberId, randomShareKey, defaultValidityInMinutes);
+			return policyId + SEPARATOR + subscriberId + SEPARATOR + randomShareKey;
 		}
 
 
 	}
+
+	/**
+	 * Stores the short url for the validity of the share.
+	 *
+	 * @param shortRandomShareKey the short random share key
+	 * @param policyId            the policy id
+	 * @param subscriberId        the subscriber id
+	 * @param randomShareKey      the random share key
+	 * @param validForInMinutes   the share validity in minutes
+	 */
+	public void saveShortUrlData(String shortRandomShareKey, String policyId, String subscriberId,
+			String randomShareKey, int validForInMinutes) {
+		LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+		ShortUrlEntity shortUrl = new ShortUrlEntity();
+		shortUrl.setShortKey(shortRandomShareKey);
+		shortUrl.setPolicyId(policyId);
+		shortUrl.setSubscriberId(subscriberId);
+		shortUrl.setShareKey(randomShareKey);
+		shortUrl.setCrDtimes(now);
+		shortUrl.setExpiryDtimes(now.plusMinutes(validForInMinutes));
+		if (durableStoreEnabled) {
+			shortUrlRepository.save(shortUrl);
+		}
+		localCache.put(shortRandomShareKey, shortUrl);
+	}
+
+	/**
+	 * Removes expired short urls from the durable store. Local entries expire on
+	 * their own.
+	 */
+	@Scheduled(fixedDelayString = "${mosip.data.share.shorturl.purge-interval-millisec:3600000}")
+	public void purgeExpiredShortUrls() {
+		if (!durableStoreEnabled)
+			return;
+		int purged = shortUrlRepository.deleteExpiredBefore(LocalDateTime.now(ZoneOffset.UTC));
+		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+				"purgeExpiredShortUrls", "Purged expired short urls : " + purged);
+	}
+
+	private String findShortUrlData(String shortRandomShareKey) {
+		ShortUrlEntity shortUrl = localCache.getIfPresent(shortRandomShareKey);
+		if (shortUrl == null && durableStoreEnabled) {
+			shortUrl = shortUrlRepository.findById(shortRandomShareKey).orElse(null);
+			if (shortUrl != null && remainingNanos(shortUrl) > 0) {
+				localCache.put(shortRandomShareKey, shortUrl);
+			}
+		}
+		if (shortUrl == null || remainingNanos(shortUrl) <= 0) {
+			return null;
+		}
+		return shortUrl.getPolicyId() + SEPARATOR + shortUrl.getSubscriberId() + SEPARATOR + shortUrl.getShareKey();
+	}
+
+	private static long remainingNanos(ShortUrlEntity shortUrl) {
+		return Math.max(0, Duration.between(LocalDateTime.now(ZoneOffset.UTC), shortUrl.getExpiryDtimes()).toNanos());
+	}
 }
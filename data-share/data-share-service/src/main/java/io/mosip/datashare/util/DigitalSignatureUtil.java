@@ -2,9 +2,13 @@ package io.mosip.datashare.util;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -66,6 +70,9 @@ public class DigitalSignatureUtil {
 	@Autowired
 	private RestUtil restUtil;
 
+	@Autowired
+	private LocalSignatureUtil localSignatureUtil;
+
 	@Autowired
 	private ObjectMapper mapper;
 
@@ -91,65 +98,157 @@ public class DigitalSignatureUtil {
 	 * @throws ApiNotAccessibleException if the API returns an HTTP error body
 	 */
 	public String jwtSign(byte[] file, String filname, String partnerId, String creationTime, String expiryTime) {
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"DigitalSignatureUtil::jwtSign()::entry");
 		try {
-			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
-					"DigitalSignatureUtil::jwtSign()::entry");
-			String hashData = HMACUtils2.digestAsPlainText(file);
-			String digestData = CryptoUtil.encodeBase64(hashData.getBytes());
-
-			JSONObject signatureJson = createSignatureJson(filname, partnerId, digestData, creationTime, expiryTime);
-			String dataTobeSigned = mapper.writeValueAsString(signatureJson);
-			String encodedData = CryptoUtil.encodeBase64(dataTobeSigned.getBytes());
-			JWTSignatureRequestDto dto = new JWTSignatureRequestDto();
-			dto.setDataToSign(encodedData);
-			dto.setIncludeCertHash(includeCertificateHash);
-			dto.setIncludeCertificate(includeCertificate);
-			dto.setIncludePayload(includePayload);
-			if (StringUtils.isNotEmpty(certificateUrl)) {
-				dto.setCertificateUrl(certificateUrl);
-			}
+			return sign(HMACUtils2.digestAsPlainText(file), filname, partnerId, creationTime, expiryTime);
+		} catch (NoSuchAlgorithmException e) {
+			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+					"DigitalSignatureUtil::jwtSign():: error with error message" + ExceptionUtils.getStackTrace(e));
+			throw new SignatureException(e);
+		}
+	}
 
-			RequestWrapper<JWTSignatureRequestDto> request = new RequestWrapper<>();
-			request.setRequest(dto);
-			request.setMetadata(null);
+	/**
+	 * Requests a JWT signature from Keymanager for a file whose SHA-256 digest has
+	 * already been computed, e.g. incrementally while the file was streamed to the
+	 * object store.
+	 *
+	 * @param digest       SHA-256 digest of the raw file bytes
+	 * @param filname      filename to embed in the payload
+	 * @param partnerId    key identifier (kid) / partner ID
+	 * @param creationTime ISO/date-time string for {@code created} claim
+	 * @param expiryTime   ISO/date-time string for {@code expires} claim
+	 * @return compact JWS string
+	 */
+	public String jwtSignDigest(byte[] digest, String filname, String partnerId, String creationTime,
+			String expiryTime) {
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"DigitalSignatureUtil::jwtSignDigest()::entry");
+		return sign(HexFormat.of().withUpperCase().formatHex(digest), filname, partnerId, creationTime, expiryTime);
+	}
 
-			// Step 2: Generate UTC timestamp in configured pattern
-			LocalDateTime nowUtc = LocalDateTime.parse(DateUtils.getUTCCurrentDateTimeString(dateTimePattern), formatter);
-			request.setRequesttime(nowUtc);
+	/**
+	 * Requests a JWT signature from Keymanager without blocking the calling
+	 * thread while Keymanager answers. Failures complete the future with the
+	 * exceptions {@link #jwtSign} throws.
+	 *
+	 * @param file         raw file bytes to hash and include in the payload digest
+	 * @param filname      filename to embed in the payload
+	 * @param partnerId    key identifier (kid) / partner ID
+	 * @param creationTime ISO/date-time string for {@code created} claim
+	 * @param expiryTime   ISO/date-time string for {@code expires} claim
+	 * @return the future compact JWS string
+	 */
+	public CompletableFuture<String> jwtSignAsync(byte[] file, String filname, String partnerId, String creationTime,
+			String expiryTime) {
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"DigitalSignatureUtil::jwtSignAsync()::entry");
+		RequestWrapper<JWTSignatureRequestDto> request;
+		try {
+			String dataTobeSigned = dataToBeSigned(HMACUtils2.digestAsPlainText(file), filname, partnerId,
+					creationTime, expiryTime);
+			if (localSignatureUtil.isEnabled()) {
+				return CompletableFuture.completedFuture(localSignatureUtil.jwtSign(dataTobeSigned));
+			}
+			request = signRequest(dataTobeSigned);
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(signFailure(e, partnerId));
+		}
+		CompletableFuture<String> call = restUtil.postApiAsync(ApiName.KEYMANAGER_JWTSIGN, null, "", "",
+				MediaType.APPLICATION_JSON, request, String.class);
+		CompletableFuture<String> signature = call.handle((responseString, failure) -> {
+			if (failure != null) {
+				throw signFailure(failure instanceof CompletionException && failure.getCause() != null
+						? failure.getCause()
+						: failure, partnerId);
+			}
+			try {
+				return signedData(responseString, partnerId);
+			} catch (Exception e) {
+				throw signFailure(e, partnerId);
+			}
+		});
+		/* Cancelling the signature aborts the call */
+		signature.whenComplete((jwt, failure) -> {
+			if (signature.isCancelled())
+				call.cancel(true);
+		});
+		return signature;
+	}
 
+	private String sign(String hashData, String filname, String partnerId, String creationTime, String expiryTime) {
+		try {
+			String dataTobeSigned = dataToBeSigned(hashData, filname, partnerId, creationTime, expiryTime);
+			if (localSignatureUtil.isEnabled()) {
+				return localSignatureUtil.jwtSign(dataTobeSigned);
+			}
 			String responseString = restUtil.postApi(ApiName.KEYMANAGER_JWTSIGN, null, "", "",
-					MediaType.APPLICATION_JSON, request, String.class);
+					MediaType.APPLICATION_JSON, signRequest(dataTobeSigned), String.class);
+			return signedData(responseString, partnerId);
+		} catch (Exception e) {
+			throw signFailure(e, partnerId);
+		}
 
-			SignResponseDto responseObject = signRespReader.readValue(responseString);
-			if (responseObject != null && responseObject.getErrors() != null && !responseObject.getErrors().isEmpty()) {
-				ServiceError error = responseObject.getErrors().get(0);
-				throw new SignatureException(error.getMessage());
-			}
-			String signedData = responseObject.getResponse().getJwtSignedData();
+	}
 
-			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
-					"DigitalSignatureUtil::jwtSign()::exit");
-			return signedData;
+	private String dataToBeSigned(String hashData, String filname, String partnerId, String creationTime,
+			String expiryTime) throws IOException {
+		String digestData = CryptoUtil.encodeBase64(hashData.getBytes());
 
-		} catch (IOException e) {
-			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
-					"DigitalSignatureUtil::jwtSign():: error with error message" + ExceptionUtils.getStackTrace(e));
-			throw new SignatureException(e);
-		} catch (Exception e) {
-			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
-					"DigitalSignatureUtil::jwtSign():: error with error message" + ExceptionUtils.getStackTrace(e));
-			if (e.getCause() instanceof HttpClientErrorException) {
-				HttpClientErrorException httpClientException = (HttpClientErrorException) e.getCause();
-				throw new ApiNotAccessibleException(httpClientException.getResponseBodyAsString());
-			} else if (e.getCause() instanceof HttpServerErrorException) {
-				HttpServerErrorException httpServerException = (HttpServerErrorException) e.getCause();
-				throw new ApiNotAccessibleException(httpServerException.getResponseBodyAsString());
-			} else {
-				throw new SignatureException(e);
-			}
+		JSONObject signatureJson = createSignatureJson(filname, partnerId, digestData, creationTime, expiryTime);
+		return mapper.writeValueAsString(signatureJson);
+	}
+
+	private RequestWrapper<JWTSignatureRequestDto> signRequest(String dataTobeSigned) {
+		String encodedData = CryptoUtil.encodeBase64(dataTobeSigned.getBytes());
+		JWTSignatureRequestDto dto = new JWTSignatureRequestDto();
+		dto.setDataToSign(encodedData);
+		dto.setIncludeCertHash(includeCertificateHash);
+		dto.setIncludeCertificate(includeCertificate);
+		dto.setIncludePayload(includePayload);
+		if (StringUtils.isNotEmpty(certificateUrl)) {
+			dto.setCertificateUrl(certificateUrl);
+		}
+
+		RequestWrapper<JWTSignatureRequestDto> request = new RequestWrapper<>();
+		request.setRequest(dto);
+		request.setMetadata(null);
 
+		// Step 2: Generate UTC timestamp in configured pattern
+		LocalDateTime nowUtc = LocalDateTime.parse(DateUtils.getUTCCurrentDateTimeString(dateTimePattern), formatter);
+		request.setRequesttime(nowUtc);
+		return request;
+	}
+
+	private String signedData(String responseString, String partnerId) throws IOException {
+		SignResponseDto responseObject = signRespReader.readValue(responseString);
+		if (responseObject != null && responseObject.getErrors() != null && !responseObject.getErrors().isEmpty()) {
+			ServiceError error = responseObject.getErrors().get(0);
+			throw new SignatureException(error.getMessage());
 		}
+		String signedData = responseObject.getResponse().getJwtSignedData();
+
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"DigitalSignatureUtil::jwtSign()::exit");
+		return signedData;
+	}
 
+	/**
+	 * Maps a failure of the signing to the exception thrown to the caller.
+	 */
+	private RuntimeException signFailure(Throwable e, String partnerId) {
+		LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"DigitalSignatureUtil::jwtSign():: error with error message" + ExceptionUtils.getStackTrace(e));
+		if (e.getCause() instanceof HttpClientErrorException) {
+			HttpClientErrorException httpClientException = (HttpClientErrorException) e.getCause();
+			return new ApiNotAccessibleException(httpClientException.getResponseBodyAsString());
+		} else if (e.getCause() instanceof HttpServerErrorException) {
+			HttpServerErrorException httpServerException = (HttpServerErrorException) e.getCause();
+			return new ApiNotAccessibleException(httpServerException.getResponseBodyAsString());
+		} else {
+			return new SignatureException(e);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,190 @@
+package io.mosip.datashare.util;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.mosip.datashare.config.DataShareCacheConfig;
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.config.DataShareCacheProperties.CacheSpec;
+import io.mosip.kernel.core.util.CryptoUtil;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Tracks download sessions, so that a share fetched again after a dropped
+ * connection or in consecutive ranges spends a single download. A session is
+ * opened by the request that spends the download and remembers the offset
+ * after the last byte written to the client; the offset only moves once a
+ * write succeeds. A range starting at or after that offset continues the
+ * session and takes it over from any request still streaming it, which then
+ * stops, so no byte is served twice for one download. The session is closed
+ * once the last byte of the share has been delivered.
+ * <p>
+ * Sessions are held per instance. A continuation that reaches another
+ * instance spends another download.
+ */
+@Component
+public class DownloadSessionUtil {
+
+	/** The name of the download session cache. */
+	public static final String DOWNLOAD_SESSION_CACHE = "downloadSessionCache";
+
+	private static final int SESSION_ID_LENGTH = 16;
+
+	/** Time a download can be resumed for unless the cache spec defines one. */
+	@Value("${mosip.data.share.download.session-ttl-seconds:3600}")
+	private long sessionTtlSeconds;
+
+	@Autowired
+	private DataShareCacheProperties cacheProperties;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	/** Session id to the share and the offset after the last byte delivered. */
+	private Cache<String, DownloadSession> sessions;
+
+	@PostConstruct
+	private void init() {
+		CacheSpec spec = cacheProperties.getSpec(DOWNLOAD_SESSION_CACHE);
+		Caffeine<Object, Object> builder = DataShareCacheConfig.newBuilder(spec, mapper);
+		if (spec.getExpireAfterWrite() == null)
+			builder.expireAfterWrite(Duration.ofSeconds(sessionTtlSeconds));
+		sessions = builder.build();
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, sessions, DOWNLOAD_SESSION_CACHE,
+					Tags.of("cacheManager", DataShareCacheConfig.CACHE_MANAGER_NAME));
+		}
+	}
+
+	/**
+	 * Opens a download session of the share.
+	 *
+	 * @param shareKey the random share key
+	 * @param offset   the first byte served
+	 * @param length   the size of the share
+	 * @return the lease through which the request records the bytes it delivers
+	 */
+	public DownloadLease open(String shareKey, long offset, long length) {
+		byte[] id = new byte[SESSION_ID_LENGTH];
+		secureRandom.nextBytes(id);
+		String sessionId = CryptoUtil.encodeToURLSafeBase64(id);
+		sessions.put(sessionId, new DownloadSession(shareKey, offset, length, 0));
+		return new DownloadLease(sessionId, 0, offset);
+	}
+
+	/**
+	 * Continues the download session with a range. The range continues the
+	 * session if it does not start before the offset after the last byte
+	 * delivered, in which case the request takes the session over.
+	 *
+	 * @param sessionId the session id
+	 * @param shareKey  the random share key
+	 * @param start     the first byte of the range
+	 * @return the lease of the continuation, null if the range does not
+	 *         continue a download of the share
+	 */
+	public DownloadLease resume(String sessionId, String shareKey, long start) {
+		if (sessionId == null)
+			return null;
+		DownloadSession[] resumed = new DownloadSession[1];
+		sessions.asMap().computeIfPresent(sessionId, (id, session) -> {
+			if (!session.shareKey.equals(shareKey) || start < session.offset)
+				return session;
+			resumed[0] = new DownloadSession(shareKey, start, session.length, session.generation + 1);
+			return resumed[0];
+		});
+		return resumed[0] != null ? new DownloadLease(sessionId, resumed[0].generation, start) : null;
+	}
+
+	/**
+	 * Moves the session past the bytes delivered by the request holding the
+	 * given generation, closing it at the last byte of the share.
+	 *
+	 * @return false if another request has taken the session over
+	 */
+	private boolean advance(String sessionId, long generation, long offset) {
+		boolean[] superseded = new boolean[1];
+		sessions.asMap().computeIfPresent(sessionId, (id, session) -> {
+			if (session.generation != generation) {
+				superseded[0] = true;
+				return session;
+			}
+			return offset >= session.length ? null
+					: new DownloadSession(session.shareKey, offset, session.length, generation);
+		});
+		return !superseded[0];
+	}
+
+	/**
+	 * The hold of one request on a download session.
+	 */
+	public class DownloadLease {
+
+		private final String sessionId;
+
+		private final long generation;
+
+		private long offset;
+
+		private DownloadLease(String sessionId, long generation, long offset) {
+			this.sessionId = sessionId;
+			this.generation = generation;
+			this.offset = offset;
+		}
+
+		/**
+		 * Gets the session id.
+		 *
+		 * @return the session id
+		 */
+		public String getSessionId() {
+			return sessionId;
+		}
+
+		/**
+		 * Records bytes written to the client.
+		 *
+		 * @param bytes the number of bytes written
+		 * @return false if another request has continued the download, in
+		 *         which case this one must stop
+		 */
+		public boolean delivered(long bytes) {
+			offset += bytes;
+			return advance(sessionId, generation, offset);
+		}
+	}
+
+	private static final class DownloadSession {
+
+		private final String shareKey;
+
+		private final long offset;
+
+		private final long length;
+
+		private final long generation;
+
+		private DownloadSession(String shareKey, long offset, long length, long generation) {
+			this.shareKey = shareKey;
+			this.offset = offset;
+			this.length = length;
+			this.generation = generation;
+		}
+	}
+}
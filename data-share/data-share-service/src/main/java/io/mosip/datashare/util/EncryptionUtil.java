@@ -6,6 +6,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -60,6 +62,14 @@ public class EncryptionUtil {
 	@Value("${mosip.data.share.prependThumbprint:false}")
 	private boolean prependThumbprint;
 
+	/** Whether data is encrypted in process instead of through the Cryptomanager API. */
+	@Value("${mosip.data.share.local-encryption.enabled:false}")
+	private boolean localEncryptionEnabled;
+
+	/** In process encryption with cached partner certificates. */
+	@Autowired
+	private LocalEncryptionUtil localEncryptionUtil;
+
 	/** REST client utility for invoking Cryptomanager APIs. */
 	@Autowired
 	private RestUtil restUtil;
@@ -95,67 +105,116 @@ public class EncryptionUtil {
 	public byte[] encryptData(byte[] filedata, String partnerId) {
 		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
 				partnerId, "EncryptionUtil::encryptData()::entry");
+		if (localEncryptionEnabled) {
+			return localEncryptionUtil.encryptData(filedata, partnerId, prependThumbprint);
+		}
 
-		String dataToBeEncrypted;
-		byte[] encryptedPacket = null;
 		try {
-
-
-			dataToBeEncrypted = CryptoUtil.encodeBase64(filedata);
-			CryptomanagerRequestDto cryptomanagerRequestDto = new CryptomanagerRequestDto();
-			RequestWrapper<CryptomanagerRequestDto> request = new RequestWrapper<>();
-			cryptomanagerRequestDto.setApplicationId(applicationId);
-			cryptomanagerRequestDto.setData(dataToBeEncrypted);
-			cryptomanagerRequestDto.setReferenceId(partnerId);
-			cryptomanagerRequestDto.setPrependThumbprint(prependThumbprint);
-			LocalDateTime localdatetime = LocalDateTime.parse(DateUtils.getUTCCurrentDateTimeString(dateTimePattern), formatter);
-			request.setRequesttime(localdatetime);
-
-			request.setRequest(cryptomanagerRequestDto);
-			cryptomanagerRequestDto.setTimeStamp(localdatetime);
 			String response = restUtil.postApi(ApiName.CRYPTOMANAGER_ENCRYPT, null, "", "",
-					MediaType.APPLICATION_JSON, request, String.class);
+					MediaType.APPLICATION_JSON, encryptionRequest(filedata, partnerId), String.class);
+			return encryptedData(response, partnerId);
+		} catch (Exception e) {
+			throw encryptionFailure(e, partnerId);
+		}
 
-			CryptomanagerResponseDto responseObject = cryptoRespReader.readValue(response);
+    }
 
-			if (responseObject != null && responseObject.getErrors() != null && !responseObject.getErrors().isEmpty()) {
-				ServiceError error = responseObject.getErrors().get(0);
-				throw new DataEncryptionFailureException(error.getMessage());
+	/**
+	 * Encrypts data without blocking the calling thread while Cryptomanager
+	 * answers. Failures complete the future with the exceptions
+	 * {@link #encryptData} throws.
+	 *
+	 * @param filedata  the filedata
+	 * @param partnerId the partner id
+	 * @return the future encrypted data
+	 */
+	public CompletableFuture<byte[]> encryptDataAsync(byte[] filedata, String partnerId) {
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
+				partnerId, "EncryptionUtil::encryptDataAsync()::entry");
+		RequestWrapper<CryptomanagerRequestDto> request;
+		try {
+			if (localEncryptionEnabled) {
+				return CompletableFuture
+						.completedFuture(localEncryptionUtil.encryptData(filedata, partnerId, prependThumbprint));
 			}
-			encryptedPacket = responseObject.getResponse().getData().getBytes();
-			LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
-					"Encryption done successfully");
-			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
-					partnerId, "EncryptionUtil::encryptData()::exit");
-		} catch (IOException e) {
-			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
-					partnerId,
-					"EncryptionUtil::encryptData():: error with error message" + ExceptionUtils.getStackTrace(e));
-			throw new DataEncryptionFailureException(IO_EXCEPTION, e);
-		} catch (DateTimeParseException e) {
-			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
-					partnerId,
-					"EncryptionUtil::encryptData():: error with error message" + ExceptionUtils.getStackTrace(e));
-			throw new DataEncryptionFailureException(DATE_TIME_EXCEPTION);
+			request = encryptionRequest(filedata, partnerId);
 		} catch (Exception e) {
-			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
-					partnerId,
-					"EncryptionUtil::encryptData():: error with error message" + ExceptionUtils.getStackTrace(e));
-			if (e.getCause() instanceof HttpClientErrorException) {
-				HttpClientErrorException httpClientException = (HttpClientErrorException) e.getCause();
-				throw new ApiNotAccessibleException(httpClientException.getResponseBodyAsString());
-			} else if (e.getCause() instanceof HttpServerErrorException) {
-				HttpServerErrorException httpServerException = (HttpServerErrorException) e.getCause();
-				throw new ApiNotAccessibleException(httpServerException.getResponseBodyAsString());
+			return CompletableFuture.failedFuture(encryptionFailure(e, partnerId));
+		}
+		CompletableFuture<String> call = restUtil.postApiAsync(ApiName.CRYPTOMANAGER_ENCRYPT, null, "", "",
+				MediaType.APPLICATION_JSON, request, String.class);
+		CompletableFuture<byte[]> encryption = call.handle((response, failure) -> {
+			if (failure != null) {
+				throw encryptionFailure(failure instanceof CompletionException && failure.getCause() != null
+						? failure.getCause()
+						: failure, partnerId);
 			}
-			 else {
-				throw new DataEncryptionFailureException(e.getMessage());
+			try {
+				return encryptedData(response, partnerId);
+			} catch (Exception e) {
+				throw encryptionFailure(e, partnerId);
 			}
+		});
+		/* Cancelling the encryption aborts the call */
+		encryption.whenComplete((data, failure) -> {
+			if (encryption.isCancelled())
+				call.cancel(true);
+		});
+		return encryption;
+	}
 
+	private RequestWrapper<CryptomanagerRequestDto> encryptionRequest(byte[] filedata, String partnerId) {
+		String dataToBeEncrypted = CryptoUtil.encodeBase64(filedata);
+		CryptomanagerRequestDto cryptomanagerRequestDto = new CryptomanagerRequestDto();
+		RequestWrapper<CryptomanagerRequestDto> request = new RequestWrapper<>();
+		cryptomanagerRequestDto.setApplicationId(applicationId);
+		cryptomanagerRequestDto.setData(dataToBeEncrypted);
+		cryptomanagerRequestDto.setReferenceId(partnerId);
+		cryptomanagerRequestDto.setPrependThumbprint(prependThumbprint);
+		LocalDateTime localdatetime = LocalDateTime.parse(DateUtils.getUTCCurrentDateTimeString(dateTimePattern), formatter);
+		request.setRequesttime(localdatetime);
+
+		request.setRequest(cryptomanagerRequestDto);
+		cryptomanagerRequestDto.setTimeStamp(localdatetime);
+		return request;
+	}
+
+	private byte[] encryptedData(String response, String partnerId) throws IOException {
+		CryptomanagerResponseDto responseObject = cryptoRespReader.readValue(response);
+
+		if (responseObject != null && responseObject.getErrors() != null && !responseObject.getErrors().isEmpty()) {
+			ServiceError error = responseObject.getErrors().get(0);
+			throw new DataEncryptionFailureException(error.getMessage());
 		}
+		byte[] encryptedPacket = responseObject.getResponse().getData().getBytes();
+		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"Encryption done successfully");
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
+				partnerId, "EncryptionUtil::encryptData()::exit");
 		return encryptedPacket;
+	}
 
-    }
+	/**
+	 * Maps a failure of the encryption to the exception thrown to the caller.
+	 */
+	private RuntimeException encryptionFailure(Throwable e, String partnerId) {
+		LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
+				partnerId,
+				"EncryptionUtil::encryptData():: error with error message" + ExceptionUtils.getStackTrace(e));
+		if (e instanceof IOException) {
+			return new DataEncryptionFailureException(IO_EXCEPTION, e);
+		} else if (e instanceof DateTimeParseException) {
+			return new DataEncryptionFailureException(DATE_TIME_EXCEPTION);
+		} else if (e.getCause() instanceof HttpClientErrorException) {
+			HttpClientErrorException httpClientException = (HttpClientErrorException) e.getCause();
+			return new ApiNotAccessibleException(httpClientException.getResponseBodyAsString());
+		} else if (e.getCause() instanceof HttpServerErrorException) {
+			HttpServerErrorException httpServerException = (HttpServerErrorException) e.getCause();
+			return new ApiNotAccessibleException(httpServerException.getResponseBodyAsString());
+		} else {
+			return new DataEncryptionFailureException(e.getMessage());
+		}
+	}
 
 
 }
@@ -0,0 +1,221 @@
+package io.mosip.datashare.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.mosip.datashare.config.DataShareCacheConfig;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Keeps the content of popular unlimited usage shares in off-heap buffers so
+ * that repeated downloads are served without reading the object store.
+ * <p>
+ * A share is admitted once it was read a number of times within the admission
+ * window, and only if it fits the per object limit. The cache is bounded by
+ * the total content size; when full, Caffeine's frequency based admission
+ * decides whether a new share displaces a cached one. Entries are dropped when
+ * the share expires.
+ * <p>
+ * Buffers are allocated with {@link ByteBuffer#allocateDirect(int)}, so the
+ * byte budget has to fit {@code -XX:MaxDirectMemorySize}.
+ */
+@Component
+public class HotObjectCacheUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(HotObjectCacheUtil.class);
+
+	/** The name of the hot object cache. */
+	public static final String HOT_OBJECT_CACHE = "hotObjectCache";
+
+	/** Defines whether the content of popular unlimited usage shares is cached. */
+	@Value("${mosip.data.share.hot-object-cache.enabled:false}")
+	private boolean hotObjectCacheEnabled;
+
+	/** Total size of the cached content in bytes. */
+	@Value("${mosip.data.share.hot-object-cache.max-bytes:268435456}")
+	private long maxBytes;
+
+	/** Size of the largest share that is cached. */
+	@Value("${mosip.data.share.hot-object-cache.max-object-bytes:8388608}")
+	private int maxObjectBytes;
+
+	/** Number of reads within the admission window after which a share is cached. */
+	@Value("${mosip.data.share.hot-object-cache.admission-threshold:2}")
+	private int admissionThreshold;
+
+	@Value("${mosip.data.share.hot-object-cache.admission-window-seconds:600}")
+	private long admissionWindowSeconds;
+
+	/** Maximum number of shares whose reads are counted. */
+	@Value("${mosip.data.share.hot-object-cache.max-tracked-shares:10000}")
+	private long maxTrackedShares;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private Cache<String, HotObject> hotObjects;
+
+	/** Reads of shares that are not cached yet. */
+	private Cache<String, AtomicInteger> readCounts;
+
+	@PostConstruct
+	private void init() {
+		if (!hotObjectCacheEnabled)
+			return;
+		hotObjects = Caffeine.newBuilder().maximumWeight(maxBytes)
+				.weigher((String key, HotObject hotObject) -> hotObject.content.capacity())
+				.expireAfter(Expiry.creating((String key, HotObject hotObject) -> Duration.ofNanos(Math.max(0,
+						Duration.between(LocalDateTime.now(ZoneOffset.UTC), hotObject.expiryDtimes).toNanos()))))
+				.recordStats().build();
+		readCounts = Caffeine.newBuilder().maximumSize(maxTrackedShares)
+				.expireAfterWrite(Duration.ofSeconds(admissionWindowSeconds)).build();
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, hotObjects, HOT_OBJECT_CACHE,
+					Tags.of("cacheManager", DataShareCacheConfig.CACHE_MANAGER_NAME));
+		}
+	}
+
+	public boolean isEnabled() {
+		return hotObjectCacheEnabled;
+	}
+
+	/**
+	 * Gets the cached share.
+	 *
+	 * @param policyId     the policy id
+	 * @param subscriberId the subscriber id
+	 * @param shareKey     the random share key
+	 * @return the cached share, null if it is not cached or has expired
+	 */
+	public HotObject get(String policyId, String subscriberId, String shareKey) {
+		HotObject hotObject = hotObjects.getIfPresent(key(policyId, subscriberId, shareKey));
+		if (hotObject == null || LocalDateTime.now(ZoneOffset.UTC).isAfter(hotObject.expiryDtimes))
+			return null;
+		return hotObject;
+	}
+
+	/**
+	 * Counts a read of an unlimited usage share and caches its content once the
+	 * share is read often enough.
+	 *
+	 * @param policyId     the policy id
+	 * @param subscriberId the subscriber id
+	 * @param shareKey     the random share key
+	 * @param content      the content read from the object store
+	 * @param length       the content length, -1 if unknown
+	 * @param signature    the share signature
+	 * @param expiryDtimes the UTC expiry time of the share
+	 * @return the content to serve, read from the cache if the share was admitted
+	 * @throws IOException if the content could not be read
+	 */
+	public InputStream admit(String policyId, String subscriberId, String shareKey, InputStream content,
+			long length, String signature, LocalDateTime expiryDtimes) throws IOException {
+		if (expiryDtimes == null || length > maxObjectBytes)
+			return content;
+		String key = key(policyId, subscriberId, shareKey);
+		AtomicInteger reads = readCounts.get(key, k -> new AtomicInteger());
+		if (reads.incrementAndGet() < admissionThreshold)
+			return content;
+		/* Reads one byte more than the limit to find out whether a share of unknown length fits */
+		byte[] head = IOUtils.toByteArray(new BoundedInputStream(content, maxObjectBytes + 1L));
+		if (head.length > maxObjectBytes) {
+			readCounts.invalidate(key);
+			return new SequenceInputStream(new ByteArrayInputStream(head), content);
+		}
+		IOUtils.closeQuietly(content);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(head.length);
+		buffer.put(head).flip();
+		HotObject hotObject = new HotObject(buffer.asReadOnlyBuffer(), signature, expiryDtimes);
+		hotObjects.put(key, hotObject);
+		readCounts.invalidate(key);
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), shareKey,
+				"Share cached after " + reads.get() + " reads");
+		return hotObject.openStream();
+	}
+
+	private static String key(String policyId, String subscriberId, String shareKey) {
+		return subscriberId + "/" + policyId + "/" + shareKey;
+	}
+
+	/**
+	 * The cached content of a share.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class HotObject {
+
+		private final ByteBuffer content;
+
+		private final String signature;
+
+		private final LocalDateTime expiryDtimes;
+
+		public long getLength() {
+			return content.capacity();
+		}
+
+		/**
+		 * Opens a stream over the content, independent of other readers.
+		 *
+		 * @return the stream
+		 */
+		public InputStream openStream() {
+			return new ByteBufferInputStream(content.duplicate());
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (length == 0)
+				return 0;
+			if (!buffer.hasRemaining())
+				return -1;
+			int count = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, count);
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
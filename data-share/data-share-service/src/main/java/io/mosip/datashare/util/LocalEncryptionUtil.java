@@ -0,0 +1,224 @@
+package io.mosip.datashare.util;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.MGF1ParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.mosip.datashare.config.DataShareCacheConfig;
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.config.DataShareCacheProperties.CacheSpec;
+import io.mosip.datashare.constant.ApiName;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.dto.KeyManagerGetCertificateResponseDto;
+import io.mosip.datashare.exception.ApiNotAccessibleException;
+import io.mosip.datashare.exception.DataEncryptionFailureException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Encrypts share data in process with the partner certificate, producing the
+ * same envelope as the key manager encrypt API: URL safe base64 of
+ * {@code [version header | thumbprint] | RSA-OAEP wrapped AES key | key splitter | AES-GCM cipher text | tag | IV}.
+ * Partner certificates are fetched from the key manager and cached.
+ */
+@Component
+public class LocalEncryptionUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(LocalEncryptionUtil.class);
+
+	/** The name of the partner certificate cache. */
+	public static final String PARTNER_CERTIFICATE_CACHE = "partnerCertificateCache";
+
+	private static final String SYMMETRIC_ALGORITHM = "AES/GCM/NoPadding";
+
+	private static final String ASYMMETRIC_ALGORITHM = "RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING";
+
+	private static final OAEPParameterSpec OAEP_SPEC = new OAEPParameterSpec("SHA-256", "MGF1",
+			MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT);
+
+	private static final int SYMMETRIC_KEY_LENGTH = 32;
+
+	private static final int IV_LENGTH = 16;
+
+	private static final int GCM_TAG_LENGTH = 128;
+
+	/** Application id the partner certificates are stored under in the key manager. */
+	@Value("${data.share.application.id:PARTNER}")
+	private String applicationId;
+
+	/** Separates the encrypted key from the encrypted data. */
+	@Value("${mosip.kernel.data-key-splitter:#KEY_SPLITTER#}")
+	private String keySplitter;
+
+	/** Header written before the thumbprint, blank for none. */
+	@Value("${mosip.data.share.local-encryption.version-header:VER_R2}")
+	private String versionHeader;
+
+	/** Time to live of a cached certificate unless the cache spec defines one. */
+	@Value("${mosip.data.share.local-encryption.certificate-cache-ttl-seconds:3600}")
+	private long certificateCacheTtlSeconds;
+
+	@Autowired
+	private RestUtil restUtil;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private DataShareCacheProperties cacheProperties;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	private LoadingCache<String, PartnerKey> partnerKeys;
+
+	@PostConstruct
+	private void init() {
+		CacheSpec spec = cacheProperties.getSpec(PARTNER_CERTIFICATE_CACHE);
+		Caffeine<Object, Object> builder = DataShareCacheConfig.newBuilder(spec, mapper);
+		if (spec.getExpireAfterWrite() == null)
+			builder.expireAfterWrite(Duration.ofSeconds(certificateCacheTtlSeconds));
+		partnerKeys = builder.build(this::fetchPartnerKey);
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, partnerKeys, PARTNER_CERTIFICATE_CACHE,
+					Tags.of("cacheManager", DataShareCacheConfig.CACHE_MANAGER_NAME));
+		}
+	}
+
+	/**
+	 * Encrypts the data for the partner.
+	 *
+	 * @param data              the data
+	 * @param partnerId         the partner id
+	 * @param prependThumbprint whether the certificate thumbprint is prepended
+	 * @return the URL safe base64 envelope
+	 */
+	public byte[] encryptData(byte[] data, String partnerId, boolean prependThumbprint) {
+		PartnerKey partnerKey = partnerKeys.get(partnerId);
+		return encrypt(data, partnerKey.publicKey, prependThumbprint ? partnerKey.thumbprint : null);
+	}
+
+	/**
+	 * Encrypts the data with the public key.
+	 *
+	 * @param data       the data
+	 * @param publicKey  the RSA public key the session key is wrapped with
+	 * @param thumbprint the certificate thumbprint to prepend, null for none
+	 * @return the URL safe base64 envelope
+	 */
+	public byte[] encrypt(byte[] data, PublicKey publicKey, byte[] thumbprint) {
+		try {
+			byte[] sessionKey = new byte[SYMMETRIC_KEY_LENGTH];
+			byte[] iv = new byte[IV_LENGTH];
+			secureRandom.nextBytes(sessionKey);
+			secureRandom.nextBytes(iv);
+
+			Cipher rsa = Cipher.getInstance(ASYMMETRIC_ALGORITHM);
+			rsa.init(Cipher.ENCRYPT_MODE, publicKey, OAEP_SPEC);
+			byte[] encryptedKey = rsa.doFinal(sessionKey);
+
+			Cipher aes = Cipher.getInstance(SYMMETRIC_ALGORITHM);
+			aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(sessionKey, "AES"),
+					new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+			byte[] header = thumbprint == null || StringUtils.isBlank(versionHeader) ? new byte[0]
+					: versionHeader.getBytes(StandardCharsets.UTF_8);
+			byte[] splitter = keySplitter.getBytes(StandardCharsets.UTF_8);
+			int keyLength = header.length + (thumbprint == null ? 0 : thumbprint.length) + encryptedKey.length;
+			int cipherLength = aes.getOutputSize(data.length);
+
+			byte[] envelope = new byte[keyLength + splitter.length + cipherLength + IV_LENGTH];
+			int offset = append(envelope, 0, header);
+			if (thumbprint != null)
+				offset = append(envelope, offset, thumbprint);
+			offset = append(envelope, offset, encryptedKey);
+			offset = append(envelope, offset, splitter);
+			offset += aes.doFinal(data, 0, data.length, envelope, offset);
+			append(envelope, offset, iv);
+			return Base64.getUrlEncoder().withoutPadding().encode(envelope);
+		} catch (GeneralSecurityException e) {
+			throw new DataEncryptionFailureException("Local encryption failed", e);
+		}
+	}
+
+	private PartnerKey fetchPartnerKey(String partnerId) {
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+				"LocalEncryptionUtil::fetchPartnerKey()::entry");
+		KeyManagerGetCertificateResponseDto responseObject;
+		try {
+			String response = restUtil.getApi(ApiName.KEYMANAGER_GET_CERTIFICATE, null, "applicationId,referenceId",
+					applicationId + "," + partnerId, String.class);
+			responseObject = mapper.readValue(response, KeyManagerGetCertificateResponseDto.class);
+		} catch (ApiNotAccessibleException e) {
+			throw e;
+		} catch (Exception e) {
+			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(),
+					partnerId, "LocalEncryptionUtil::fetchPartnerKey():: error with error message"
+							+ ExceptionUtils.getStackTrace(e));
+			throw new DataEncryptionFailureException("Failed to read partner certificate", e);
+		}
+		if (responseObject == null || responseObject.getResponse() == null) {
+			String message = responseObject != null && responseObject.getErrors() != null
+					&& !responseObject.getErrors().isEmpty() ? responseObject.getErrors().get(0).getMessage()
+							: "Partner certificate not found";
+			throw new DataEncryptionFailureException(message);
+		}
+		try {
+			X509Certificate certificate = (X509Certificate) CertificateFactory.getInstance("X.509")
+					.generateCertificate(new ByteArrayInputStream(
+							responseObject.getResponse().getCertificate().getBytes(StandardCharsets.UTF_8)));
+			byte[] thumbprint = MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded());
+			LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.PARTNERID.toString(), partnerId,
+					"Partner certificate cached");
+			return new PartnerKey(certificate.getPublicKey(), thumbprint);
+		} catch (GeneralSecurityException e) {
+			throw new DataEncryptionFailureException("Invalid partner certificate", e);
+		}
+	}
+
+	private static int append(byte[] target, int offset, byte[] source) {
+		System.arraycopy(source, 0, target, offset, source.length);
+		return offset + source.length;
+	}
+
+	private static class PartnerKey {
+
+		private final PublicKey publicKey;
+
+		private final byte[] thumbprint;
+
+		PartnerKey(PublicKey publicKey, byte[] thumbprint) {
+			this.publicKey = publicKey;
+			this.thumbprint = thumbprint;
+		}
+	}
+}
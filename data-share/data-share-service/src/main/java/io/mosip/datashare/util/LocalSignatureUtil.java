@@ -0,0 +1,223 @@
+package io.mosip.datashare.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.exception.SignatureException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Signs share metadata in process with the data share signing key, producing
+ * the same compact JWS as the key manager jwtSign API, including the
+ * {@code x5c}, {@code x5t#S256} and {@code x5u} header options and detached
+ * payloads.
+ * <p>
+ * The key is read either from a PKCS12 keystore or from a PKCS8 private key
+ * and X.509 certificate in PEM files. RSA keys sign with RS256, EC keys with
+ * ES256.
+ */
+@Component
+public class LocalSignatureUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(LocalSignatureUtil.class);
+
+	private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	/** Defines whether shares are signed in process instead of through the key manager. */
+	@Value("${mosip.data.share.local-signing.enabled:false}")
+	private boolean localSigningEnabled;
+
+	/** PKCS12 keystore holding the signing key. */
+	@Value("${mosip.data.share.local-signing.keystore-path:}")
+	private String keystorePath;
+
+	@Value("${mosip.data.share.local-signing.keystore-password:}")
+	private String keystorePassword;
+
+	/** Alias of the signing key, the first key entry when empty. */
+	@Value("${mosip.data.share.local-signing.key-alias:}")
+	private String keyAlias;
+
+	/** PEM encoded PKCS8 private key, used when no keystore is configured. */
+	@Value("${mosip.data.share.local-signing.private-key-path:}")
+	private String privateKeyPath;
+
+	/** PEM encoded certificate of the private key. */
+	@Value("${mosip.data.share.local-signing.certificate-path:}")
+	private String certificatePath;
+
+	/** Key id written to the kid header, omitted when empty. */
+	@Value("${mosip.data.share.local-signing.key-id:}")
+	private String keyId;
+
+	@Value("${mosip.data.share.includeCertificateHash:false}")
+	private boolean includeCertificateHash;
+
+	@Value("${mosip.data.share.includeCertificate:false}")
+	private boolean includeCertificate;
+
+	@Value("${mosip.data.share.includePayload:false}")
+	private boolean includePayload;
+
+	@Value("${mosip.data.share.certificateurl:}")
+	private String certificateUrl;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	private X509Certificate certificate;
+
+	private String encodedHeader;
+
+	private ThreadLocal<Signature> signatureHolder;
+
+	@PostConstruct
+	private void init() {
+		if (!localSigningEnabled)
+			return;
+		try {
+			if (StringUtils.isNotEmpty(keystorePath)) {
+				loadKeystore();
+			} else if (StringUtils.isNotEmpty(privateKeyPath) && StringUtils.isNotEmpty(certificatePath)) {
+				loadPem();
+			} else {
+				throw new SignatureException("Please configure the local signing keystore or PEM key and certificate");
+			}
+		} catch (IOException | GeneralSecurityException e) {
+			throw new SignatureException("Unable to load the local signing key", e);
+		}
+	}
+
+	public boolean isEnabled() {
+		return localSigningEnabled;
+	}
+
+	/**
+	 * Signs the JSON document.
+	 *
+	 * @param dataToSign the JSON document
+	 * @return the compact JWS, with an empty payload part unless the payload is
+	 *         included
+	 */
+	public String jwtSign(String dataToSign) {
+		String encodedPayload = URL_ENCODER.encodeToString(dataToSign.getBytes(StandardCharsets.UTF_8));
+		String signingInput = encodedHeader + "." + encodedPayload;
+		try {
+			Signature signature = signatureHolder.get();
+			signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+			String encodedSignature = URL_ENCODER.encodeToString(signature.sign());
+			return encodedHeader + "." + (includePayload ? encodedPayload : "") + "." + encodedSignature;
+		} catch (GeneralSecurityException e) {
+			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), keyId,
+					"LocalSignatureUtil::jwtSign():: error with error message " + e.getMessage());
+			throw new SignatureException(e);
+		}
+	}
+
+	private void loadKeystore() throws IOException, GeneralSecurityException {
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		char[] password = keystorePassword.toCharArray();
+		try (InputStream in = Files.newInputStream(Paths.get(keystorePath))) {
+			keyStore.load(in, password);
+		}
+		String alias = StringUtils.isNotEmpty(keyAlias) ? keyAlias
+				: Collections.list(keyStore.aliases()).stream().filter(a -> {
+					try {
+						return keyStore.isKeyEntry(a);
+					} catch (GeneralSecurityException e) {
+						return false;
+					}
+				}).findFirst().orElseThrow(() -> new SignatureException("No key entry in the local signing keystore"));
+		Key key = keyStore.getKey(alias, password);
+		if (!(key instanceof PrivateKey))
+			throw new SignatureException("Keystore entry " + alias + " is not a private key");
+		initSigner((PrivateKey) key, (X509Certificate) keyStore.getCertificate(alias));
+	}
+
+	private void loadPem() throws IOException, GeneralSecurityException {
+		byte[] encodedKey = decodePem(new String(Files.readAllBytes(Paths.get(privateKeyPath)), StandardCharsets.US_ASCII));
+		PrivateKey privateKey;
+		try {
+			privateKey = KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+		} catch (GeneralSecurityException e) {
+			privateKey = KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(encodedKey));
+		}
+		X509Certificate pemCertificate;
+		try (InputStream in = Files.newInputStream(Paths.get(certificatePath))) {
+			pemCertificate = (X509Certificate) CertificateFactory.getInstance("X.509").generateCertificate(in);
+		}
+		initSigner(privateKey, pemCertificate);
+	}
+
+	private void initSigner(PrivateKey privateKey, X509Certificate signingCertificate)
+			throws GeneralSecurityException {
+		boolean ec = privateKey instanceof ECPrivateKey;
+		String jcaAlgorithm = ec ? "SHA256withECDSAinP1363Format" : "SHA256withRSA";
+		this.certificate = signingCertificate;
+		this.encodedHeader = URL_ENCODER.encodeToString(createHeader(ec ? "ES256" : "RS256"));
+		this.signatureHolder = ThreadLocal.withInitial(() -> {
+			try {
+				Signature signature = Signature.getInstance(jcaAlgorithm);
+				signature.initSign(privateKey);
+				return signature;
+			} catch (GeneralSecurityException e) {
+				throw new SignatureException(e);
+			}
+		});
+		signatureHolder.get();
+		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), keyId,
+				"Local signing enabled with " + jcaAlgorithm);
+	}
+
+	private byte[] createHeader(String algorithm) throws GeneralSecurityException {
+		Map<String, Object> header = new LinkedHashMap<>();
+		if (includeCertificate && certificate != null)
+			header.put("x5c", Collections.singletonList(Base64.getEncoder().encodeToString(certificate.getEncoded())));
+		if (includeCertificateHash && certificate != null)
+			header.put("x5t#S256",
+					URL_ENCODER.encodeToString(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded())));
+		if (StringUtils.isNotEmpty(certificateUrl))
+			header.put("x5u", certificateUrl);
+		if (StringUtils.isNotEmpty(keyId))
+			header.put("kid", keyId);
+		header.put("alg", algorithm);
+		try {
+			return mapper.writeValueAsBytes(header);
+		} catch (JsonProcessingException e) {
+			throw new SignatureException(e);
+		}
+	}
+
+	private static byte[] decodePem(String pem) {
+		return Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+	}
+}
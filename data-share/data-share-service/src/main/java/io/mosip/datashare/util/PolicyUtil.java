@@ -1,25 +1,41 @@
 package io.mosip.datashare.util;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import io.mosip.datashare.config.DataShareCacheConfig;
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.config.DataShareCacheProperties.CacheSpec;
 import io.mosip.datashare.dto.DataShareDto;
 import io.mosip.datashare.service.impl.DataShareServiceImpl;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.env.Environment;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 
 import io.mosip.datashare.constant.ApiName;
 import io.mosip.datashare.constant.LoggerFileConstant;
@@ -28,6 +44,10 @@ import io.mosip.datashare.dto.PolicyResponseDto;
 import io.mosip.datashare.exception.ApiNotAccessibleException;
 import io.mosip.datashare.exception.PolicyException;
 import io.mosip.datashare.logger.DataShareLogger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.mosip.kernel.core.exception.ExceptionUtils;
 import io.mosip.kernel.core.exception.ServiceError;
 import io.mosip.kernel.core.logger.spi.Logger;
@@ -71,16 +91,119 @@ public class PolicyUtil {
 	@Value("${mosip.data.share.static-policy.subscriber-id:#{null}}")
 		private String staticSubscriberId;
 
-	@Cacheable(value = "partnerpolicyCache", key = "#policyId + '_' + #subscriberId")
+	/** The name of the partner policy cache. */
+	public static final String PARTNER_POLICY_CACHE = "partnerpolicyCache";
+
+	/** The cache properties. */
+	@Autowired
+	private DataShareCacheProperties cacheProperties;
+
+	/** The meter registry. */
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	/** Time to live of a cached policy unless the cache spec defines one. */
+	@Value("${mosip.data.share.policy-cache.expiry-time-millisec:3600000}")
+	private long policyCacheExpiryMillis;
+
+	/** How long past its expiry a policy is still served while the policy service is unavailable, 0 to disable. */
+	@Value("${mosip.data.share.policy-cache.stale-if-error-seconds:3600}")
+	private long staleIfErrorSeconds;
+
+	/** Maximum time a share creation waits for the policy service, 0 to wait indefinitely. */
+	@Value("${mosip.data.share.policy-fetch.timeout-millisec:10000}")
+	private long policyFetchTimeoutMillis;
+
+	/** Maximum number of policy fetches in flight. */
+	@Value("${mosip.data.share.policy-fetch.max-concurrency:8}")
+	private int policyFetchMaxConcurrency;
+
+	/** The partner policy cache. */
+	private LoadingCache<PolicyCacheKey, PolicyResponseDto> policyCache;
+
+	/** Last successfully fetched policies, kept for the stale-if-error window. */
+	private Cache<PolicyCacheKey, PolicyResponseDto> lastGoodPolicies;
+
+	/** Runs policy fetches so that callers can stop waiting on a slow policy service. */
+	private ExecutorService policyFetchExecutor;
+
+	/** Counts policies served stale. */
+	private Counter staleServeCounter;
+
+	/**
+	 * Builds the partner policy cache. Concurrent misses on a policy share one
+	 * load, and entries are reloaded in the background once they reach the
+	 * refresh age (80% of their time to live unless configured), so they are
+	 * normally replaced before they expire.
+	 */
+	@PostConstruct
+	private void initPolicyCache() {
+		CacheSpec spec = cacheProperties.getSpec(PARTNER_POLICY_CACHE);
+		Duration expireAfterWrite = spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite()
+				: Duration.ofMillis(policyCacheExpiryMillis);
+		Duration refreshAfterWrite = spec.getRefreshAfterWrite() != null ? spec.getRefreshAfterWrite()
+				: expireAfterWrite.multipliedBy(4).dividedBy(5);
+		Caffeine<Object, Object> builder = DataShareCacheConfig.newBuilder(spec, mapper);
+		if (spec.getExpireAfterWrite() == null)
+			builder.expireAfterWrite(expireAfterWrite);
+		if (refreshAfterWrite.compareTo(expireAfterWrite) < 0 && !refreshAfterWrite.isZero())
+			builder.refreshAfterWrite(refreshAfterWrite);
+		policyCache = builder.build(this::fetchPolicyDetail);
+		if (staleIfErrorSeconds > 0) {
+			lastGoodPolicies = Caffeine.newBuilder()
+					.maximumSize(spec.getMaximumSize() != null ? spec.getMaximumSize() : 1000L)
+					.expireAfterWrite(expireAfterWrite.plusSeconds(staleIfErrorSeconds)).build();
+		}
+		if (policyFetchTimeoutMillis > 0 && policyFetchExecutor == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("policy-fetch-");
+			threadFactory.setDaemon(true);
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(policyFetchMaxConcurrency,
+					policyFetchMaxConcurrency, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(policyFetchMaxConcurrency * 16), threadFactory);
+			executor.allowCoreThreadTimeOut(true);
+			policyFetchExecutor = executor;
+		}
+		if (meterRegistry != null) {
+			CaffeineCacheMetrics.monitor(meterRegistry, policyCache, PARTNER_POLICY_CACHE,
+					Tags.of("cacheManager", DataShareCacheConfig.CACHE_MANAGER_NAME));
+			staleServeCounter = Counter.builder("datashare.policy.stale.served")
+					.description("Partner policies served past expiry because the policy service was unavailable")
+					.register(meterRegistry);
+		}
+	}
+
+	@PreDestroy
+	private void shutdownPolicyFetchExecutor() {
+		if (policyFetchExecutor != null)
+			policyFetchExecutor.shutdownNow();
+	}
+
 	public PolicyResponseDto getPolicyDetail(String policyId, String subscriberId) {
+		PolicyCacheKey key = new PolicyCacheKey(policyId, subscriberId);
+		try {
+			return policyCache.get(key);
+		} catch (RuntimeException e) {
+			PolicyResponseDto stalePolicy = lastGoodPolicies != null && isPolicyServiceUnavailable(e)
+					? lastGoodPolicies.getIfPresent(key)
+					: null;
+			if (stalePolicy == null)
+				throw e;
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
+					"Policy service unavailable, serving last known policy");
+			if (staleServeCounter != null)
+				staleServeCounter.increment();
+			return stalePolicy;
+		}
+	}
 
+	private PolicyResponseDto fetchPolicyDetail(PolicyCacheKey key) {
+		String policyId = key.policyId;
+		String subscriberId = key.subscriberId;
 		try {
 			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 					policyId, "PolicyUtil::getPolicyDetail()::entry");
-			Map<String, String> pathsegments = new HashMap<>();
-			pathsegments.put("partnerId", subscriberId);
-			pathsegments.put("policyId", policyId);
-			String responseString = restUtil.getApi(ApiName.PARTNER_POLICY, pathsegments, String.class);
+			Map<String, String> pathsegments = Map.of("partnerId", subscriberId, "policyId", policyId);
+			String responseString = callPolicyApi(pathsegments);
             PolicyResponseDto policyResponseDto=new PolicyResponseDto();
             PolicyManagerResponseDto responseObject = mapper.readValue(responseString,
                         PolicyManagerResponseDto.class);
@@ -97,22 +220,30 @@ public class PolicyUtil {
 					"Fetched policy details successfully");
 			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(), policyId,
 					"PolicyUtil::getPolicyDetail()::exit");
+			if (lastGoodPolicies != null)
+				lastGoodPolicies.put(key, policyResponseDto);
 			return policyResponseDto;
 		} catch (IOException e) {
 			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 					policyId,
 					"PolicyUtil::getPolicyDetail():: error with error message" + ExceptionUtils.getStackTrace(e));
 			throw new PolicyException(e);
+		} catch (ApiNotAccessibleException e) {
+			/* Timed out or rejected fetches report the policy service as unavailable, not the policy as invalid */
+			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
+					policyId,
+					"PolicyUtil::getPolicyDetail():: error with error message" + ExceptionUtils.getStackTrace(e));
+			throw e;
 		} catch (Exception e) {
 			LOGGER.error(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
 					policyId,
 					"PolicyUtil::getPolicyDetail():: error with error message" + ExceptionUtils.getStackTrace(e));
 			if (e.getCause() instanceof HttpClientErrorException) {
 				HttpClientErrorException httpClientException = (HttpClientErrorException) e.getCause();
-				throw new ApiNotAccessibleException(httpClientException.getResponseBodyAsString());
+				throw new ApiNotAccessibleException(httpClientException.getResponseBodyAsString(), httpClientException);
 			} else if (e.getCause() instanceof HttpServerErrorException) {
 				HttpServerErrorException httpServerException = (HttpServerErrorException) e.getCause();
-				throw new ApiNotAccessibleException(httpServerException.getResponseBodyAsString());
+				throw new ApiNotAccessibleException(httpServerException.getResponseBodyAsString(), httpServerException);
 			} else {
 				throw new PolicyException(e);
 			}
@@ -121,12 +252,42 @@ public class PolicyUtil {
 
 	}
 
-	@CacheEvict(value = "partnerpolicyCache", allEntries = true)
-	@Scheduled(fixedRateString = "${mosip.data.share.policy-cache.expiry-time-millisec}")
-	public void emptyPartnerPolicyCache() {
-		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.POLICYID.toString(),
-				"emptyPartnerPolicyCache", "Emptying Partner Policy cache");
+	private String callPolicyApi(Map<String, String> pathsegments) throws Exception {
+		if (policyFetchExecutor == null)
+			return restUtil.getApi(ApiName.PARTNER_POLICY, pathsegments, String.class);
+		Future<String> response;
+		try {
+			response = policyFetchExecutor
+					.submit(() -> restUtil.getApi(ApiName.PARTNER_POLICY, pathsegments, String.class));
+		} catch (RejectedExecutionException e) {
+			throw new ApiNotAccessibleException("Too many pending partner policy fetches", e);
+		}
+		try {
+			return response.get(policyFetchTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			response.cancel(true);
+			throw new ApiNotAccessibleException(
+					"Partner policy fetch timed out after " + policyFetchTimeoutMillis + " ms", e);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		} catch (InterruptedException e) {
+			response.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ApiNotAccessibleException(e);
+		}
+	}
 
+	/**
+	 * Tells whether the failure was caused by the policy service being
+	 * unreachable, slow or failing, as opposed to rejecting the request.
+	 */
+	private static boolean isPolicyServiceUnavailable(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+			if (cause instanceof ResourceAccessException || cause instanceof HttpServerErrorException
+					|| cause instanceof TimeoutException || cause instanceof RejectedExecutionException)
+				return true;
+		}
+		return false;
 	}
 
 	/**
@@ -191,4 +352,13 @@ public class PolicyUtil {
 		if (StringUtils.isEmpty(staticPolicyJson))
 			throw new PolicyException("Please configure the static data share policy");
 	}
+
+	@AllArgsConstructor
+	@EqualsAndHashCode
+	private static class PolicyCacheKey {
+
+		private final String policyId;
+
+		private final String subscriberId;
+	}
 }
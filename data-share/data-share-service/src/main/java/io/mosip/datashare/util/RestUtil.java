@@ -1,10 +1,29 @@
 package io.mosip.datashare.util;
 import java.io.IOException;
 import java.net.URI;
+import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,20 +32,32 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponents;
-import org.springframework.web.util.UriComponentsBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import io.mosip.datashare.constant.ApiName;
-
+import io.mosip.datashare.constant.LoggerFileConstant;
 import io.mosip.datashare.exception.ApiNotAccessibleException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.datashare.util.ApiEndpointUtil.ApiEndpoint;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 /**
  * @author Sowmya The Class RestUtil.
  */
 @Component
 public class RestUtil {
+
+    private static final Logger LOGGER = DataShareLogger.getLogger(RestUtil.class);
+
+    /** Prefix of the per api pool properties, followed by the api name in lower case with hyphens. */
+    private static final String POOL_PROPERTY_PREFIX = "mosip.data.share.rest.pool.";
+
     /** The environment. */
     @Autowired
     private Environment environment;
@@ -35,6 +66,159 @@ public class RestUtil {
     @Qualifier("selfTokenRestTemplate")
     private RestTemplate restTemplate;
 
+    @Autowired
+    private ApiEndpointUtil apiEndpointUtil;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /** Defines whether each api is called through its own pool of kept alive connections. */
+    @Value("${mosip.data.share.rest.pool.enabled:false}")
+    private boolean poolEnabled;
+
+    /** Connections kept per api, unless set for the api. */
+    @Value("${mosip.data.share.rest.pool.max-connections:20}")
+    private int defaultMaxConnections;
+
+    /** Time allowed to open a connection, unless set for the api. */
+    @Value("${mosip.data.share.rest.pool.connect-timeout-millisec:2000}")
+    private long defaultConnectTimeoutMillis;
+
+    /** Time allowed between two packets of a response, unless set for the api. */
+    @Value("${mosip.data.share.rest.pool.read-timeout-millisec:30000}")
+    private long defaultReadTimeoutMillis;
+
+    /** Time allowed to wait for a free connection of the pool, unless set for the api. */
+    @Value("${mosip.data.share.rest.pool.acquire-timeout-millisec:5000}")
+    private long defaultAcquireTimeoutMillis;
+
+    /** Time after which an unused connection is closed. */
+    @Value("${mosip.data.share.rest.pool.idle-eviction-millisec:60000}")
+    private long idleEvictionMillis;
+
+    private final Map<ApiName, RestTemplate> pooledRestTemplates = new EnumMap<>(ApiName.class);
+
+    private final Map<ApiName, CloseableHttpClient> httpClients = new EnumMap<>(ApiName.class);
+
+    /** Clients of the asynchronous api, built on the first asynchronous call of each api. */
+    private final Map<ApiName, AsyncRestClient> asyncRestClients = new ConcurrentHashMap<>();
+
+    private final Map<ApiName, CloseableHttpAsyncClient> asyncHttpClients = new ConcurrentHashMap<>();
+
+    /**
+     * Builds one pool per api, so that a slow downstream cannot take the
+     * connections of the others. The pooled templates keep the interceptors of
+     * the self token rest template, which add the auth token.
+     */
+    @PostConstruct
+    private void init() {
+        if (!poolEnabled)
+            return;
+        for (ApiName apiName : ApiName.values()) {
+            int maxConnections = apiProperty(apiName, "max-connections", Integer.class, defaultMaxConnections);
+            long connectTimeout = apiProperty(apiName, "connect-timeout-millisec", Long.class,
+                    defaultConnectTimeoutMillis);
+            long readTimeout = apiProperty(apiName, "read-timeout-millisec", Long.class, defaultReadTimeoutMillis);
+            long acquireTimeout = apiProperty(apiName, "acquire-timeout-millisec", Long.class,
+                    defaultAcquireTimeoutMillis);
+
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(maxConnections).setMaxConnPerRoute(maxConnections)
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                            .setSocketTimeout(Timeout.ofMilliseconds(readTimeout)).build())
+                    .build();
+            CloseableHttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeout))
+                            .setResponseTimeout(Timeout.ofMilliseconds(readTimeout)).build())
+                    .evictExpiredConnections().evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMillis))
+                    .build();
+
+            RestTemplate pooledRestTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+            pooledRestTemplate.setMessageConverters(restTemplate.getMessageConverters());
+            pooledRestTemplate.setInterceptors(restTemplate.getInterceptors());
+            pooledRestTemplate.setErrorHandler(restTemplate.getErrorHandler());
+            pooledRestTemplate.setUriTemplateHandler(restTemplate.getUriTemplateHandler());
+            pooledRestTemplates.put(apiName, pooledRestTemplate);
+            httpClients.put(apiName, httpClient);
+            if (meterRegistry != null) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "datashare", "api",
+                        apiName.name()).bindTo(meterRegistry);
+            }
+        }
+        LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), "RestUtil",
+                "Pooled rest clients enabled for " + pooledRestTemplates.keySet());
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        httpClients.values().forEach(httpClient -> {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), "RestUtil",
+                        "Failed to close rest client " + e.getMessage());
+            }
+        });
+        asyncHttpClients.values().forEach(httpClient -> httpClient.close(CloseMode.GRACEFUL));
+    }
+
+    /**
+     * Gets the client of the asynchronous api. Each api has its own pool,
+     * with the connection limit and timeouts of its blocking pool, served by a
+     * single I/O thread.
+     *
+     * @param apiName the api name
+     * @return the asynchronous client of the api
+     */
+    private AsyncRestClient asyncRestClient(ApiName apiName) {
+        return asyncRestClients.computeIfAbsent(apiName, name -> {
+            int maxConnections = apiProperty(name, "max-connections", Integer.class, defaultMaxConnections);
+            long connectTimeout = apiProperty(name, "connect-timeout-millisec", Long.class,
+                    defaultConnectTimeoutMillis);
+            long readTimeout = apiProperty(name, "read-timeout-millisec", Long.class, defaultReadTimeoutMillis);
+            long acquireTimeout = apiProperty(name, "acquire-timeout-millisec", Long.class,
+                    defaultAcquireTimeoutMillis);
+
+            PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder
+                    .create().setMaxConnTotal(maxConnections).setMaxConnPerRoute(maxConnections)
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                            .setSocketTimeout(Timeout.ofMilliseconds(readTimeout)).build())
+                    .build();
+            CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom().setConnectionManager(connectionManager)
+                    .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(1).build())
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeout))
+                            .setResponseTimeout(Timeout.ofMilliseconds(readTimeout)).build())
+                    .evictExpiredConnections().evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMillis))
+                    .build();
+            httpClient.start();
+            asyncHttpClients.put(name, httpClient);
+            if (meterRegistry != null) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "datashare-async", "api",
+                        name.name()).bindTo(meterRegistry);
+            }
+            return new AsyncRestClient(restTemplate(name), httpClient);
+        });
+    }
+
+    /**
+     * Gets the rest template calling the api.
+     *
+     * @param apiName the api name
+     * @return the pooled rest template of the api, the self token rest template if pooling is disabled
+     */
+    private RestTemplate restTemplate(ApiName apiName) {
+        return pooledRestTemplates.getOrDefault(apiName, restTemplate);
+    }
+
+    private <T> T apiProperty(ApiName apiName, String name, Class<T> type, T defaultValue) {
+        return environment.getProperty(POOL_PROPERTY_PREFIX + apiName.name().toLowerCase(Locale.ROOT).replace('_', '-')
+                + "." + name, type, defaultValue);
+    }
+
     /**
      * Post api.
      *
@@ -53,34 +237,49 @@ public class RestUtil {
     public <T> T postApi(ApiName apiName, List<String> pathsegments, String queryParamName, String queryParamValue,
                          MediaType mediaType, Object requestType, Class<?> responseClass) throws ApiNotAccessibleException {
         T result = null;
-        String apiHostIpPort = environment.getProperty(apiName.name());
-        UriComponentsBuilder builder = null;
-        if (apiHostIpPort != null)
-            builder = UriComponentsBuilder.fromUriString(apiHostIpPort);
-        if (builder != null) {
-            if (!((pathsegments == null) || (pathsegments.isEmpty()))) {
-                for (String segment : pathsegments) {
-                    if (!((segment == null) || (("").equals(segment)))) {
-                        builder.pathSegment(segment);
-                    }
-                }
-            }
-            if (!((queryParamName == null) || (("").equals(queryParamName)))) {
-                String[] queryParamNameArr = queryParamName.split(",");
-                String[] queryParamValueArr = queryParamValue.split(",");
-                for (int i = 0; i < queryParamNameArr.length; i++) {
-                    builder.queryParam(queryParamNameArr[i], queryParamValueArr[i]);
-                }
-            }
+        ApiEndpoint endpoint = apiEndpointUtil.getEndpoint(apiName);
+        if (endpoint != null) {
+            String uriString = endpoint.toUriString(pathsegments, queryParamName, queryParamValue);
             try {
-                result = (T) restTemplate.postForObject(
-                        builder.toUriString(), setRequestHeader(requestType, mediaType), responseClass);
+                result = (T) restTemplate(apiName).postForObject(
+                        uriString, setRequestHeader(requestType, mediaType), responseClass);
             } catch (Exception e) {
                 throw new ApiNotAccessibleException(e);
             }
         }
         return result;
     }
+
+    /**
+     * Posts to the api without blocking the calling thread. The request is
+     * built and the response mapped like {@link #postApi}; failures complete
+     * the future with {@link ApiNotAccessibleException}.
+     *
+     * @param                 <T> the generic type
+     * @param apiName         the api name
+     * @param pathsegments    the pathsegments
+     * @param queryParamName  the query param name
+     * @param queryParamValue the query param value
+     * @param mediaType       the media type
+     * @param requestType     the request type
+     * @param responseClass   the response class
+     * @return the future response, completed with null if the api is not configured
+     */
+    public <T> CompletableFuture<T> postApiAsync(ApiName apiName, List<String> pathsegments, String queryParamName,
+                                                 String queryParamValue, MediaType mediaType, Object requestType,
+                                                 Class<T> responseClass) {
+        ApiEndpoint endpoint = apiEndpointUtil.getEndpoint(apiName);
+        if (endpoint == null)
+            return CompletableFuture.completedFuture(null);
+        try {
+            URI uri = endpoint.toUri(pathsegments, queryParamName, queryParamValue);
+            return asyncRestClient(apiName).exchange(uri, HttpMethod.POST, setRequestHeader(requestType, mediaType),
+                    responseClass);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new ApiNotAccessibleException(e));
+        }
+    }
+
     /**
      * Gets the api.
      *
@@ -96,30 +295,13 @@ public class RestUtil {
     @SuppressWarnings("unchecked")
     public <T> T getApi(ApiName apiName, List<String> pathsegments, String queryParamName, String queryParamValue,
                         Class<?> responseType) throws ApiNotAccessibleException {
-        String apiHostIpPort = environment.getProperty(apiName.name());
         T result = null;
-        UriComponentsBuilder builder = null;
-        UriComponents uriComponents = null;
-        if (apiHostIpPort != null) {
-            builder = UriComponentsBuilder.fromUriString(apiHostIpPort);
-            if (!((pathsegments == null) || (pathsegments.isEmpty()))) {
-                for (String segment : pathsegments) {
-                    if (!((segment == null) || (("").equals(segment)))) {
-                        builder.pathSegment(segment);
-                    }
-                }
-            }
-            if (!((queryParamName == null) || (("").equals(queryParamName)))) {
-                String[] queryParamNameArr = queryParamName.split(",");
-                String[] queryParamValueArr = queryParamValue.split(",");
-                for (int i = 0; i < queryParamNameArr.length; i++) {
-                    builder.queryParam(queryParamNameArr[i], queryParamValueArr[i]);
-                }
-            }
-            uriComponents = builder.build(false).encode();
+        ApiEndpoint endpoint = apiEndpointUtil.getEndpoint(apiName);
+        if (endpoint != null) {
+            URI uri = endpoint.toUri(pathsegments, queryParamName, queryParamValue);
             try {
-                result = (T) restTemplate.exchange(
-                        uriComponents.toUri(), HttpMethod.GET, setRequestHeader(null, null), responseType).getBody();
+                result = (T) restTemplate(apiName).exchange(
+                        uri, HttpMethod.GET, setRequestHeader(null, null), responseType).getBody();
             } catch (Exception e) {
                 throw new ApiNotAccessibleException(e);
             }
@@ -128,15 +310,12 @@ public class RestUtil {
     }
     @SuppressWarnings("unchecked")
     public <T> T getApi(ApiName apiName, Map<String, String> pathsegments, Class<?> responseType) throws Exception {
-        String apiHostIpPort = environment.getProperty(apiName.name());
         T result = null;
-        UriComponentsBuilder builder = null;
-        UriComponents uriComponents = null;
-        if (apiHostIpPort != null) {
-            builder = UriComponentsBuilder.fromUriString(apiHostIpPort);
-            URI urlWithPath = builder.build(pathsegments);
+        ApiEndpoint endpoint = apiEndpointUtil.getEndpoint(apiName);
+        if (endpoint != null) {
+            URI urlWithPath = endpoint.expand(pathsegments);
             try {
-                result = (T) restTemplate.exchange(
+                result = (T) restTemplate(apiName).exchange(
                         urlWithPath, HttpMethod.GET, setRequestHeader(null, null), responseType
                 ).getBody();
             } catch (Exception e) {
@@ -0,0 +1,178 @@
+package io.mosip.datashare.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.mosip.commons.khazana.spi.ObjectStoreAdapter;
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.entity.ShareRecordEntity;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.datashare.repository.ShareRecordRepository;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Deletes expired shares in the background. Expired shares are found through
+ * the expiry index of the {@link ShareRecordRepository} and deleted in
+ * batches, in parallel and at a bounded rate so the object store is not
+ * flooded: the object first, then its usage counter and share record.
+ * <p>
+ * A share whose object could not be deleted keeps its record and is retried
+ * on the next run. Shares created without a share record are not swept.
+ * <p>
+ * The sweeper reads the share records, so it needs them in a datasource
+ * shared by all instances, and is meant to be enabled on a single instance:
+ * every enabled instance sweeps the same records.
+ */
+@Component
+public class ShareExpiryUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(ShareExpiryUtil.class);
+
+	/** Defines whether expired shares are deleted in the background. */
+	@Value("${mosip.data.share.expiry-sweeper.enabled:false}")
+	private boolean sweeperEnabled;
+
+	/** Number of expired shares read and deleted per batch. */
+	@Value("${mosip.data.share.expiry-sweeper.batch-size:500}")
+	private int batchSize;
+
+	/** Maximum number of shares deleted per run, the rest is left to the next run. */
+	@Value("${mosip.data.share.expiry-sweeper.max-per-run:50000}")
+	private int maxPerRun;
+
+	/** Number of concurrent object store deletes. */
+	@Value("${mosip.data.share.expiry-sweeper.parallelism:4}")
+	private int parallelism;
+
+	/** Maximum object store deletes per second, 0 for no limit. */
+	@Value("${mosip.data.share.expiry-sweeper.max-deletes-per-second:100}")
+	private int maxDeletesPerSecond;
+
+	@Autowired
+	private ShareRecordRepository shareRecordRepository;
+
+	@Autowired
+	private ShareRecordUtil shareRecordUtil;
+
+	@Autowired
+	private UsageCounterUtil usageCounterUtil;
+
+	@Autowired
+	private ObjectStoreAdapter objectStoreAdapter;
+
+	private ExecutorService sweepExecutor;
+
+	/** Earliest time the next delete may start, in {@link System#nanoTime()}. */
+	private final AtomicLong nextDeleteNanos = new AtomicLong();
+
+	@PostConstruct
+	private void init() {
+		if (!sweeperEnabled)
+			return;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("datashare-sweeper-");
+		threadFactory.setDaemon(true);
+		/* The sweep waits for each batch before reading the next, so at most one batch is queued */
+		sweepExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory);
+		nextDeleteNanos.set(System.nanoTime());
+	}
+
+	@PreDestroy
+	private void shutdown() {
+		if (sweepExecutor != null)
+			sweepExecutor.shutdownNow();
+	}
+
+	/**
+	 * Deletes shares expired before now.
+	 *
+	 * @return the number of deleted shares
+	 */
+	@Scheduled(initialDelayString = "${mosip.data.share.expiry-sweeper.initial-delay-millisec:60000}",
+			fixedDelayString = "${mosip.data.share.expiry-sweeper.interval-millisec:600000}")
+	public int sweepExpiredShares() {
+		if (sweepExecutor == null || !shareRecordUtil.isEnabled())
+			return 0;
+		LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+		int swept = 0;
+		List<ShareRecordEntity> batch;
+		do {
+			/* Deleted records drop out of the query, so the first page is always the next batch */
+			batch = shareRecordRepository.findByExpiryDtimesBefore(now, PageRequest.of(0, batchSize));
+			int deleted = deleteBatch(batch);
+			swept += deleted;
+			if (deleted == 0 && !batch.isEmpty()) {
+				LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+						"sweepExpiredShares", "No expired share of the batch could be deleted, retrying next run");
+				break;
+			}
+		} while (batch.size() == batchSize && swept < maxPerRun && !Thread.currentThread().isInterrupted());
+		LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+				"sweepExpiredShares", "Deleted expired shares : " + swept);
+		return swept;
+	}
+
+	private int deleteBatch(List<ShareRecordEntity> batch) {
+		AtomicInteger deleted = new AtomicInteger();
+		List<CompletableFuture<Void>> deletes = new ArrayList<>(batch.size());
+		for (ShareRecordEntity shareRecord : batch) {
+			deletes.add(CompletableFuture.runAsync(() -> {
+				if (deleteShare(shareRecord))
+					deleted.incrementAndGet();
+			}, sweepExecutor));
+		}
+		CompletableFuture.allOf(deletes.toArray(new CompletableFuture[0])).join();
+		return deleted.get();
+	}
+
+	private boolean deleteShare(ShareRecordEntity shareRecord) {
+		String shareKey = shareRecord.getShareKey();
+		try {
+			awaitDeletePermit();
+			objectStoreAdapter.deleteObject(shareRecord.getSubscriberId(), shareRecord.getPolicyId(), null, null,
+					shareKey);
+			if (usageCounterUtil.isEnabled())
+				usageCounterUtil.remove(shareKey);
+			shareRecordUtil.remove(shareKey);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (Exception e) {
+			LOGGER.warn(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), shareKey,
+					"Failed to delete expired share " + ExceptionUtils.getStackTrace(e));
+			return false;
+		}
+	}
+
+	/** Spaces the deletes of all sweeper threads evenly to stay under the configured rate. */
+	private void awaitDeletePermit() throws InterruptedException {
+		if (maxDeletesPerSecond <= 0)
+			return;
+		long interval = TimeUnit.SECONDS.toNanos(1) / maxDeletesPerSecond;
+		long now = System.nanoTime();
+		long start = nextDeleteNanos.getAndAccumulate(now, (next, time) -> Math.max(next, time) + interval);
+		long wait = start - now;
+		if (wait > 0)
+			TimeUnit.NANOSECONDS.sleep(wait);
+	}
+}
@@ -0,0 +1,82 @@
+package io.mosip.datashare.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.entity.ShareRecordEntity;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.datashare.repository.ShareRecordRepository;
+import io.mosip.kernel.core.logger.spi.Logger;
+
+/**
+ * Keeps share metadata in the {@link ShareRecordRepository} so that a share
+ * can be validated without an object store metadata call.
+ * <p>
+ * Records must be kept in a datasource shared by all instances, configured
+ * through the {@code spring.datasource} properties; the embedded database is
+ * per instance and would miss the shares created on the other instances.
+ */
+@Component
+public class ShareRecordUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(ShareRecordUtil.class);
+
+	/** Defines whether share metadata is recorded in the shared database. */
+	@Value("${mosip.data.share.share-record.enabled:false}")
+	private boolean shareRecordEnabled;
+
+	@Autowired
+	private ShareRecordRepository shareRecordRepository;
+
+	public boolean isEnabled() {
+		return shareRecordEnabled;
+	}
+
+	/**
+	 * Saves the record of a share.
+	 *
+	 * @param shareRecord the share record
+	 */
+	public void save(ShareRecordEntity shareRecord) {
+		shareRecordRepository.save(shareRecord);
+		LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(),
+				shareRecord.getShareKey(), "Share record saved");
+	}
+
+	/**
+	 * Finds the record of a share.
+	 *
+	 * @param shareKey the random share key
+	 * @return the share record, null for shares created without one
+	 */
+	public ShareRecordEntity find(String shareKey) {
+		return shareRecordRepository.findById(shareKey).orElse(null);
+	}
+
+	/**
+	 * Lists the shares of a subscriber, newest first.
+	 *
+	 * @param subscriberId the subscriber id
+	 * @param page         the page number
+	 * @param size         the page size
+	 * @return the shares
+	 */
+	public Page<ShareRecordEntity> findBySubscriber(String subscriberId, int page, int size) {
+		return shareRecordRepository.findBySubscriberId(subscriberId,
+				PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "crDtimes")));
+	}
+
+	/**
+	 * Removes the record of a share.
+	 *
+	 * @param shareKey the random share key
+	 */
+	public void remove(String shareKey) {
+		shareRecordRepository.deleteById(shareKey);
+	}
+}
@@ -0,0 +1,185 @@
+package io.mosip.datashare.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.exception.DataShareExpiredException;
+import io.mosip.datashare.exception.DataShareNotFoundException;
+import io.mosip.datashare.exception.URLCreationException;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.kernel.core.logger.spi.Logger;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Mints and verifies self contained short url tokens. A token carries the
+ * policy id, subscriber id, random share key and expiry of a share and is
+ * authenticated with a truncated HMAC-SHA256, so it can be resolved without any
+ * lookup.
+ * <p>
+ * Layout before URL safe base64 encoding: version (1) | flags (1) | expiry
+ * epoch seconds (4) | policy id | subscriber id | share key | mac (16).
+ */
+@Component
+public class ShortUrlTokenUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(ShortUrlTokenUtil.class);
+
+	private static final String MAC_ALGORITHM = "HmacSHA256";
+
+	private static final byte TOKEN_VERSION = 1;
+
+	private static final int MAC_LENGTH = 16;
+
+	private static final int MIN_SECRET_LENGTH = 32;
+
+	/** Set when the share key starts with subscriber id + policy id and only the rest is encoded. */
+	private static final int FLAG_PREFIXED_SHARE_KEY = 1;
+
+	/** Defines whether short urls are minted as tokens instead of stored lookup keys. */
+	@Value("${mosip.data.share.shorturl.token.enabled:false}")
+	private boolean tokenEnabled;
+
+	/** Base64 encoded secret of at least 32 bytes used to authenticate tokens. */
+	@Value("${mosip.data.share.shorturl.token.secret:}")
+	private String tokenSecret;
+
+	private ThreadLocal<Mac> macHolder;
+
+	@PostConstruct
+	private void init() {
+		if (!tokenEnabled)
+			return;
+		if (StringUtils.isEmpty(tokenSecret))
+			throw new URLCreationException("Please configure mosip.data.share.shorturl.token.secret");
+		byte[] secret = Base64.getDecoder().decode(tokenSecret);
+		if (secret.length < MIN_SECRET_LENGTH)
+			throw new URLCreationException("Short url token secret must be at least " + MIN_SECRET_LENGTH + " bytes");
+		SecretKeySpec macKey = new SecretKeySpec(secret, MAC_ALGORITHM);
+		macHolder = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(MAC_ALGORITHM);
+				mac.init(macKey);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new URLCreationException(e);
+			}
+		});
+	}
+
+	public boolean isEnabled() {
+		return tokenEnabled;
+	}
+
+	/**
+	 * Creates the token for a share.
+	 *
+	 * @param policyId          the policy id
+	 * @param subscriberId      the subscriber id
+	 * @param randomShareKey    the random share key
+	 * @param validForInMinutes the share validity in minutes
+	 * @return the URL safe token
+	 */
+	public String createToken(String policyId, String subscriberId, String randomShareKey, int validForInMinutes) {
+		long expiry = Instant.now().plusSeconds(validForInMinutes * 60L).getEpochSecond();
+		String sharePrefix = subscriberId + policyId;
+		boolean prefixed = randomShareKey.startsWith(sharePrefix);
+		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(TOKEN_VERSION);
+			out.writeByte(prefixed ? FLAG_PREFIXED_SHARE_KEY : 0);
+			out.writeInt((int) expiry);
+			out.writeUTF(policyId);
+			out.writeUTF(subscriberId);
+			out.writeUTF(prefixed ? randomShareKey.substring(sharePrefix.length()) : randomShareKey);
+			out.flush();
+			byte[] payload = bytes.toByteArray();
+			byte[] token = Arrays.copyOf(payload, payload.length + MAC_LENGTH);
+			System.arraycopy(mac(payload, payload.length), 0, token, payload.length, MAC_LENGTH);
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+		} catch (IOException e) {
+			throw new URLCreationException(e);
+		}
+	}
+
+	/**
+	 * Verifies the token and returns the share it points to.
+	 *
+	 * @param token the token
+	 * @return the share details
+	 * @throws DataShareNotFoundException if the token is malformed or forged
+	 * @throws DataShareExpiredException  if the share has expired
+	 */
+	public ShortUrlClaims verifyToken(String token) {
+		byte[] decoded;
+		try {
+			decoded = Base64.getUrlDecoder().decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new DataShareNotFoundException();
+		}
+		int payloadLength = decoded.length - MAC_LENGTH;
+		if (payloadLength <= 0 || decoded[0] != TOKEN_VERSION) {
+			throw new DataShareNotFoundException();
+		}
+		byte[] expectedMac = mac(decoded, payloadLength);
+		if (!MessageDigest.isEqual(expectedMac, Arrays.copyOfRange(decoded, payloadLength, decoded.length))) {
+			LOGGER.debug(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), token,
+					"Short url token authentication failed");
+			throw new DataShareNotFoundException();
+		}
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(decoded, 0, payloadLength))) {
+			in.readByte();
+			int flags = in.readByte();
+			long expiry = Integer.toUnsignedLong(in.readInt());
+			String policyId = in.readUTF();
+			String subscriberId = in.readUTF();
+			String shareKey = in.readUTF();
+			if ((flags & FLAG_PREFIXED_SHARE_KEY) != 0) {
+				shareKey = subscriberId + policyId + shareKey;
+			}
+			if (Instant.now().getEpochSecond() > expiry) {
+				throw new DataShareExpiredException();
+			}
+			return new ShortUrlClaims(policyId, subscriberId, shareKey);
+		} catch (IOException e) {
+			throw new DataShareNotFoundException(e);
+		}
+	}
+
+	private byte[] mac(byte[] data, int length) {
+		Mac mac = macHolder.get();
+		mac.update(data, 0, length);
+		return Arrays.copyOf(mac.doFinal(), MAC_LENGTH);
+	}
+
+	/**
+	 * The share a short url token resolves to.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class ShortUrlClaims {
+
+		private final String policyId;
+
+		private final String subscriberId;
+
+		private final String shareKey;
+	}
+}
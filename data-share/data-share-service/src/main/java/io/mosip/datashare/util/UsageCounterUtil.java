@@ -0,0 +1,92 @@
+package io.mosip.datashare.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.mosip.datashare.constant.LoggerFileConstant;
+import io.mosip.datashare.entity.ShareUsageEntity;
+import io.mosip.datashare.logger.DataShareLogger;
+import io.mosip.datashare.repository.ShareUsageRepository;
+import io.mosip.kernel.core.logger.spi.Logger;
+
+/**
+ * Tracks the remaining downloads of shares in the database so that a download
+ * is counted with one atomic conditional update instead of a read and a
+ * rewrite of the object metadata.
+ * <p>
+ * The counters must live in a datasource shared by all instances; with the
+ * embedded per instance database each instance would count on its own.
+ * Shares created while counting was enabled are marked in their metadata and
+ * are refused when their counter is missing, as their metadata count was
+ * never spent.
+ */
+@Component
+public class UsageCounterUtil {
+
+	private static final Logger LOGGER = DataShareLogger.getLogger(UsageCounterUtil.class);
+
+	/** Outcome of spending a download. */
+	public enum Consumption {
+		/** A download was available and has been counted. */
+		ALLOWED,
+		/** No downloads are left. */
+		EXHAUSTED,
+		/** The share has no counter, e.g. it was created before counters were used. */
+		UNTRACKED
+	}
+
+	/** Defines whether share usage is counted in the shared database instead of the object metadata. */
+	@Value("${mosip.data.share.usage-counter.enabled:false}")
+	private boolean usageCounterEnabled;
+
+	@Autowired
+	private ShareUsageRepository shareUsageRepository;
+
+	public boolean isEnabled() {
+		return usageCounterEnabled;
+	}
+
+	/**
+	 * Creates the counter of a share.
+	 *
+	 * @param shareKey            the random share key
+	 * @param transactionsAllowed the allowed downloads, -1 for unlimited
+	 */
+	public void register(String shareKey, int transactionsAllowed) {
+		ShareUsageEntity usage = new ShareUsageEntity();
+		usage.setShareKey(shareKey);
+		usage.setRemaining(transactionsAllowed);
+		usage.setCrDtimes(LocalDateTime.now(ZoneOffset.UTC));
+		shareUsageRepository.save(usage);
+	}
+
+	/**
+	 * Spends one download of the share.
+	 *
+	 * @param shareKey the random share key
+	 * @return the consumption
+	 */
+	public Consumption consume(String shareKey) {
+		if (shareUsageRepository.consume(shareKey) == 1)
+			return Consumption.ALLOWED;
+		if (shareUsageRepository.existsById(shareKey)) {
+			LOGGER.info(LoggerFileConstant.SESSIONID.toString(), LoggerFileConstant.KEY.toString(), shareKey,
+					"Share usage exhausted");
+			return Consumption.EXHAUSTED;
+		}
+		return Consumption.UNTRACKED;
+	}
+
+	/**
+	 * Removes the counter of a share.
+	 *
+	 * @param shareKey the random share key
+	 */
+	public void remove(String shareKey) {
+		shareUsageRepository.deleteById(shareKey);
+	}
+}
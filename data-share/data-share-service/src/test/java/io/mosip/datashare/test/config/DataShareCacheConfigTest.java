@@ -0,0 +1,80 @@
+package io.mosip.datashare.test.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.datashare.config.DataShareCacheConfig;
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.config.DataShareCacheProperties.CacheSpec;
+
+public class DataShareCacheConfigTest {
+
+	private MeterRegistry meterRegistry;
+
+	private CacheManager cacheManager;
+
+	@Before
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		DataShareCacheProperties cacheProperties = new DataShareCacheProperties();
+		CacheSpec policySpec = new CacheSpec();
+		policySpec.setMaximumSize(2L);
+		cacheProperties.getSpecs().put("partnerpolicyCache", policySpec);
+		CacheSpec weighedSpec = new CacheSpec();
+		weighedSpec.setMaximumWeight(10L);
+		cacheProperties.getSpecs().put("weighedCache", weighedSpec);
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(
+				Collections.singletonMap("meterRegistry", meterRegistry));
+		cacheManager = new DataShareCacheConfig().cacheManager(cacheProperties, new ObjectMapper(),
+				beanFactory.getBeanProvider(MeterRegistry.class));
+	}
+
+	@Test
+	public void maximumSizeTest() {
+		Cache cache = cacheManager.getCache("partnerpolicyCache");
+		for (int i = 0; i < 10; i++) {
+			cache.put("key" + i, "value" + i);
+		}
+		com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+		nativeCache.cleanUp();
+		assertTrue(nativeCache.estimatedSize() <= 2);
+	}
+
+	@Test
+	public void maximumWeightTest() {
+		Cache cache = cacheManager.getCache("weighedCache");
+		cache.put("first", "12345678");
+		cache.put("second", "12345678");
+		com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+		nativeCache.cleanUp();
+		assertEquals(1, nativeCache.estimatedSize());
+	}
+
+	@Test
+	public void metricsTest() {
+		Cache cache = cacheManager.getCache("partnerpolicyCache");
+		cache.put("key", "value");
+		cache.get("key");
+		cache.get("missing");
+		assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "partnerpolicyCache", "result", "hit")
+				.functionCounter().count(), 0);
+		assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "partnerpolicyCache", "result", "miss")
+				.functionCounter().count(), 0);
+		assertNotNull(cacheManager.getCache("undeclaredCache"));
+		assertNotNull(meterRegistry.find("cache.size").tags("cache", "undeclaredCache").gauge());
+	}
+}
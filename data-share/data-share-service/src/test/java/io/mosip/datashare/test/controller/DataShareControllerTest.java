@@ -2,12 +2,18 @@ package io.mosip.datashare.test.controller;
 
 
 import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -29,6 +35,7 @@ import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
@@ -37,9 +44,12 @@ import org.springframework.web.multipart.MultipartFile;
 import io.mosip.datashare.controller.DataShareController;
 import io.mosip.datashare.dto.DataShare;
 import io.mosip.datashare.dto.DataShareGetResponse;
+import io.mosip.datashare.dto.DataShareRange;
+import io.mosip.datashare.objectstore.FileObjectInputStream;
 import io.mosip.datashare.service.DataShareService;
 import io.mosip.datashare.test.TestBootApplication;
 import io.mosip.datashare.test.config.TestConfig;
+import io.mosip.datashare.util.DownloadSessionUtil.DownloadLease;
 
 
 @ContextConfiguration(classes = TestConfig.class)
@@ -117,6 +127,24 @@ public class DataShareControllerTest {
 
     }
 
+    @Test
+    @WithUserDetails("test")
+    public void testGetDataShareStreamSuccess() throws Exception {
+        String sample = "Test";
+        DataShareGetResponse response = new DataShareGetResponse();
+        response.setFileStream(new ByteArrayInputStream(sample.getBytes()));
+        response.setSignature("signature");
+        Mockito.when(dataShareService.getDataFile(Mockito.anyString(), Mockito.anyString(), Mockito.anyString())
+        ).thenReturn(response);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/get/policyId/subscriberId/randomsharekey")
+                        .contentType(MediaType.ALL_VALUE))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk())
+                .andExpect(content().bytes(sample.getBytes()));
+
+    }
+
     @Test
     @WithUserDetails("test")
     public void testGetDataShareWithShorKeySuccess() throws Exception {
@@ -132,4 +160,93 @@ public class DataShareControllerTest {
 
     }
 
+    @Test
+    @WithUserDetails("test")
+    public void testGetDataShareRangeSuccess() throws Exception {
+        String sample = "st";
+        DataShareGetResponse response = new DataShareGetResponse();
+        response.setFileStream(new ByteArrayInputStream(sample.getBytes()));
+        response.setSignature("signature");
+        response.setPartial(true);
+        response.setRangeStart(2);
+        response.setRangeEnd(3);
+        response.setLength(4);
+        response.setEntityTag("entitytag");
+        response.setDownloadSession("session");
+        DownloadLease downloadLease = Mockito.mock(DownloadLease.class);
+        Mockito.when(downloadLease.delivered(Mockito.anyLong())).thenReturn(true);
+        response.setDownloadLease(downloadLease);
+        Mockito.when(dataShareService.getDataFile(Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),
+                Mockito.any(DataShareRange.class))).thenReturn(response);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/get/policyId/subscriberId/randomsharekey")
+                        .header("Range", "bytes=2-").header("If-Range", "\"entitytag\"")
+                        .header("Download-Session", "session")
+                        .contentType(MediaType.ALL_VALUE))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-3/4"))
+                .andExpect(header().string("ETag", "\"entitytag\""))
+                .andExpect(header().string("Download-Session", "session"))
+                .andExpect(content().bytes(sample.getBytes()));
+        Mockito.verify(dataShareService).getDataFile("policyId", "subscriberId", "randomsharekey",
+                new DataShareRange(2, -1, "session", "entitytag"));
+        Mockito.verify(downloadLease).delivered(2);
+    }
+
+    @Test
+    @WithUserDetails("test")
+    public void testGetDataShareMultipleRangesServedInFull() throws Exception {
+        String sample = "Test";
+        DataShareGetResponse response = new DataShareGetResponse();
+        response.setFileBytes(sample.getBytes());
+        response.setSignature("signature");
+        Mockito.when(dataShareService.getDataFile(Mockito.anyString()))
+                .thenReturn(response);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/datashare/randomsharekey").header("Range", "bytes=0-1,3-")
+                .contentType(MediaType.ALL_VALUE)).andExpect(status().isOk());
+        Mockito.verify(dataShareService, Mockito.never()).getDataFile(Mockito.anyString(),
+                Mockito.any(DataShareRange.class));
+    }
+
+    @Test
+    @WithUserDetails("test")
+    public void testGetDataShareWithSendfile() throws Exception {
+        Path file = new File(getClass().getClassLoader().getResource("test.txt").getFile()).toPath();
+        DataShareGetResponse response = new DataShareGetResponse();
+        response.setFileStream(FileObjectInputStream.open(file, 0, -1));
+        response.setSignature("signature");
+        response.setLength(file.toFile().length());
+        Mockito.when(dataShareService.getDataFile(Mockito.anyString(), Mockito.anyString(), Mockito.anyString())
+        ).thenReturn(response);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/get/policyId/subscriberId/randomsharekey")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE)
+                        .contentType(MediaType.ALL_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename",
+                        file.toAbsolutePath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 0L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", file.toFile().length()))
+                .andExpect(header().string("Content-Length", String.valueOf(file.toFile().length())));
+    }
+
+    @Test
+    @WithUserDetails("test")
+    public void testGetDataShareFileWithoutSendfile() throws Exception {
+        Path file = new File(getClass().getClassLoader().getResource("test.txt").getFile()).toPath();
+        DataShareGetResponse response = new DataShareGetResponse();
+        response.setFileStream(FileObjectInputStream.open(file, 0, -1));
+        response.setSignature("signature");
+        Mockito.when(dataShareService.getDataFile(Mockito.anyString(), Mockito.anyString(), Mockito.anyString())
+        ).thenReturn(response);
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/get/policyId/subscriberId/randomsharekey")
+                        .contentType(MediaType.ALL_VALUE))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk())
+                .andExpect(content().bytes(Files.readAllBytes(file)));
+    }
+
 }
@@ -0,0 +1,286 @@
+package io.mosip.datashare.test.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.services.s3.model.S3Object;
+
+import io.mosip.commons.khazana.exception.ObjectStoreAdapterException;
+import io.mosip.commons.khazana.impl.S3Adapter;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.objectstore.DataShareS3Adapter;
+import io.mosip.datashare.objectstore.ObjectWithMetadata;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.net.ssl.*" })
+public class DataShareS3AdapterTest {
+
+	@Mock
+	private AmazonS3 amazonS3;
+
+	private DataShareS3Adapter adapter;
+
+	@Before
+	public void setUp() {
+		adapter = new DataShareS3Adapter();
+		setS3AdapterField("connection", amazonS3);
+		Mockito.when(amazonS3.doesBucketExistV2(Mockito.anyString())).thenReturn(true);
+	}
+
+	@After
+	public void tearDown() {
+		ReflectionTestUtils.invokeMethod(adapter, "shutdownPartUpload");
+	}
+
+	@Test
+	public void getObjectWithMetadataTest() {
+		S3Object s3Object = new S3Object();
+		ObjectMetadata objectMetadata = new ObjectMetadata();
+		objectMetadata.setUserMetadata(Collections.singletonMap("transactionsallowed", "2"));
+		s3Object.setObjectMetadata(objectMetadata);
+		Mockito.when(amazonS3.getObject(getObjectRequest("policyId", "shareKey"))).thenReturn(s3Object);
+
+		ObjectWithMetadata object = adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey");
+		assertEquals("2", object.getMetadata().get("transactionsallowed"));
+	}
+
+	@Test
+	public void getObjectWithMetadataAccountAsBucketTest() {
+		ReflectionTestUtils.setField(adapter, "useAccountAsBucketname", true);
+		S3Object s3Object = new S3Object();
+		s3Object.setObjectMetadata(new ObjectMetadata());
+		Mockito.when(amazonS3.getObject(getObjectRequest("subscriberId", "policyId/shareKey"))).thenReturn(s3Object);
+
+		adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey");
+		Mockito.verify(amazonS3).getObject(getObjectRequest("subscriberId", "policyId/shareKey"));
+	}
+
+	@Test
+	public void getObjectWithMetadataNotFoundTest() {
+		AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+		notFound.setStatusCode(404);
+		Mockito.when(amazonS3.getObject(getObjectRequest("policyId", "shareKey"))).thenThrow(notFound);
+		assertNull(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey"));
+	}
+
+	@Test(expected = ObjectStoreAdapterException.class)
+	public void getObjectWithMetadataFailureTest() {
+		AmazonS3Exception failure = new AmazonS3Exception("Internal Error");
+		failure.setStatusCode(500);
+		Mockito.when(amazonS3.getObject(getObjectRequest("policyId", "shareKey"))).thenThrow(failure);
+		adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey");
+	}
+
+	@Test
+	public void putObjectWithMetadataTest() {
+		Mockito.when(amazonS3.doesBucketExistV2("policyId")).thenReturn(false);
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("transactionsallowed", "2");
+		metadata.put("policypublishdate", null);
+		byte[] data = "data".getBytes();
+
+		assertTrue(adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey",
+				new ByteArrayInputStream(data), data.length, metadata));
+		adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey2",
+				new ByteArrayInputStream(data), data.length, metadata);
+
+		ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+		Mockito.verify(amazonS3, Mockito.times(2)).putObject(captor.capture());
+		PutObjectRequest request = captor.getAllValues().get(0);
+		assertEquals("policyId", request.getBucketName());
+		assertEquals("shareKey", request.getKey());
+		assertEquals(data.length, request.getMetadata().getContentLength());
+		assertEquals(Collections.singletonMap("transactionsallowed", "2"), request.getMetadata().getUserMetadata());
+		Mockito.verify(amazonS3, Mockito.times(1)).createBucket("policyId");
+	}
+
+	@Test
+	public void putObjectWithLengthTest() {
+		byte[] data = "data".getBytes();
+		assertTrue(adapter.putObject("subscriberId", "policyId", null, null, "shareKey",
+				new ByteArrayInputStream(data), data.length));
+
+		ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+		Mockito.verify(amazonS3).putObject(captor.capture());
+		assertEquals("shareKey", captor.getValue().getKey());
+		assertEquals(data.length, captor.getValue().getMetadata().getContentLength());
+		assertTrue(captor.getValue().getMetadata().getUserMetadata().isEmpty());
+	}
+
+	@Test
+	public void putObjectInPartsTest() {
+		enableMultipart();
+		InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+		initiated.setUploadId("uploadId");
+		Mockito.when(amazonS3.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+				.thenReturn(initiated);
+		Mockito.when(amazonS3.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(invocation -> {
+			UploadPartRequest request = invocation.getArgument(0);
+			UploadPartResult result = new UploadPartResult();
+			result.setPartNumber(request.getPartNumber());
+			result.setETag("etag" + request.getPartNumber());
+			return result;
+		});
+		byte[] data = new byte[25];
+
+		assertTrue(adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey",
+				new ByteArrayInputStream(data), data.length, Collections.singletonMap("transactionsallowed", "2")));
+
+		Mockito.verify(amazonS3, Mockito.times(3)).uploadPart(Mockito.any(UploadPartRequest.class));
+		ArgumentCaptor<CompleteMultipartUploadRequest> captor = ArgumentCaptor
+				.forClass(CompleteMultipartUploadRequest.class);
+		Mockito.verify(amazonS3).completeMultipartUpload(captor.capture());
+		assertEquals(3, captor.getValue().getPartETags().size());
+		assertEquals("uploadId", captor.getValue().getUploadId());
+		Mockito.verify(amazonS3, Mockito.never()).putObject(Mockito.any(PutObjectRequest.class));
+	}
+
+	@Test
+	public void putObjectInPartsAbortTest() {
+		enableMultipart();
+		InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+		initiated.setUploadId("uploadId");
+		Mockito.when(amazonS3.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+				.thenReturn(initiated);
+		Mockito.when(amazonS3.uploadPart(Mockito.any(UploadPartRequest.class)))
+				.thenThrow(new AmazonS3Exception("Internal Error"));
+		byte[] data = new byte[25];
+		try {
+			adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey",
+					new ByteArrayInputStream(data), data.length, Collections.emptyMap());
+			fail();
+		} catch (ObjectStoreAdapterException e) {
+			Mockito.verify(amazonS3).abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+			Mockito.verify(amazonS3, Mockito.never()).completeMultipartUpload(Mockito.any());
+		}
+	}
+
+	@Test
+	public void putObjectBelowThresholdTest() {
+		enableMultipart();
+		byte[] data = new byte[5];
+		adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey",
+				new ByteArrayInputStream(data), data.length, Collections.emptyMap());
+		Mockito.verify(amazonS3).putObject(Mockito.any(PutObjectRequest.class));
+		Mockito.verify(amazonS3, Mockito.never()).initiateMultipartUpload(Mockito.any());
+	}
+
+	@Test
+	public void getObjectRangeWithMetadataTest() {
+		S3Object s3Object = new S3Object();
+		ObjectMetadata objectMetadata = new ObjectMetadata();
+		objectMetadata.setHeader("Content-Range", "bytes 10-19/100");
+		s3Object.setObjectMetadata(objectMetadata);
+		Mockito.when(amazonS3.getObject(Mockito.any(GetObjectRequest.class))).thenReturn(s3Object);
+
+		ObjectWithMetadata object = adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey", 10, 19);
+		assertEquals(100, object.getLength());
+		ArgumentCaptor<GetObjectRequest> captor = ArgumentCaptor.forClass(GetObjectRequest.class);
+		Mockito.verify(amazonS3).getObject(captor.capture());
+		assertEquals(10, captor.getValue().getRange()[0]);
+		assertEquals(19, captor.getValue().getRange()[1]);
+	}
+
+	@Test(expected = DataShareRangeNotSatisfiableException.class)
+	public void getObjectRangeNotSatisfiableTest() {
+		AmazonS3Exception invalidRange = new AmazonS3Exception("Invalid Range");
+		invalidRange.setStatusCode(416);
+		Mockito.when(amazonS3.getObject(Mockito.any(GetObjectRequest.class))).thenThrow(invalidRange);
+		adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null, "shareKey", 200, -1);
+	}
+
+	@Test
+	public void objectKeyMatchesS3AdapterTest() {
+		assertSameKey(false, "subscriberId", "policyId", null, null, "shareKey");
+		assertSameKey(false, "subscriberId", "policyId", "source", "process", "shareKey");
+		assertSameKey(false, "subscriberId", "policyId", "", "process", "shareKey");
+	}
+
+	@Test
+	public void objectKeyMatchesS3AdapterAccountAsBucketTest() {
+		assertSameKey(true, "subscriberId", "policyId", null, null, "shareKey");
+		assertSameKey(true, "subscriberId", "policyId", "source", "process", "shareKey");
+		assertSameKey(true, "subscriberId", "policyId", "source", "", "shareKey");
+	}
+
+	/**
+	 * Reads the same object through the inherited {@link S3Adapter#getObject}
+	 * and through {@link DataShareS3Adapter#getObjectWithMetadata}, and checks
+	 * that both ask the store for the same bucket and key.
+	 */
+	private void assertSameKey(boolean useAccountAsBucketname, String account, String container, String source,
+			String process, String objectName) {
+		Mockito.reset(amazonS3);
+		setS3AdapterField("useAccountAsBucketname", useAccountAsBucketname);
+		ReflectionTestUtils.setField(adapter, "useAccountAsBucketname", useAccountAsBucketname);
+		S3Object s3Object = new S3Object();
+		s3Object.setObjectContent(new ByteArrayInputStream(new byte[0]));
+		s3Object.setObjectMetadata(new ObjectMetadata());
+		Mockito.when(amazonS3.getObject(Mockito.anyString(), Mockito.anyString())).thenReturn(s3Object);
+		Mockito.when(amazonS3.getObject(Mockito.any(GetObjectRequest.class))).thenReturn(s3Object);
+
+		adapter.getObject(account, container, source, process, objectName);
+		ArgumentCaptor<String> bucketName = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+		Mockito.verify(amazonS3).getObject(bucketName.capture(), key.capture());
+
+		adapter.getObjectWithMetadata(account, container, source, process, objectName);
+		ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+		Mockito.verify(amazonS3).getObject(request.capture());
+
+		assertEquals(bucketName.getValue(), request.getValue().getBucketName());
+		assertEquals(key.getValue(), request.getValue().getKey());
+	}
+
+	private void setS3AdapterField(String name, Object value) {
+		Field field = ReflectionUtils.findField(S3Adapter.class, name);
+		ReflectionUtils.makeAccessible(field);
+		ReflectionUtils.setField(field, adapter, value);
+	}
+
+	private static GetObjectRequest getObjectRequest(String bucketName, String key) {
+		return Mockito.argThat(request -> request != null && bucketName.equals(request.getBucketName())
+				&& key.equals(request.getKey()));
+	}
+
+	private void enableMultipart() {
+		ReflectionTestUtils.setField(adapter, "multipartEnabled", true);
+		ReflectionTestUtils.setField(adapter, "multipartThreshold", 20L);
+		ReflectionTestUtils.setField(adapter, "partSize", 10);
+		ReflectionTestUtils.setField(adapter, "multipartMaxThreads", 2);
+		ReflectionTestUtils.invokeMethod(adapter, "initPartUpload");
+	}
+}
@@ -0,0 +1,153 @@
+package io.mosip.datashare.test.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.objectstore.FileObjectInputStream;
+import io.mosip.datashare.objectstore.FileSystemAdapter;
+import io.mosip.datashare.objectstore.ObjectWithMetadata;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.net.ssl.*" })
+public class FileSystemAdapterTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File baseDirectory;
+
+	private FileSystemAdapter adapter;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDirectory = temporaryFolder.newFolder();
+		adapter = new FileSystemAdapter();
+		ReflectionTestUtils.setField(adapter, "baseDirectory", baseDirectory.getPath());
+	}
+
+	@Test
+	public void putAndGetObjectTest() throws IOException {
+		assertTrue(adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey",
+				stream("0123456789"), 10, Collections.singletonMap("transactionsallowed", "2")));
+
+		assertTrue(adapter.exists("subscriberId", "policyId", null, null, "shareKey"));
+		assertEquals("0123456789", read(adapter.getObject("subscriberId", "policyId", null, null, "shareKey")));
+		ObjectWithMetadata object = adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey");
+		assertTrue(object.getContent() instanceof FileObjectInputStream);
+		assertEquals("0123456789", read(object.getContent()));
+		assertEquals(10, object.getLength());
+		assertEquals("2", object.getMetadata().get("transactionsallowed"));
+	}
+
+	@Test
+	public void getMissingObjectTest() {
+		assertFalse(adapter.exists("subscriberId", "policyId", null, null, "shareKey"));
+		assertNull(adapter.getObject("subscriberId", "policyId", null, null, "shareKey"));
+		assertNull(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey"));
+		assertNull(adapter.getMetaData("subscriberId", "policyId", null, null, "shareKey"));
+	}
+
+	@Test
+	public void getObjectRangeTest() throws IOException {
+		adapter.putObject("subscriberId", "policyId", null, null, "shareKey", stream("0123456789"));
+
+		ObjectWithMetadata object = adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey", 2, 5);
+		FileObjectInputStream content = (FileObjectInputStream) object.getContent();
+		assertEquals(2, content.getPosition());
+		assertEquals(6, content.getEnd());
+		assertEquals("2345", read(content));
+		assertEquals(10, object.getLength());
+		assertEquals("89", read(adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey", 8, -1).getContent()));
+	}
+
+	@Test(expected = DataShareRangeNotSatisfiableException.class)
+	public void getObjectRangeNotSatisfiableTest() throws IOException {
+		adapter.putObject("subscriberId", "policyId", null, null, "shareKey", stream("0123456789"));
+		adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null, "shareKey", 10, -1);
+	}
+
+	@Test
+	public void readRangeTest() throws IOException {
+		adapter.putObject("subscriberId", "policyId", null, null, "shareKey", stream("0123456789"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream content = adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey", 3, 7).getContent()) {
+			assertEquals(5, content.transferTo(out));
+		}
+		assertEquals("34567", out.toString(StandardCharsets.UTF_8.name()));
+	}
+
+	@Test
+	public void addObjectMetaDataTest() {
+		adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey", stream("data"), 4,
+				Collections.singletonMap("transactionsallowed", "2"));
+
+		Map<String, Object> metadata = adapter.addObjectMetaData("subscriberId", "policyId", null, null,
+				"shareKey", Collections.singletonMap("transactionsallowed", "1"));
+
+		assertEquals("1", metadata.get("transactionsallowed"));
+		assertEquals("1", adapter.getMetaData("subscriberId", "policyId", null, null, "shareKey")
+				.get("transactionsallowed"));
+	}
+
+	@Test
+	public void deleteObjectTest() {
+		adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey", stream("data"), 4,
+				Collections.singletonMap("transactionsallowed", "2"));
+
+		assertTrue(adapter.deleteObject("subscriberId", "policyId", null, null, "shareKey"));
+
+		assertFalse(adapter.exists("subscriberId", "policyId", null, null, "shareKey"));
+		assertNull(adapter.getMetaData("subscriberId", "policyId", null, null, "shareKey"));
+	}
+
+	@Test
+	public void namesStayInBaseDirectoryTest() throws IOException {
+		adapter.putObject("..", "../policyId", null, null, "../../shareKey", stream("data"));
+
+		assertEquals("data", read(adapter.getObject("..", "../policyId", null, null, "../../shareKey")));
+		try (Stream<Path> files = Files.walk(baseDirectory.toPath())) {
+			assertTrue(files.allMatch(file -> file.normalize().startsWith(baseDirectory.toPath())));
+		}
+		assertEquals(1, baseDirectory.listFiles().length);
+	}
+
+	private static InputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String read(InputStream in) throws IOException {
+		try (InputStream content = in) {
+			return IOUtils.toString(content, StandardCharsets.UTF_8);
+		}
+	}
+}
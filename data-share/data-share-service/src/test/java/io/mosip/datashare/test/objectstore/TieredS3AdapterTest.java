@@ -0,0 +1,200 @@
+package io.mosip.datashare.test.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+import io.mosip.commons.khazana.impl.S3Adapter;
+import io.mosip.datashare.exception.DataShareRangeNotSatisfiableException;
+import io.mosip.datashare.objectstore.ObjectWithMetadata;
+import io.mosip.datashare.objectstore.TieredS3Adapter;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.net.ssl.*" })
+public class TieredS3AdapterTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock
+	private AmazonS3 amazonS3;
+
+	private TieredS3Adapter adapter;
+
+	@Before
+	public void setUp() throws IOException {
+		adapter = new TieredS3Adapter();
+		ReflectionTestUtils.setField(adapter, "directory", temporaryFolder.newFolder().getPath());
+		ReflectionTestUtils.setField(adapter, "maxBytes", 24L);
+		ReflectionTestUtils.setField(adapter, "maxObjectBytes", 16L);
+		ReflectionTestUtils.invokeMethod(adapter, "initLocalTier");
+		Mockito.when(amazonS3.doesBucketExistV2(Mockito.anyString())).thenReturn(true);
+		/* All requests go through the client of the khazana adapter */
+		Field connection = ReflectionUtils.findField(S3Adapter.class, "connection");
+		ReflectionUtils.makeAccessible(connection);
+		ReflectionUtils.setField(connection, adapter, amazonS3);
+		ObjectMetadata objectMetadata = new ObjectMetadata();
+		objectMetadata.setUserMetadata(Collections.singletonMap("transactionsallowed", "1"));
+		Mockito.when(amazonS3.getObjectMetadata(Mockito.eq("policyId"), Mockito.anyString()))
+				.thenReturn(objectMetadata);
+	}
+
+	@Test
+	public void getObjectFromLocalCopyTest() throws IOException {
+		put("shareKey", "0123456789");
+		Mockito.verify(amazonS3).putObject(Mockito.argThat((PutObjectRequest request) -> "shareKey"
+				.equals(request.getKey()) && request.getMetadata().getContentLength() == 10));
+
+		assertEquals("0123456789", read(adapter.getObject("subscriberId", "policyId", null, null, "shareKey")));
+		ObjectWithMetadata object = adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey");
+		assertEquals("0123456789", read(object.getContent()));
+		assertEquals(10, object.getLength());
+		/* The count may have been spent through another instance, so the metadata is read from S3 */
+		assertEquals("1", object.getMetadata().get("transactionsallowed"));
+		Mockito.verify(amazonS3, Mockito.never()).getObject(Mockito.any(GetObjectRequest.class));
+		Mockito.verify(amazonS3).getObjectMetadata("policyId", "shareKey");
+	}
+
+	@Test
+	public void keptMetadataServedWithUsageCounterTest() throws IOException {
+		ReflectionTestUtils.setField(adapter, "usageCounterEnabled", true);
+		put("shareKey", "0123456789");
+		ObjectWithMetadata object = adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey");
+		assertEquals("0123456789", read(object.getContent()));
+		assertEquals("2", object.getMetadata().get("transactionsallowed"));
+		assertEquals("2", adapter.getMetaData("subscriberId", "policyId", null, null, "shareKey")
+				.get("transactionsallowed"));
+		Mockito.verify(amazonS3, Mockito.never()).getObjectMetadata(Mockito.anyString(), Mockito.anyString());
+	}
+
+	@Test
+	public void updatedMetadataServedFromLocalCopyTest() throws IOException {
+		ReflectionTestUtils.setField(adapter, "usageCounterEnabled", true);
+		put("shareKey", "0123456789");
+		S3Object s3Object = new S3Object();
+		ObjectMetadata objectMetadata = new ObjectMetadata();
+		objectMetadata.setUserMetadata(Collections.singletonMap("transactionsallowed", "2"));
+		s3Object.setObjectMetadata(objectMetadata);
+		s3Object.setObjectContent(new ByteArrayInputStream("0123456789".getBytes()));
+		Mockito.when(amazonS3.getObject("policyId", "shareKey")).thenReturn(s3Object);
+
+		adapter.addObjectMetaData("subscriberId", "policyId", null, null, "shareKey",
+				Collections.singletonMap("transactionsallowed", "1"));
+		assertEquals("1", adapter.getMetaData("subscriberId", "policyId", null, null, "shareKey")
+				.get("transactionsallowed"));
+		ObjectWithMetadata object = adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey");
+		assertEquals("0123456789", read(object.getContent()));
+		assertEquals("1", object.getMetadata().get("transactionsallowed"));
+		Mockito.verify(amazonS3, Mockito.never()).getObject(Mockito.any(GetObjectRequest.class));
+		Mockito.verify(amazonS3, Mockito.never()).getObjectMetadata(Mockito.anyString(), Mockito.anyString());
+	}
+
+	@Test
+	public void getObjectRangeFromLocalCopyTest() throws IOException {
+		put("shareKey", "0123456789");
+		ObjectWithMetadata object = adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey", 2, 5);
+		assertEquals("2345", read(object.getContent()));
+		assertEquals(10, object.getLength());
+		assertEquals("89", read(adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey", 8, -1).getContent()));
+	}
+
+	@Test(expected = DataShareRangeNotSatisfiableException.class)
+	public void getObjectRangeNotSatisfiableTest() throws IOException {
+		put("shareKey", "0123456789");
+		adapter.getObjectRangeWithMetadata("subscriberId", "policyId", null, null, "shareKey", 10, -1);
+	}
+
+	@Test
+	public void leastRecentlyUsedEvictedTest() throws IOException {
+		put("first", "0123456789");
+		put("second", "0123456789");
+		read(adapter.getObject("subscriberId", "policyId", null, null, "first"));
+		put("third", "0123456789");
+		mockRemoteObject("second");
+
+		assertEquals("remote", read(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "second")
+				.getContent()));
+		assertEquals("0123456789", read(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"first").getContent()));
+		Mockito.verify(amazonS3, Mockito.times(1)).getObject(Mockito.any(GetObjectRequest.class));
+	}
+
+	@Test
+	public void largeObjectNotKeptTest() throws IOException {
+		put("shareKey", "01234567890123456789");
+		mockRemoteObject("shareKey");
+		assertEquals("remote", read(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey").getContent()));
+	}
+
+	@Test
+	public void deletedThroughAnotherInstanceNotServedTest() throws IOException {
+		put("shareKey", "0123456789");
+		AmazonS3Exception notFound = new AmazonS3Exception("Not Found");
+		notFound.setStatusCode(404);
+		Mockito.when(amazonS3.getObjectMetadata("policyId", "shareKey")).thenThrow(notFound);
+		mockRemoteObject("shareKey");
+		assertEquals("remote", read(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey").getContent()));
+	}
+
+	@Test
+	public void deletedObjectNotServedTest() throws IOException {
+		put("shareKey", "0123456789");
+		adapter.deleteObject("subscriberId", "policyId", null, null, "shareKey");
+		mockRemoteObject("shareKey");
+		assertEquals("remote", read(adapter.getObjectWithMetadata("subscriberId", "policyId", null, null,
+				"shareKey").getContent()));
+	}
+
+	private void put(String shareKey, String content) {
+		byte[] data = content.getBytes();
+		assertTrue(adapter.putObjectWithMetadata("subscriberId", "policyId", null, null, shareKey,
+				new ByteArrayInputStream(data), -1, Collections.singletonMap("transactionsallowed", "2")));
+	}
+
+	private void mockRemoteObject(String shareKey) {
+		S3Object s3Object = new S3Object();
+		s3Object.setObjectMetadata(new ObjectMetadata());
+		s3Object.setObjectContent(new ByteArrayInputStream("remote".getBytes()));
+		Mockito.when(amazonS3.getObject(Mockito.argThat((GetObjectRequest request) -> request != null
+				&& shareKey.equals(request.getKey())))).thenReturn(s3Object);
+	}
+
+	private static String read(InputStream in) throws IOException {
+		try (InputStream content = in) {
+			return new String(IOUtils.toByteArray(content));
+		}
+	}
+}
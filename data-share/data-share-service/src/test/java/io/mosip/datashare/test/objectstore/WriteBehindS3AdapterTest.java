@@ -0,0 +1,205 @@
+package io.mosip.datashare.test.objectstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.commons.khazana.impl.S3Adapter;
+import io.mosip.datashare.objectstore.ObjectWithMetadata;
+import io.mosip.datashare.objectstore.WriteBehindS3Adapter;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.net.ssl.*" })
+public class WriteBehindS3AdapterTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock
+	private AmazonS3 amazonS3;
+
+	private File spoolDirectory;
+
+	private WriteBehindS3Adapter adapter;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	@Before
+	public void setUp() throws IOException {
+		spoolDirectory = temporaryFolder.newFolder();
+		meterRegistry = new SimpleMeterRegistry();
+		Mockito.when(amazonS3.doesBucketExistV2(Mockito.anyString())).thenReturn(true);
+		adapter = createAdapter(amazonS3, 10L);
+	}
+
+	@After
+	public void tearDown() {
+		ReflectionTestUtils.invokeMethod(adapter, "shutdownSpool");
+	}
+
+	@Test
+	public void spooledObjectServedUntilUploadedTest() throws Exception {
+		CountDownLatch uploadStarted = new CountDownLatch(1);
+		CountDownLatch releaseUpload = new CountDownLatch(1);
+		Mockito.when(amazonS3.putObject(Mockito.any(PutObjectRequest.class))).thenAnswer(invocation -> {
+			uploadStarted.countDown();
+			releaseUpload.await(5, TimeUnit.SECONDS);
+			return null;
+		});
+		assertTrue(put(adapter, "shareKey", "data"));
+		assertTrue(uploadStarted.await(5, TimeUnit.SECONDS));
+
+		ObjectWithMetadata object = adapter.getObjectWithMetadata("subscriberId", "policyId", null, null, "shareKey");
+		assertEquals("data", read(object.getContent()));
+		assertEquals(4, object.getLength());
+		assertEquals("2", object.getMetadata().get("transactionsallowed"));
+
+		releaseUpload.countDown();
+		awaitEmptySpool();
+		Mockito.verify(amazonS3, Mockito.never()).getObject(Mockito.any(GetObjectRequest.class));
+	}
+
+	@Test
+	public void failedUploadRetriedTest() throws Exception {
+		Mockito.when(amazonS3.putObject(Mockito.any(PutObjectRequest.class)))
+				.thenThrow(new SdkClientException("Unable to execute HTTP request")).thenReturn(null);
+		put(adapter, "shareKey", "data");
+		Mockito.verify(amazonS3, Mockito.timeout(5000).times(2)).putObject(Mockito.any(PutObjectRequest.class));
+		awaitEmptySpool();
+	}
+
+	@Test
+	public void uploadFailedAfterMaxAttemptsTest() throws Exception {
+		ReflectionTestUtils.setField(adapter, "maxAttempts", 2);
+		Mockito.when(amazonS3.putObject(Mockito.any(PutObjectRequest.class)))
+				.thenThrow(new SdkClientException("Unable to execute HTTP request"));
+		put(adapter, "shareKey", "data");
+		Mockito.verify(amazonS3, Mockito.timeout(5000).times(2)).putObject(Mockito.any(PutObjectRequest.class));
+
+		File failedDirectory = new File(spoolDirectory, "failed");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (meterRegistry.get("datashare.spool.upload.failed").counter().count() < 1
+				&& System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(1, meterRegistry.get("datashare.spool.upload.failed").counter().count(), 0);
+		assertEquals(2, failedDirectory.list().length);
+		assertEquals(0, meterRegistry.get("datashare.spool.bytes").gauge().value(), 0);
+		Thread.sleep(50);
+		Mockito.verify(amazonS3, Mockito.times(2)).putObject(Mockito.any(PutObjectRequest.class));
+	}
+
+	@Test
+	public void fullSpoolWritesDirectlyTest() {
+		ReflectionTestUtils.setField(adapter, "maxBytes", 4L);
+		Mockito.when(amazonS3.putObject(Mockito.any(PutObjectRequest.class))).thenReturn(null);
+		assertTrue(put(adapter, "shareKey", "12345"));
+		Mockito.verify(amazonS3).putObject(Mockito.any(PutObjectRequest.class));
+		assertFalse(new File(spoolDirectory, "failed").exists());
+		assertEquals(0, meterRegistry.get("datashare.spool.bytes").gauge().value(), 0);
+	}
+
+	@Test
+	public void metadataUpdateOfSpooledObjectTest() {
+		ReflectionTestUtils.invokeMethod(adapter, "shutdownSpool");
+		adapter = createAdapter(amazonS3, 60000L);
+		Mockito.when(amazonS3.putObject(Mockito.any(PutObjectRequest.class)))
+				.thenThrow(new SdkClientException("Unable to execute HTTP request"));
+		put(adapter, "shareKey", "data");
+		Mockito.verify(amazonS3, Mockito.timeout(5000)).putObject(Mockito.any(PutObjectRequest.class));
+
+		Map<String, Object> metadata = new HashMap<>();
+		metadata.put("transactionsallowed", 1);
+		adapter.addObjectMetaData("subscriberId", "policyId", null, null, "shareKey", metadata);
+		assertEquals("1", adapter.getMetaData("subscriberId", "policyId", null, null, "shareKey")
+				.get("transactionsallowed"));
+	}
+
+	@Test
+	public void pendingUploadsRecoveredOnStartTest() {
+		ReflectionTestUtils.invokeMethod(adapter, "shutdownSpool");
+		adapter = createAdapter(amazonS3, 60000L);
+		Mockito.when(amazonS3.putObject(Mockito.any(PutObjectRequest.class)))
+				.thenThrow(new SdkClientException("Unable to execute HTTP request"));
+		put(adapter, "shareKey", "data");
+		Mockito.verify(amazonS3, Mockito.timeout(5000)).putObject(Mockito.any(PutObjectRequest.class));
+		ReflectionTestUtils.invokeMethod(adapter, "shutdownSpool");
+
+		AmazonS3 recoveredS3 = Mockito.mock(AmazonS3.class);
+		Mockito.when(recoveredS3.doesBucketExistV2(Mockito.anyString())).thenReturn(true);
+		adapter = createAdapter(recoveredS3, 10L);
+		ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+		Mockito.verify(recoveredS3, Mockito.timeout(5000)).putObject(captor.capture());
+		assertEquals("policyId", captor.getValue().getBucketName());
+		assertEquals("shareKey", captor.getValue().getKey());
+		assertEquals(4, captor.getValue().getMetadata().getContentLength());
+		assertEquals("2", captor.getValue().getMetadata().getUserMetadata().get("transactionsallowed"));
+	}
+
+	private WriteBehindS3Adapter createAdapter(AmazonS3 s3Client, long retryInitialDelayMillis) {
+		WriteBehindS3Adapter writeBehindAdapter = new WriteBehindS3Adapter();
+		Field connection = ReflectionUtils.findField(S3Adapter.class, "connection");
+		ReflectionUtils.makeAccessible(connection);
+		ReflectionUtils.setField(connection, writeBehindAdapter, s3Client);
+		ReflectionTestUtils.setField(writeBehindAdapter, "directory", spoolDirectory.getPath());
+		ReflectionTestUtils.setField(writeBehindAdapter, "maxBytes", 1024L);
+		ReflectionTestUtils.setField(writeBehindAdapter, "uploadThreads", 1);
+		ReflectionTestUtils.setField(writeBehindAdapter, "retryInitialDelayMillis", retryInitialDelayMillis);
+		ReflectionTestUtils.setField(writeBehindAdapter, "retryMaxDelayMillis", retryInitialDelayMillis);
+		ReflectionTestUtils.setField(writeBehindAdapter, "maxAttempts", 20);
+		ReflectionTestUtils.setField(writeBehindAdapter, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.invokeMethod(writeBehindAdapter, "initSpool");
+		return writeBehindAdapter;
+	}
+
+	private static boolean put(WriteBehindS3Adapter writeBehindAdapter, String shareKey, String content) {
+		byte[] data = content.getBytes();
+		return writeBehindAdapter.putObjectWithMetadata("subscriberId", "policyId", null, null, shareKey,
+				new ByteArrayInputStream(data), data.length, Collections.singletonMap("transactionsallowed", "2"));
+	}
+
+	private void awaitEmptySpool() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (spoolDirectory.list().length > 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10);
+		assertEquals(0, spoolDirectory.list().length);
+	}
+
+	private static String read(InputStream in) throws IOException {
+		try (InputStream content = in) {
+			return new String(IOUtils.toByteArray(content));
+		}
+	}
+}
@@ -3,14 +3,23 @@ package io.mosip.datashare.test.service.impl;
 import static io.mosip.commons.khazana.constant.KhazanaErrorCodes.OBJECT_STORE_NOT_ACCESSIBLE;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import io.mosip.commons.khazana.exception.ObjectStoreAdapterException;
 import io.mosip.datashare.exception.PolicyException;
@@ -33,16 +42,31 @@ import org.springframework.test.util.ReflectionTestUtils;
 import io.mosip.commons.khazana.spi.ObjectStoreAdapter;
 import io.mosip.datashare.dto.DataShare;
 import io.mosip.datashare.dto.DataShareDto;
+import io.mosip.datashare.dto.DataShareGetResponse;
+import io.mosip.datashare.dto.DataShareRange;
 import io.mosip.datashare.dto.PolicyAttributesDto;
 import io.mosip.datashare.dto.PolicyResponseDto;
+import io.mosip.datashare.entity.ShareRecordEntity;
+import io.mosip.datashare.exception.ApiNotAccessibleException;
 import io.mosip.datashare.exception.DataShareExpiredException;
+import io.mosip.datashare.objectstore.MetadataAwareObjectStore;
+import io.mosip.datashare.objectstore.ObjectWithMetadata;
 import io.mosip.datashare.exception.DataShareNotFoundException;
 import io.mosip.datashare.exception.FileException;
+import io.mosip.datashare.exception.SignatureException;
 import io.mosip.datashare.service.impl.DataShareServiceImpl;
 import io.mosip.datashare.util.CacheUtil;
 import io.mosip.datashare.util.DigitalSignatureUtil;
 import io.mosip.datashare.util.EncryptionUtil;
+import io.mosip.datashare.util.HotObjectCacheUtil;
+import io.mosip.datashare.util.HotObjectCacheUtil.HotObject;
 import io.mosip.datashare.util.PolicyUtil;
+import io.mosip.datashare.util.DownloadSessionUtil;
+import io.mosip.datashare.util.DownloadSessionUtil.DownloadLease;
+import io.mosip.datashare.util.ShareRecordUtil;
+import io.mosip.datashare.util.ShortUrlTokenUtil;
+import io.mosip.datashare.util.UsageCounterUtil;
+import io.mosip.datashare.util.UsageCounterUtil.Consumption;
 import io.mosip.kernel.core.util.CryptoUtil;
 
 @RunWith(PowerMockRunner.class)
@@ -62,6 +86,21 @@ public class DataShareServiceImplTest {
 	@Mock
 	private CacheUtil cacheUtil;
 
+	@Mock
+	private ShortUrlTokenUtil shortUrlTokenUtil;
+
+	@Mock
+	private UsageCounterUtil usageCounterUtil;
+
+	@Mock
+	private ShareRecordUtil shareRecordUtil;
+
+	@Mock
+	private DownloadSessionUtil downloadSessionUtil;
+
+	@Mock
+	private HotObjectCacheUtil hotObjectCacheUtil;
+
 	/** The env. */
 	@Mock
 	private Environment env;
@@ -166,6 +205,482 @@ public class DataShareServiceImplTest {
 		assertEquals("Data Share created successfully", POLICY_ID, dataShare.getPolicyId());
 	}
 
+	@Test
+	public void createDataShareStreamsWithoutEncryptionTest() {
+		policyResponseDto.getPolicies().getDataSharePolicies().setEncryptionType("none");
+		DataShare dataShare = dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(encryptionUtil, Mockito.never()).encryptData(Mockito.any(), Mockito.anyString());
+		Mockito.verify(digitalSignatureUtil, Mockito.never()).jwtSign(Mockito.any(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+		Mockito.verify(digitalSignatureUtil).jwtSignDigest(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString());
+		assertEquals("Data Share created successfully", POLICY_ID, dataShare.getPolicyId());
+	}
+
+	@Test
+	public void createDataShareEncryptsAndSignsConcurrentlyTest() {
+		enableParallelCrypto();
+		try {
+			DataShare dataShare = dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+			assertEquals("Data Share created successfully", POLICY_ID, dataShare.getPolicyId());
+			Mockito.verify(encryptionUtil).encryptData(Mockito.any(), Mockito.anyString());
+			Mockito.verify(digitalSignatureUtil).jwtSign(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+					Mockito.anyString(), Mockito.anyString());
+		} finally {
+			ReflectionTestUtils.invokeMethod(dataShareServiceImpl, "shutdown");
+		}
+	}
+
+	@Test(expected = SignatureException.class)
+	public void createDataShareConcurrentSigningFailureTest() {
+		enableParallelCrypto();
+		Mockito.when(digitalSignatureUtil.jwtSign(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString())).thenThrow(new SignatureException());
+		try {
+			dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		} finally {
+			ReflectionTestUtils.invokeMethod(dataShareServiceImpl, "shutdown");
+		}
+	}
+
+	@Test
+	public void createDataShareConcurrentTimeoutInterruptsCallTest() throws Exception {
+		enableParallelCrypto();
+		ReflectionTestUtils.setField(dataShareServiceImpl, "parallelCryptoTimeoutMillis", 100L);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Mockito.when(encryptionUtil.encryptData(Mockito.any(), Mockito.anyString())).thenAnswer(invocation -> {
+			try {
+				Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return dataBytes;
+		});
+		try {
+			dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		} catch (ApiNotAccessibleException e) {
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+			return;
+		} finally {
+			ReflectionTestUtils.invokeMethod(dataShareServiceImpl, "shutdown");
+		}
+		throw new AssertionError("Timeout not reported");
+	}
+
+	@Test
+	public void createDataShareAsyncCryptoTest() {
+		ReflectionTestUtils.setField(dataShareServiceImpl, "asyncCryptoEnabled", true);
+		enableParallelCrypto();
+		Mockito.when(encryptionUtil.encryptDataAsync(Mockito.any(), Mockito.anyString()))
+				.thenReturn(CompletableFuture.completedFuture(dataBytes));
+		Mockito.when(digitalSignatureUtil.jwtSignAsync(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString())).thenReturn(CompletableFuture.completedFuture("signature"));
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		assertNull(ReflectionTestUtils.getField(dataShareServiceImpl, "cryptoExecutor"));
+		Mockito.verify(encryptionUtil, Mockito.never()).encryptData(Mockito.any(), Mockito.anyString());
+		Mockito.verify(digitalSignatureUtil, Mockito.never()).jwtSign(Mockito.any(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+		Mockito.verify(objectStoreAdapter).addObjectMetaData(Mockito.anyString(), Mockito.anyString(), Mockito.any(),
+				Mockito.any(), Mockito.anyString(),
+				Mockito.argThat(metadata -> "signature".equals(metadata.get("signature"))));
+	}
+
+	@Test
+	public void createDataShareAsyncSigningFailureCancelsEncryptionTest() {
+		ReflectionTestUtils.setField(dataShareServiceImpl, "asyncCryptoEnabled", true);
+		enableParallelCrypto();
+		CompletableFuture<byte[]> encryption = new CompletableFuture<>();
+		Mockito.when(encryptionUtil.encryptDataAsync(Mockito.any(), Mockito.anyString())).thenReturn(encryption);
+		Mockito.when(digitalSignatureUtil.jwtSignAsync(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString()))
+				.thenReturn(CompletableFuture.failedFuture(new SignatureException()));
+		try {
+			dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		} catch (SignatureException e) {
+			assertTrue(encryption.isCancelled());
+			return;
+		}
+		throw new AssertionError("Signing failure not reported");
+	}
+
+	private void enableParallelCrypto() {
+		ReflectionTestUtils.setField(dataShareServiceImpl, "parallelCryptoEnabled", true);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "parallelCryptoMaxThreads", 2);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "parallelCryptoTimeoutMillis", 5000L);
+		ReflectionTestUtils.invokeMethod(dataShareServiceImpl, "init");
+	}
+
+	@Test
+	public void createDataShareRegistersUsageCounterTest() {
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(usageCounterUtil).register(Mockito.startsWith(SUBSCRIBER_ID + POLICY_ID), Mockito.eq(2));
+	}
+
+	@Test
+	public void createDataShareHashPrefixedKeyTest() {
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "keyLayout", "hash-prefixed");
+		ReflectionTestUtils.setField(dataShareServiceImpl, "keyHashPrefixLength", 4);
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(usageCounterUtil).register(Mockito.matches("^[0-9a-f]{4}" + SUBSCRIBER_ID + POLICY_ID + ".*"),
+				Mockito.eq(2));
+	}
+
+	@Test
+	public void createDataShareBucketedKeyTest() {
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "keyLayout", "bucketed");
+		ReflectionTestUtils.setField(dataShareServiceImpl, "keyBuckets", 16);
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(usageCounterUtil).register(Mockito.matches("^[0-9a-f]" + SUBSCRIBER_ID + POLICY_ID + ".*"),
+				Mockito.eq(2));
+	}
+
+	@Test
+	public void getDataFileUsesUsageCounterTest() {
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.consume("12dfsdff")).thenReturn(Consumption.ALLOWED);
+		assertNotNull(dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff"));
+		Mockito.verify(objectStoreAdapter, Mockito.never()).addObjectMetaData(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+	}
+
+	@Test(expected = DataShareExpiredException.class)
+	public void getDataFileUsageCounterExhaustedTest() {
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.consume("12dfsdff")).thenReturn(Consumption.EXHAUSTED);
+		dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+	}
+
+	@Test(expected = DataShareExpiredException.class)
+	public void getDataFileCountedShareWithoutCounterTest() {
+		metaDataMap.put("usagecounted", "true");
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.consume("12dfsdff")).thenReturn(Consumption.UNTRACKED);
+		try {
+			dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		} finally {
+			Mockito.verify(objectStoreAdapter, Mockito.never()).addObjectMetaData(Mockito.anyString(),
+					Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+		}
+	}
+
+	@Test
+	public void createDataShareSavesShareRecordTest() {
+		Mockito.when(shareRecordUtil.isEnabled()).thenReturn(true);
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(shareRecordUtil).save(Mockito.argThat(shareRecord -> POLICY_ID.equals(shareRecord.getPolicyId())
+				&& SUBSCRIBER_ID.equals(shareRecord.getSubscriberId()) && shareRecord.getTransactionsAllowed() == 2
+				&& shareRecord.getExpiryDtimes().isAfter(shareRecord.getCrDtimes())));
+	}
+
+	@Test
+	public void getDataFileFromShareRecordTest() {
+		Mockito.when(shareRecordUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		Mockito.when(shareRecordUtil.find("12dfsdff")).thenReturn(createShareRecord(POLICY_ID, SUBSCRIBER_ID));
+		Mockito.when(usageCounterUtil.consume("12dfsdff")).thenReturn(Consumption.ALLOWED);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		assertEquals("signature", response.getSignature());
+		Mockito.verify(objectStoreAdapter, Mockito.never()).getMetaData(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString());
+	}
+
+	@Test(expected = DataShareNotFoundException.class)
+	public void getDataFileShareRecordSubscriberMismatchTest() {
+		Mockito.when(shareRecordUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		Mockito.when(shareRecordUtil.find("12dfsdff")).thenReturn(createShareRecord(POLICY_ID, "othersubscriber"));
+		dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+	}
+
+	@Test(expected = DataShareExpiredException.class)
+	public void getDataFileExpiredShareRecordTest() {
+		Mockito.when(shareRecordUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+		ShareRecordEntity shareRecord = createShareRecord(POLICY_ID, SUBSCRIBER_ID);
+		shareRecord.setExpiryDtimes(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+		Mockito.when(shareRecordUtil.find("12dfsdff")).thenReturn(shareRecord);
+		try {
+			dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		} finally {
+			Mockito.verify(usageCounterUtil, Mockito.never()).consume(Mockito.anyString());
+		}
+	}
+
+	@Test(expected = DataShareExpiredException.class)
+	public void getDataFileExpiredMetadataTest() {
+		metaDataMap.put("expirydtimes", LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1).toString());
+		dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+	}
+
+	@Test
+	public void createDataShareStoresExpiryTest() {
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(objectStoreAdapter).addObjectMetaData(Mockito.anyString(), Mockito.anyString(), Mockito.any(),
+				Mockito.any(), Mockito.anyString(), Mockito.argThat(metadata -> LocalDateTime
+						.parse((String) metadata.get("expirydtimes")).isAfter(LocalDateTime.now(ZoneOffset.UTC))));
+	}
+
+	@Test
+	public void getDataFileSingleRequestTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		assertSame(inputStream, response.getFileStream());
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).getMetaData(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString());
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).getObject(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString());
+	}
+
+	@Test(expected = DataShareExpiredException.class)
+	public void getDataFileSingleRequestExhaustedTest() {
+		metaDataMap.put("transactionsallowed", "0");
+		mockMetadataAwareAdapter(metaDataMap);
+		dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+	}
+
+	@Test(expected = DataShareNotFoundException.class)
+	public void getDataFileSingleRequestNotFoundTest() {
+		mockMetadataAwareAdapter(null);
+		dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+	}
+
+	@Test
+	public void createDataShareSingleRequestTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "pipelinedStoreEnabled", true);
+		Mockito.when(((MetadataAwareObjectStore) metadataAwareAdapter).putObjectWithMetadata(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any(),
+				Mockito.anyLong(), Mockito.any())).thenReturn(true);
+		DataShare dataShare = dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		assertEquals("Data Share created successfully", POLICY_ID, dataShare.getPolicyId());
+		Mockito.verify((MetadataAwareObjectStore) metadataAwareAdapter).putObjectWithMetadata(Mockito.eq(SUBSCRIBER_ID),
+				Mockito.eq(POLICY_ID), Mockito.isNull(), Mockito.isNull(), Mockito.anyString(), Mockito.any(),
+				Mockito.eq((long) dataBytes.length), Mockito.argThat(metadata -> metadata.containsKey("signature")));
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).putObject(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).addObjectMetaData(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+	}
+
+	@Test
+	public void createDataShareSingleRequestWithoutEncryptionTest() {
+		policyResponseDto.getPolicies().getDataSharePolicies().setEncryptionType("none");
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "pipelinedStoreEnabled", true);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "isSignatureDisabled", true);
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify((MetadataAwareObjectStore) metadataAwareAdapter).putObjectWithMetadata(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any(),
+				Mockito.eq(multiPartFile.getSize()), Mockito.any());
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).addObjectMetaData(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+	}
+
+	@Test
+	public void createDataShareSignedSingleRequestWithoutEncryptionTest() {
+		policyResponseDto.getPolicies().getDataSharePolicies().setEncryptionType("none");
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "pipelinedStoreEnabled", true);
+		Mockito.when(digitalSignatureUtil.jwtSignDigest(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString())).thenReturn("signature");
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify(digitalSignatureUtil).jwtSignDigest(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString());
+		Mockito.verify((MetadataAwareObjectStore) metadataAwareAdapter).putObjectWithMetadata(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any(),
+				Mockito.eq(multiPartFile.getSize()),
+				Mockito.argThat(metadata -> "signature".equals(metadata.get("signature"))));
+		Mockito.verify((MetadataAwareObjectStore) metadataAwareAdapter, Mockito.never()).putObject(
+				Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(),
+				Mockito.any(), Mockito.anyLong());
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).addObjectMetaData(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+	}
+
+	@Test
+	public void createDataShareSignedWithoutEncryptionDigestsWhileStoringTest() {
+		policyResponseDto.getPolicies().getDataSharePolicies().setEncryptionType("none");
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "pipelinedStoreEnabled", false);
+		dataShareServiceImpl.createDataShare(POLICY_ID, SUBSCRIBER_ID, multiPartFile, null);
+		Mockito.verify((MetadataAwareObjectStore) metadataAwareAdapter).putObject(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any(),
+				Mockito.eq(multiPartFile.getSize()));
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).putObject(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+		Mockito.verify(digitalSignatureUtil).jwtSignDigest(Mockito.any(), Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.anyString());
+		Mockito.verify(metadataAwareAdapter).addObjectMetaData(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.argThat(metadata -> metadata.containsKey("signature")));
+		Mockito.verify((MetadataAwareObjectStore) metadataAwareAdapter, Mockito.never()).putObjectWithMetadata(
+				Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(),
+				Mockito.any(), Mockito.anyLong(), Mockito.any());
+	}
+
+	@Test
+	public void getDataFileRangeOpensDownloadSessionTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		mockRange(metadataAwareAdapter);
+		DownloadLease downloadLease = mockDownloadLease();
+		Mockito.when(downloadSessionUtil.open("12dfsdff", 10, 100)).thenReturn(downloadLease);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff",
+				new DataShareRange(10, 19, null, null));
+		assertEquals(true, response.isPartial());
+		assertEquals(10, response.getRangeStart());
+		assertEquals(19, response.getRangeEnd());
+		assertEquals(100, response.getLength());
+		assertEquals("session", response.getDownloadSession());
+		assertSame(downloadLease, response.getDownloadLease());
+		assertNotNull(response.getEntityTag());
+		Mockito.verify(metadataAwareAdapter).addObjectMetaData(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+	}
+
+	@Test
+	public void getDataFileRangeToLastByteOpensDownloadSessionTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		mockRange(metadataAwareAdapter);
+		DownloadLease downloadLease = mockDownloadLease();
+		Mockito.when(downloadSessionUtil.open("12dfsdff", 10, 100)).thenReturn(downloadLease);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff",
+				new DataShareRange(10, -1, null, null));
+		assertEquals(99, response.getRangeEnd());
+		assertEquals("session", response.getDownloadSession());
+	}
+
+	@Test
+	public void getDataFileWithoutRangeOpensDownloadSessionTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		mockRange(metadataAwareAdapter);
+		Mockito.when(((MetadataAwareObjectStore) metadataAwareAdapter).getObjectWithMetadata(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString()))
+				.thenReturn(new ObjectWithMetadata(inputStream, metaDataMap, 100));
+		DownloadLease downloadLease = mockDownloadLease();
+		Mockito.when(downloadSessionUtil.open("12dfsdff", 0, 100)).thenReturn(downloadLease);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		assertEquals(false, response.isPartial());
+		assertEquals("session", response.getDownloadSession());
+		assertSame(downloadLease, response.getDownloadLease());
+	}
+
+	@Test
+	public void getDataFileRangeContinuationDoesNotConsumeTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		mockRange(metadataAwareAdapter);
+		DownloadLease downloadLease = mockDownloadLease();
+		Mockito.when(downloadSessionUtil.resume("session", "12dfsdff", 10)).thenReturn(downloadLease);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff",
+				new DataShareRange(10, 19, "session", null));
+		assertEquals(19, response.getRangeEnd());
+		assertEquals("session", response.getDownloadSession());
+		assertSame(downloadLease, response.getDownloadLease());
+		Mockito.verify(metadataAwareAdapter, Mockito.never()).addObjectMetaData(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.any());
+		Mockito.verify(downloadSessionUtil, Mockito.never()).open(Mockito.anyString(), Mockito.anyLong(),
+				Mockito.anyLong());
+	}
+
+	@Test
+	public void getDataFileUnlimitedUsageOpensNoSessionTest() {
+		metaDataMap.put("transactionsallowed", "-1");
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		mockRange(metadataAwareAdapter);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff",
+				new DataShareRange(10, -1, null, null));
+		assertNull(response.getDownloadSession());
+		Mockito.verify(downloadSessionUtil, Mockito.never()).open(Mockito.anyString(), Mockito.anyLong(),
+				Mockito.anyLong());
+	}
+
+	@Test
+	public void getDataFileRangeOfOtherEntityTagServesWholeShareTest() {
+		ObjectStoreAdapter metadataAwareAdapter = mockMetadataAwareAdapter(metaDataMap);
+		mockRange(metadataAwareAdapter);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff",
+				new DataShareRange(10, 19, "session", "otherentitytag"));
+		assertEquals(false, response.isPartial());
+		Mockito.verify(downloadSessionUtil, Mockito.never()).resume(Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyLong());
+	}
+
+	@Test
+	public void getDataFileFromHotObjectCacheTest() throws Exception {
+		Mockito.when(hotObjectCacheUtil.isEnabled()).thenReturn(true);
+		Mockito.when(hotObjectCacheUtil.get(POLICY_ID, SUBSCRIBER_ID, "12dfsdff")).thenReturn(new HotObject(
+				ByteBuffer.wrap(dataBytes), "signature", LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5)));
+		ReflectionTestUtils.setField(dataShareServiceImpl, "streamingDownloadEnabled", true);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		assertEquals("signature", response.getSignature());
+		assertEquals(dataBytes.length, response.getLength());
+		assertEquals(new String(dataBytes), new String(IOUtils.toByteArray(response.getFileStream())));
+		Mockito.verify(objectStoreAdapter, Mockito.never()).getMetaData(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString());
+		Mockito.verify(objectStoreAdapter, Mockito.never()).getObject(Mockito.anyString(), Mockito.anyString(),
+				Mockito.any(), Mockito.any(), Mockito.anyString());
+	}
+
+	@Test
+	public void getDataFileAdmitsUnlimitedShareTest() throws Exception {
+		metaDataMap.put("transactionsallowed", "-1");
+		LocalDateTime expiryDtimes = LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5);
+		metaDataMap.put("expirydtimes", expiryDtimes.toString());
+		Mockito.when(hotObjectCacheUtil.isEnabled()).thenReturn(true);
+		InputStream cached = new ByteArrayInputStream(dataBytes);
+		Mockito.when(hotObjectCacheUtil.admit(Mockito.eq(POLICY_ID), Mockito.eq(SUBSCRIBER_ID), Mockito.eq("12dfsdff"),
+				Mockito.same(inputStream), Mockito.anyLong(), Mockito.any(), Mockito.eq(expiryDtimes)))
+				.thenReturn(cached);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "streamingDownloadEnabled", true);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		assertSame(cached, response.getFileStream());
+	}
+
+	@Test
+	public void getDataFileDoesNotAdmitLimitedShareTest() throws Exception {
+		Mockito.when(hotObjectCacheUtil.isEnabled()).thenReturn(true);
+		dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		Mockito.verify(hotObjectCacheUtil, Mockito.never()).admit(Mockito.anyString(), Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.anyLong(), Mockito.any(), Mockito.any());
+	}
+
+	private void mockRange(ObjectStoreAdapter metadataAwareAdapter) {
+		ReflectionTestUtils.setField(dataShareServiceImpl, "rangeDownloadEnabled", true);
+		Mockito.when(((MetadataAwareObjectStore) metadataAwareAdapter).getObjectRangeWithMetadata(
+				Mockito.anyString(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString(),
+				Mockito.anyLong(), Mockito.anyLong())).thenReturn(new ObjectWithMetadata(inputStream, metaDataMap, 100));
+	}
+
+	private DownloadLease mockDownloadLease() {
+		DownloadLease downloadLease = Mockito.mock(DownloadLease.class);
+		Mockito.when(downloadLease.getSessionId()).thenReturn("session");
+		return downloadLease;
+	}
+
+	private ObjectStoreAdapter mockMetadataAwareAdapter(Map<String, Object> metadata) {
+		ObjectStoreAdapter metadataAwareAdapter = Mockito.mock(ObjectStoreAdapter.class,
+				Mockito.withSettings().extraInterfaces(MetadataAwareObjectStore.class));
+		Mockito.when(((MetadataAwareObjectStore) metadataAwareAdapter).getObjectWithMetadata(Mockito.anyString(),
+				Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.anyString()))
+				.thenReturn(metadata == null ? null : new ObjectWithMetadata(inputStream, metadata));
+		ReflectionTestUtils.setField(dataShareServiceImpl, "objectStoreAdapter", metadataAwareAdapter);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "singleRequestReadEnabled", true);
+		ReflectionTestUtils.setField(dataShareServiceImpl, "streamingDownloadEnabled", true);
+		return metadataAwareAdapter;
+	}
+
+	private ShareRecordEntity createShareRecord(String policyId, String subscriberId) {
+		ShareRecordEntity shareRecord = new ShareRecordEntity();
+		shareRecord.setShareKey("12dfsdff");
+		shareRecord.setPolicyId(policyId);
+		shareRecord.setSubscriberId(subscriberId);
+		shareRecord.setTransactionsAllowed(2);
+		shareRecord.setValidForInMinutes(60);
+		shareRecord.setSignature("signature");
+		return shareRecord;
+	}
+
 	@Test
 	public void createDataShareSuccessTest() {
 
@@ -193,6 +708,14 @@ public class DataShareServiceImplTest {
 		assertNotNull(dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff"));
 	}
 
+	@Test
+	public void getDataFileStreamingSuccessTest() {
+		ReflectionTestUtils.setField(dataShareServiceImpl, "streamingDownloadEnabled", true);
+		DataShareGetResponse response = dataShareServiceImpl.getDataFile(POLICY_ID, SUBSCRIBER_ID, "12dfsdff");
+		assertSame(inputStream, response.getFileStream());
+		assertNull(response.getFileBytes());
+	}
+
 	@Test(expected = DataShareNotFoundException.class)
 	public void dataShareNotFoundExceptionTest() {
 		Mockito.when(objectStoreAdapter.getObject(Mockito.anyString(), Mockito.anyString(), Mockito.any(),
@@ -222,6 +745,14 @@ public class DataShareServiceImplTest {
 		assertNotNull(dataShareServiceImpl.getDataFile("12dfsdff"));
 	}
 
+	@Test
+	public void getDataFileWithStoredShortKeyInTokenModeTest() {
+		Mockito.when(shortUrlTokenUtil.isEnabled()).thenReturn(true);
+		Mockito.when(shortUrlTokenUtil.verifyToken("12dfsdff")).thenThrow(new DataShareNotFoundException());
+		assertNotNull(dataShareServiceImpl.getDataFile("12dfsdff"));
+		Mockito.verify(cacheUtil).getShortUrlData("12dfsdff", null, null, null);
+	}
+
 	@Test(expected = DataShareNotFoundException.class)
 	public void getDataFileFailureTest() {
 		Mockito.when(cacheUtil.getShortUrlData(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
@@ -0,0 +1,95 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import io.mosip.datashare.constant.ApiName;
+import io.mosip.datashare.util.ApiEndpointUtil;
+import io.mosip.datashare.util.ApiEndpointUtil.ApiEndpoint;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*" })
+public class ApiEndpointUtilTest {
+
+	private static final String POLICY_URL = "https://partner/v1/partnermanager/partners/{partnerId}/datasharepolicy/{policyId}";
+
+	private static final String CERTIFICATE_URL = "https://keymanager/v1/keymanager/getCertificate";
+
+	private ApiEndpointUtil apiEndpointUtil;
+
+	private MockEnvironment environment;
+
+	@Before
+	public void setUp() {
+		environment = new MockEnvironment();
+		environment.setProperty(ApiName.PARTNER_POLICY.name(), POLICY_URL);
+		environment.setProperty(ApiName.KEYMANAGER_GET_CERTIFICATE.name(), CERTIFICATE_URL);
+		apiEndpointUtil = new ApiEndpointUtil();
+		ReflectionTestUtils.setField(apiEndpointUtil, "environment", environment);
+	}
+
+	@Test
+	public void plainUriReusedTest() {
+		ApiEndpoint endpoint = apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_GET_CERTIFICATE);
+		assertSame(endpoint, apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_GET_CERTIFICATE));
+		assertSame(endpoint.toUri(null, "", ""), endpoint.toUri(Collections.emptyList(), null, null));
+		assertEquals(UriComponentsBuilder.fromUriString(CERTIFICATE_URL).toUriString(),
+				endpoint.toUriString(null, "", ""));
+	}
+
+	@Test
+	public void uriMatchesBuilderTest() {
+		ApiEndpoint endpoint = apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_GET_CERTIFICATE);
+		URI expected = UriComponentsBuilder.fromUriString(CERTIFICATE_URL).pathSegment("a b")
+				.queryParam("applicationId", "PARTNER").queryParam("referenceId", "ref 1").build(false).encode()
+				.toUri();
+		assertEquals(expected, endpoint.toUri(Arrays.asList("a b", "", null), "applicationId,referenceId",
+				"PARTNER,ref 1"));
+		assertEquals(UriComponentsBuilder.fromUriString(CERTIFICATE_URL).pathSegment("a b")
+				.queryParam("applicationId", "PARTNER").toUriString(),
+				endpoint.toUriString(Arrays.asList("a b"), "applicationId", "PARTNER"));
+	}
+
+	@Test
+	public void expandMatchesBuilderTest() {
+		Map<String, String> uriVariables = Map.of("partnerId", "partner 1", "policyId", "policy/1");
+		assertEquals(UriComponentsBuilder.fromUriString(POLICY_URL).build(uriVariables),
+				apiEndpointUtil.getEndpoint(ApiName.PARTNER_POLICY).expand(uriVariables));
+	}
+
+	@Test
+	public void notConfiguredTest() {
+		assertNull(apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_SIGN));
+	}
+
+	@Test
+	public void refreshedOnEnvironmentChangeTest() {
+		assertNull(apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_SIGN));
+		ApiEndpoint certificate = apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_GET_CERTIFICATE);
+		environment.setProperty(ApiName.KEYMANAGER_SIGN.name(), "https://keymanager/v1/keymanager/sign");
+
+		apiEndpointUtil.onEnvironmentChange(
+				new EnvironmentChangeEvent(Collections.singleton(ApiName.KEYMANAGER_SIGN.name())));
+
+		assertEquals("https://keymanager/v1/keymanager/sign",
+				apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_SIGN).getUrl());
+		assertSame(certificate, apiEndpointUtil.getEndpoint(ApiName.KEYMANAGER_GET_CERTIFICATE));
+	}
+}
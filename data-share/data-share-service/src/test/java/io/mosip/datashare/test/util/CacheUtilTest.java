@@ -1,16 +1,26 @@
 package io.mosip.datashare.test.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import io.mosip.datashare.entity.ShortUrlEntity;
+import io.mosip.datashare.repository.ShortUrlRepository;
 import io.mosip.datashare.util.CacheUtil;
 
 @RunWith(PowerMockRunner.class)
@@ -18,9 +28,20 @@ import io.mosip.datashare.util.CacheUtil;
 		"com.sun.org.apache.xalan.*" })
 public class CacheUtilTest {
 
+	@Mock
+	private ShortUrlRepository shortUrlRepository;
+
 	@InjectMocks
 	CacheUtil cacheUtil;
 
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(cacheUtil, "localCacheMaxSize", 100L);
+		ReflectionTestUtils.setField(cacheUtil, "defaultValidityInMinutes", 60);
+		ReflectionTestUtils.setField(cacheUtil, "durableStoreEnabled", true);
+		ReflectionTestUtils.invokeMethod(cacheUtil, "init");
+	}
+
 	@Test
 	public void cacheSuccessTest() throws IOException {
 
@@ -35,4 +56,36 @@ public class CacheUtilTest {
 		assertNull(cacheUtil.getShortUrlData("shortkey", null, "subscriberId", "randomShareKey"));
 
 	}
+
+	@Test
+	public void localTierLookupTest() {
+		cacheUtil.saveShortUrlData("shortkey", "policyId", "subscriberId", "randomShareKey", 30);
+		assertEquals("policyId,subscriberId,randomShareKey", cacheUtil.getShortUrlData("shortkey", null, null, null));
+		Mockito.verify(shortUrlRepository).save(Mockito.any(ShortUrlEntity.class));
+		Mockito.verify(shortUrlRepository, Mockito.never()).findById(Mockito.anyString());
+	}
+
+	@Test
+	public void durableTierLookupTest() {
+		ShortUrlEntity shortUrl = new ShortUrlEntity();
+		shortUrl.setShortKey("shortkey");
+		shortUrl.setPolicyId("policyId");
+		shortUrl.setSubscriberId("subscriberId");
+		shortUrl.setShareKey("randomShareKey");
+		shortUrl.setExpiryDtimes(LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5));
+		Mockito.when(shortUrlRepository.findById("shortkey")).thenReturn(Optional.of(shortUrl));
+		assertEquals("policyId,subscriberId,randomShareKey", cacheUtil.getShortUrlData("shortkey", null, null, null));
+	}
+
+	@Test
+	public void expiredShortUrlTest() {
+		ShortUrlEntity shortUrl = new ShortUrlEntity();
+		shortUrl.setShortKey("shortkey");
+		shortUrl.setPolicyId("policyId");
+		shortUrl.setSubscriberId("subscriberId");
+		shortUrl.setShareKey("randomShareKey");
+		shortUrl.setExpiryDtimes(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+		Mockito.when(shortUrlRepository.findById("shortkey")).thenReturn(Optional.of(shortUrl));
+		assertNull(cacheUtil.getShortUrlData("shortkey", null, null, null));
+	}
 }
@@ -7,6 +7,7 @@ import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.fasterxml.jackson.databind.ObjectReader;
 import io.mosip.datashare.dto.CryptomanagerResponseDto;
@@ -32,6 +33,7 @@ import io.mosip.datashare.dto.JWTSignatureResponseDto;
 import io.mosip.datashare.dto.SignResponseDto;
 import io.mosip.datashare.exception.SignatureException;
 import io.mosip.datashare.util.DigitalSignatureUtil;
+import io.mosip.datashare.util.LocalSignatureUtil;
 import io.mosip.datashare.util.RestUtil;
 import io.mosip.kernel.core.exception.ServiceError;
 import io.mosip.kernel.core.util.CryptoUtil;
@@ -55,6 +57,9 @@ public class DigitalSignatureUtilTest {
 	@Mock
 	private ObjectMapper objectMapper;
 
+	@Mock
+	private LocalSignatureUtil localSignatureUtil;
+
 	@InjectMocks
 	DigitalSignatureUtil digitalSignatureUtil;
 
@@ -117,6 +122,20 @@ public class DigitalSignatureUtilTest {
 
 	}
 
+	@Test
+	public void signAsyncSuccessTest() throws Exception {
+		ObjectReader mockReader = Mockito.mock(ObjectReader.class);
+		Mockito.when(mockReader.readValue(Mockito.anyString())).thenReturn(signResponseDto);
+		ReflectionTestUtils.setField(digitalSignatureUtil, "signRespReader", mockReader);
+		Mockito.when(restUtil.postApiAsync(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.any(), Mockito.eq(String.class))).thenReturn(CompletableFuture.completedFuture(jwtsignResponse));
+
+		String signedData = digitalSignatureUtil.jwtSignAsync("testdata".getBytes(), "test", "", "", "").get();
+		assertEquals(data, signedData);
+		Mockito.verify(restUtil, Mockito.never()).postApi(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.any(), Mockito.any(), Mockito.any());
+	}
+
 	@Test(expected = SignatureException.class)
 	public void testIOException() throws JsonParseException, JsonMappingException, IOException {
 		String test = "testdata";
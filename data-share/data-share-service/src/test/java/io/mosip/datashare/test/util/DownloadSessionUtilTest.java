@@ -0,0 +1,88 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.util.DownloadSessionUtil;
+import io.mosip.datashare.util.DownloadSessionUtil.DownloadLease;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "java.security.*", "sun.security.*" })
+public class DownloadSessionUtilTest {
+
+	@Mock
+	private ObjectMapper mapper;
+
+	@Spy
+	private DataShareCacheProperties cacheProperties = new DataShareCacheProperties();
+
+	@InjectMocks
+	private DownloadSessionUtil downloadSessionUtil;
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(downloadSessionUtil, "sessionTtlSeconds", 60L);
+		ReflectionTestUtils.invokeMethod(downloadSessionUtil, "init");
+	}
+
+	@Test
+	public void openSessionTest() {
+		DownloadLease lease = downloadSessionUtil.open("sharekey", 0, 100);
+		assertNotNull(downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 0));
+		assertNotEquals(lease.getSessionId(), downloadSessionUtil.open("sharekey", 0, 100).getSessionId());
+	}
+
+	@Test
+	public void sessionOfOtherShareTest() {
+		String sessionId = downloadSessionUtil.open("sharekey", 0, 100).getSessionId();
+		assertNull(downloadSessionUtil.resume(sessionId, "othersharekey", 0));
+		assertNull(downloadSessionUtil.resume(null, "sharekey", 0));
+		assertNull(downloadSessionUtil.resume("unknown", "sharekey", 0));
+	}
+
+	@Test
+	public void resumeFromDeliveredOffsetTest() {
+		DownloadLease lease = downloadSessionUtil.open("sharekey", 0, 100);
+		assertTrue(lease.delivered(10));
+		assertNull(downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 9));
+		DownloadLease continuation = downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 10);
+		assertNotNull(continuation);
+		assertTrue(continuation.delivered(10));
+		assertNull(downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 19));
+		assertNotNull(downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 20));
+	}
+
+	@Test
+	public void resumeTakesSessionOverTest() {
+		DownloadLease lease = downloadSessionUtil.open("sharekey", 0, 100);
+		assertTrue(lease.delivered(10));
+		DownloadLease continuation = downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 10);
+		assertFalse(lease.delivered(10));
+		assertTrue(continuation.delivered(10));
+		assertNull(downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 10));
+	}
+
+	@Test
+	public void sessionClosedAtLastByteTest() {
+		DownloadLease lease = downloadSessionUtil.open("sharekey", 0, 100);
+		assertTrue(lease.delivered(100));
+		assertNull(downloadSessionUtil.resume(lease.getSessionId(), "sharekey", 100));
+	}
+}
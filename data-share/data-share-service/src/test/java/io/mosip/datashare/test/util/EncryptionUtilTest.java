@@ -1,11 +1,16 @@
 package io.mosip.datashare.test.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.io.IOUtils;
@@ -22,7 +27,10 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.modules.junit4.PowerMockRunnerDelegate;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.HttpServerErrorException;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
@@ -35,6 +43,7 @@ import io.mosip.datashare.dto.KeyManagerUploadCertificateResponseDto;
 import io.mosip.datashare.dto.PartnerCertDownloadResponeDto;
 import io.mosip.datashare.dto.PartnerGetCertificateResponseDto;
 import io.mosip.datashare.dto.UploadCertificateResponseDto;
+import io.mosip.datashare.exception.ApiNotAccessibleException;
 import io.mosip.datashare.exception.DataEncryptionFailureException;
 import io.mosip.datashare.util.EncryptionUtil;
 import io.mosip.datashare.util.RestUtil;
@@ -135,6 +144,34 @@ public class EncryptionUtilTest {
 
 	}
 
+	@Test
+	public void encryptionAsyncSuccessTest() throws Exception {
+		ObjectReader mockReader = Mockito.mock(ObjectReader.class);
+		Mockito.when(mockReader.readValue(Mockito.anyString())).thenReturn(cryptomanagerResponseDto);
+		ReflectionTestUtils.setField(encryptionUtil, "cryptoRespReader", mockReader);
+		Mockito.when(restUtil.postApiAsync(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.any(), Mockito.eq(String.class))).thenReturn(CompletableFuture.completedFuture(response));
+		byte[] encryptedData = encryptionUtil.encryptDataAsync(sample, "112").get();
+		assertEquals(test, IOUtils.toString(encryptedData));
+		Mockito.verify(restUtil, Mockito.never()).postApi(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.any(), Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	public void encryptionAsyncApiFailureTest() throws Exception {
+		HttpServerErrorException serverError = HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR,
+				"", new HttpHeaders(), "failed".getBytes(), StandardCharsets.UTF_8);
+		Mockito.when(restUtil.postApiAsync(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.any(), Mockito.eq(String.class)))
+				.thenReturn(CompletableFuture.failedFuture(new ApiNotAccessibleException(serverError)));
+		try {
+			encryptionUtil.encryptDataAsync(sample, "112").get();
+			fail("Api failure not reported");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ApiNotAccessibleException);
+		}
+	}
+
 	@Test(expected = DataEncryptionFailureException.class)
 	public void testIOException() throws JsonParseException, JsonMappingException, IOException {
 		String test = "testdata";
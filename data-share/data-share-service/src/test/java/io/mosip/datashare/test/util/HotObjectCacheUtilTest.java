@@ -0,0 +1,91 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.datashare.util.HotObjectCacheUtil;
+import io.mosip.datashare.util.HotObjectCacheUtil.HotObject;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*" })
+public class HotObjectCacheUtilTest {
+
+	@InjectMocks
+	private HotObjectCacheUtil hotObjectCacheUtil;
+
+	private final byte[] content = "hot share content".getBytes();
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(hotObjectCacheUtil, "hotObjectCacheEnabled", true);
+		ReflectionTestUtils.setField(hotObjectCacheUtil, "maxBytes", 1024L);
+		ReflectionTestUtils.setField(hotObjectCacheUtil, "maxObjectBytes", 64);
+		ReflectionTestUtils.setField(hotObjectCacheUtil, "admissionThreshold", 2);
+		ReflectionTestUtils.setField(hotObjectCacheUtil, "admissionWindowSeconds", 600L);
+		ReflectionTestUtils.setField(hotObjectCacheUtil, "maxTrackedShares", 100L);
+		ReflectionTestUtils.invokeMethod(hotObjectCacheUtil, "init");
+	}
+
+	@Test
+	public void admitAfterThresholdTest() throws IOException {
+		LocalDateTime expiryDtimes = LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5);
+		assertArrayEquals(content, read(admit(-1, expiryDtimes)));
+		assertNull(hotObjectCacheUtil.get("policyId", "subscriberId", "shareKey"));
+
+		assertArrayEquals(content, read(admit(content.length, expiryDtimes)));
+		HotObject hotObject = hotObjectCacheUtil.get("policyId", "subscriberId", "shareKey");
+		assertNotNull(hotObject);
+		assertEquals("signature", hotObject.getSignature());
+		assertEquals(content.length, hotObject.getLength());
+		assertArrayEquals(content, read(hotObject.openStream()));
+		assertArrayEquals(content, read(hotObject.openStream()));
+		assertNull(hotObjectCacheUtil.get("policyId", "othersubscriber", "shareKey"));
+	}
+
+	@Test
+	public void oversizedObjectNotAdmittedTest() throws IOException {
+		byte[] large = new byte[100];
+		LocalDateTime expiryDtimes = LocalDateTime.now(ZoneOffset.UTC).plusMinutes(5);
+		for (int i = 0; i < 2; i++) {
+			InputStream served = hotObjectCacheUtil.admit("policyId", "subscriberId", "shareKey",
+					new ByteArrayInputStream(large), -1, "signature", expiryDtimes);
+			assertEquals(large.length, read(served).length);
+		}
+		assertNull(hotObjectCacheUtil.get("policyId", "subscriberId", "shareKey"));
+	}
+
+	@Test
+	public void expiredObjectNotServedTest() throws IOException {
+		LocalDateTime expiryDtimes = LocalDateTime.now(ZoneOffset.UTC).minusSeconds(1);
+		read(admit(-1, expiryDtimes));
+		read(admit(-1, expiryDtimes));
+		assertNull(hotObjectCacheUtil.get("policyId", "subscriberId", "shareKey"));
+	}
+
+	private InputStream admit(long length, LocalDateTime expiryDtimes) throws IOException {
+		return hotObjectCacheUtil.admit("policyId", "subscriberId", "shareKey", new ByteArrayInputStream(content),
+				length, "signature", expiryDtimes);
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		return IOUtils.toByteArray(in);
+	}
+}
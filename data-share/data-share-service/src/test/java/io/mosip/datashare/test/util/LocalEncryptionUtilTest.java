@@ -0,0 +1,123 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.dto.KeyManagerGetCertificateResponseDto;
+import io.mosip.datashare.exception.DataEncryptionFailureException;
+import io.mosip.datashare.util.LocalEncryptionUtil;
+import io.mosip.datashare.util.RestUtil;
+import io.mosip.kernel.core.exception.ServiceError;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.crypto.*", "java.security.*", "sun.security.*" })
+public class LocalEncryptionUtilTest {
+
+	private static final String KEY_SPLITTER = "#KEY_SPLITTER#";
+
+	@Mock
+	private RestUtil restUtil;
+
+	@Mock
+	private ObjectMapper mapper;
+
+	@Spy
+	private DataShareCacheProperties cacheProperties = new DataShareCacheProperties();
+
+	@InjectMocks
+	LocalEncryptionUtil localEncryptionUtil;
+
+	private KeyPair keyPair;
+
+	@Before
+	public void setUp() throws Exception {
+		ReflectionTestUtils.setField(localEncryptionUtil, "keySplitter", KEY_SPLITTER);
+		ReflectionTestUtils.setField(localEncryptionUtil, "versionHeader", "VER_R2");
+		ReflectionTestUtils.setField(localEncryptionUtil, "applicationId", "PARTNER");
+		ReflectionTestUtils.setField(localEncryptionUtil, "certificateCacheTtlSeconds", 60L);
+		ReflectionTestUtils.invokeMethod(localEncryptionUtil, "init");
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+	}
+
+	@Test
+	public void envelopeWithThumbprintTest() throws Exception {
+		byte[] data = "sample share data".getBytes(StandardCharsets.UTF_8);
+		byte[] thumbprint = new byte[32];
+		Arrays.fill(thumbprint, (byte) 7);
+		byte[] envelope = Base64.getUrlDecoder()
+				.decode(localEncryptionUtil.encrypt(data, keyPair.getPublic(), thumbprint));
+
+		byte[] header = "VER_R2".getBytes(StandardCharsets.UTF_8);
+		assertArrayEquals(header, Arrays.copyOfRange(envelope, 0, header.length));
+		assertArrayEquals(thumbprint, Arrays.copyOfRange(envelope, header.length, header.length + 32));
+		assertArrayEquals(data, decrypt(Arrays.copyOfRange(envelope, header.length + 32, envelope.length)));
+	}
+
+	@Test
+	public void envelopeWithoutThumbprintTest() throws Exception {
+		byte[] data = new byte[100000];
+		Arrays.fill(data, (byte) 1);
+		byte[] envelope = Base64.getUrlDecoder().decode(localEncryptionUtil.encrypt(data, keyPair.getPublic(), null));
+		assertArrayEquals(data, decrypt(envelope));
+	}
+
+	@Test(expected = DataEncryptionFailureException.class)
+	public void partnerCertificateNotFoundTest() throws Exception {
+		KeyManagerGetCertificateResponseDto response = new KeyManagerGetCertificateResponseDto();
+		List<ServiceError> errors = new ArrayList<>();
+		errors.add(new ServiceError("KER-KMS-002", "ApplicationId not found in Key Policy"));
+		response.setErrors(errors);
+		Mockito.when(restUtil.getApi(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+				.thenReturn("response");
+		Mockito.when(mapper.readValue("response", KeyManagerGetCertificateResponseDto.class)).thenReturn(response);
+		localEncryptionUtil.encryptData("data".getBytes(), "112", true);
+	}
+
+	private byte[] decrypt(byte[] keyAndData) throws Exception {
+		byte[] encryptedKey = Arrays.copyOfRange(keyAndData, 0, 256);
+		byte[] splitter = KEY_SPLITTER.getBytes(StandardCharsets.UTF_8);
+		assertArrayEquals(splitter, Arrays.copyOfRange(keyAndData, 256, 256 + splitter.length));
+		byte[] encryptedData = Arrays.copyOfRange(keyAndData, 256 + splitter.length, keyAndData.length);
+
+		Cipher rsa = Cipher.getInstance("RSA/ECB/OAEPWITHSHA-256ANDMGF1PADDING");
+		rsa.init(Cipher.DECRYPT_MODE, keyPair.getPrivate(), new OAEPParameterSpec("SHA-256", "MGF1",
+				MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT));
+		byte[] sessionKey = rsa.doFinal(encryptedKey);
+
+		byte[] iv = Arrays.copyOfRange(encryptedData, encryptedData.length - 16, encryptedData.length);
+		Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+		aes.init(Cipher.DECRYPT_MODE, new SecretKeySpec(sessionKey, "AES"), new GCMParameterSpec(128, iv));
+		return aes.doFinal(encryptedData, 0, encryptedData.length - 16);
+	}
+}
@@ -0,0 +1,103 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mosip.datashare.exception.SignatureException;
+import io.mosip.datashare.util.LocalSignatureUtil;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.crypto.*", "java.security.*", "sun.security.*" })
+public class LocalSignatureUtilTest {
+
+	private static final String DATA = "{\"filename\":\"test.txt\",\"keyId\":\"112\"}";
+
+	@Spy
+	private ObjectMapper mapper = new ObjectMapper();
+
+	@InjectMocks
+	LocalSignatureUtil localSignatureUtil;
+
+	private KeyPair keyPair;
+
+	@Before
+	public void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+		ReflectionTestUtils.setField(localSignatureUtil, "certificateUrl", "https://localhost/cert");
+		ReflectionTestUtils.setField(localSignatureUtil, "keyId", "key-1");
+	}
+
+	@Test
+	public void detachedPayloadTest() throws Exception {
+		ReflectionTestUtils.invokeMethod(localSignatureUtil, "initSigner", keyPair.getPrivate(),
+				(X509Certificate) null);
+		String[] jws = localSignatureUtil.jwtSign(DATA).split("\\.", -1);
+		assertEquals(3, jws.length);
+		assertEquals("", jws[1]);
+		JsonNode header = mapper.readTree(Base64.getUrlDecoder().decode(jws[0]));
+		assertEquals("RS256", header.get("alg").asText());
+		assertEquals("https://localhost/cert", header.get("x5u").asText());
+		assertEquals("key-1", header.get("kid").asText());
+		String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(DATA.getBytes(StandardCharsets.UTF_8));
+		assertTrue(verify("SHA256withRSA", jws[0] + "." + payload, jws[2]));
+	}
+
+	@Test
+	public void includedPayloadTest() throws Exception {
+		ReflectionTestUtils.setField(localSignatureUtil, "includePayload", true);
+		ReflectionTestUtils.invokeMethod(localSignatureUtil, "initSigner", keyPair.getPrivate(),
+				(X509Certificate) null);
+		String[] jws = localSignatureUtil.jwtSign(DATA).split("\\.");
+		assertEquals(DATA, new String(Base64.getUrlDecoder().decode(jws[1]), StandardCharsets.UTF_8));
+		assertTrue(verify("SHA256withRSA", jws[0] + "." + jws[1], jws[2]));
+	}
+
+	@Test
+	public void ecKeyTest() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(256);
+		keyPair = generator.generateKeyPair();
+		ReflectionTestUtils.setField(localSignatureUtil, "includePayload", true);
+		ReflectionTestUtils.invokeMethod(localSignatureUtil, "initSigner", keyPair.getPrivate(),
+				(X509Certificate) null);
+		String[] jws = localSignatureUtil.jwtSign(DATA).split("\\.");
+		assertEquals("ES256", mapper.readTree(Base64.getUrlDecoder().decode(jws[0])).get("alg").asText());
+		assertEquals(64, Base64.getUrlDecoder().decode(jws[2]).length);
+		assertTrue(verify("SHA256withECDSAinP1363Format", jws[0] + "." + jws[1], jws[2]));
+	}
+
+	@Test(expected = SignatureException.class)
+	public void missingKeyConfigurationTest() {
+		ReflectionTestUtils.setField(localSignatureUtil, "localSigningEnabled", true);
+		ReflectionTestUtils.invokeMethod(localSignatureUtil, "init");
+	}
+
+	private boolean verify(String algorithm, String signingInput, String encodedSignature) throws Exception {
+		Signature signature = Signature.getInstance(algorithm);
+		signature.initVerify(keyPair.getPublic());
+		signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+		return signature.verify(Base64.getUrlDecoder().decode(encodedSignature));
+	}
+}
@@ -4,10 +4,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.mosip.datashare.config.DataShareCacheProperties;
+import io.mosip.datashare.config.DataShareCacheProperties.CacheSpec;
 import io.mosip.datashare.dto.DataShareDto;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,18 +22,24 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.modules.junit4.PowerMockRunner;
 import org.springframework.core.env.Environment;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.mosip.datashare.dto.PolicyManagerResponseDto;
 import io.mosip.datashare.dto.PolicyResponseDto;
+import io.mosip.datashare.exception.ApiNotAccessibleException;
 import io.mosip.datashare.exception.PolicyException;
 import io.mosip.datashare.util.PolicyUtil;
 import io.mosip.datashare.util.RestUtil;
@@ -49,6 +62,9 @@ public class PolicyUtilTest {
 	@Mock
 	private ObjectMapper objectMapper;
 
+	@Spy
+	private DataShareCacheProperties cacheProperties = new DataShareCacheProperties();
+
 	@InjectMocks
 	PolicyUtil policyUtil;
 
@@ -70,6 +86,8 @@ public class PolicyUtilTest {
 
 		Mockito.when(objectMapper.readValue(policyResponse, PolicyManagerResponseDto.class))
 				.thenReturn(policyManagerResponseDto);
+		ReflectionTestUtils.setField(policyUtil, "policyCacheExpiryMillis", 600000L);
+		ReflectionTestUtils.invokeMethod(policyUtil, "initPolicyCache");
 	}
 
 	@Test
@@ -81,6 +99,96 @@ public class PolicyUtilTest {
 
 	}
 
+	@Test
+	public void policyCachedTest() {
+		policyUtil.getPolicyDetail("1234", "3456");
+		policyUtil.getPolicyDetail("1234", "3456");
+		Mockito.verify(restUtil, Mockito.times(1)).getApi(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	public void concurrentMissesLoadOnceTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.when(restUtil.getApi(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+			release.await();
+			return policyResponse;
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<PolicyResponseDto>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(() -> policyUtil.getPolicyDetail("1234", "3456")));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<PolicyResponseDto> future : futures) {
+				assertEquals("1234", future.get().getPolicyId());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		Mockito.verify(restUtil, Mockito.times(1)).getApi(Mockito.any(), Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	public void policyRefreshedAheadOfExpiryTest() throws Exception {
+		CacheSpec spec = new CacheSpec();
+		spec.setExpireAfterWrite(Duration.ofMinutes(10));
+		spec.setRefreshAfterWrite(Duration.ofMillis(1));
+		cacheProperties.getSpecs().put(PolicyUtil.PARTNER_POLICY_CACHE, spec);
+		ReflectionTestUtils.invokeMethod(policyUtil, "initPolicyCache");
+		policyUtil.getPolicyDetail("1234", "3456");
+		Thread.sleep(10);
+		assertEquals("1234", policyUtil.getPolicyDetail("1234", "3456").getPolicyId());
+		Mockito.verify(restUtil, Mockito.timeout(1000).times(2)).getApi(Mockito.any(), Mockito.any(),
+				Mockito.any());
+	}
+
+	@Test
+	public void stalePolicyServedWhenPolicyServiceUnavailableTest() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ReflectionTestUtils.setField(policyUtil, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(policyUtil, "staleIfErrorSeconds", 60L);
+		ReflectionTestUtils.invokeMethod(policyUtil, "initPolicyCache");
+		policyUtil.getPolicyDetail("1234", "3456");
+		expirePolicyCache();
+		Mockito.when(restUtil.getApi(Mockito.any(), Mockito.any(), Mockito.any()))
+				.thenThrow(new Exception(new ResourceAccessException("Connection refused")));
+		assertEquals("1234", policyUtil.getPolicyDetail("1234", "3456").getPolicyId());
+		assertEquals(1.0, meterRegistry.get("datashare.policy.stale.served").counter().count(), 0);
+	}
+
+	@Test
+	public void stalePolicyNotServedWhenPolicyRejectedTest() throws Exception {
+		ReflectionTestUtils.setField(policyUtil, "staleIfErrorSeconds", 60L);
+		ReflectionTestUtils.invokeMethod(policyUtil, "initPolicyCache");
+		policyUtil.getPolicyDetail("1234", "3456");
+		expirePolicyCache();
+		Mockito.when(restUtil.getApi(Mockito.any(), Mockito.any(), Mockito.any()))
+				.thenThrow(new Exception(new HttpClientErrorException(HttpStatus.NOT_FOUND)));
+		assertThrows(ApiNotAccessibleException.class, () -> policyUtil.getPolicyDetail("1234", "3456"));
+	}
+
+	@Test
+	public void policyFetchTimeoutTest() throws Exception {
+		ReflectionTestUtils.setField(policyUtil, "policyFetchTimeoutMillis", 50L);
+		ReflectionTestUtils.setField(policyUtil, "policyFetchMaxConcurrency", 2);
+		ReflectionTestUtils.invokeMethod(policyUtil, "initPolicyCache");
+		Mockito.when(restUtil.getApi(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+			Thread.sleep(5000);
+			return policyResponse;
+		});
+		long start = System.currentTimeMillis();
+		assertThrows(ApiNotAccessibleException.class, () -> policyUtil.getPolicyDetail("1234", "3456"));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		ReflectionTestUtils.invokeMethod(policyUtil, "shutdownPolicyFetchExecutor");
+	}
+
+	@SuppressWarnings("unchecked")
+	private void expirePolicyCache() {
+		((LoadingCache<Object, Object>) ReflectionTestUtils.getField(policyUtil, "policyCache")).invalidateAll();
+	}
+
 	@Test(expected = PolicyException.class)
 	public void testIOException() throws JsonParseException, JsonMappingException, IOException {
 
@@ -0,0 +1,186 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.datashare.constant.ApiName;
+import io.mosip.datashare.exception.ApiNotAccessibleException;
+import io.mosip.datashare.util.ApiEndpointUtil;
+import io.mosip.datashare.util.RestUtil;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.net.ssl.*", "com.sun.net.httpserver.*" })
+public class RestUtilTest {
+
+	private RestUtil restUtil;
+
+	private RestTemplate selfTokenRestTemplate;
+
+	private MockEnvironment environment;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private final ClientHttpRequestInterceptor tokenInterceptor = (request, body, execution) -> {
+		request.getHeaders().add("Authorization", "token");
+		return execution.execute(request, body);
+	};
+
+	@Before
+	public void setUp() {
+		restUtil = new RestUtil();
+		selfTokenRestTemplate = new RestTemplate();
+		selfTokenRestTemplate.setInterceptors(Collections.singletonList(tokenInterceptor));
+		environment = new MockEnvironment();
+		meterRegistry = new SimpleMeterRegistry();
+		ReflectionTestUtils.setField(restUtil, "environment", environment);
+		ApiEndpointUtil apiEndpointUtil = new ApiEndpointUtil();
+		ReflectionTestUtils.setField(apiEndpointUtil, "environment", environment);
+		ReflectionTestUtils.setField(restUtil, "apiEndpointUtil", apiEndpointUtil);
+		ReflectionTestUtils.setField(restUtil, "restTemplate", selfTokenRestTemplate);
+		ReflectionTestUtils.setField(restUtil, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(restUtil, "defaultMaxConnections", 20);
+		ReflectionTestUtils.setField(restUtil, "defaultConnectTimeoutMillis", 2000L);
+		ReflectionTestUtils.setField(restUtil, "defaultReadTimeoutMillis", 30000L);
+		ReflectionTestUtils.setField(restUtil, "defaultAcquireTimeoutMillis", 5000L);
+		ReflectionTestUtils.setField(restUtil, "idleEvictionMillis", 60000L);
+	}
+
+	@After
+	public void tearDown() {
+		ReflectionTestUtils.invokeMethod(restUtil, "shutdown");
+	}
+
+	@Test
+	public void poolDisabledUsesSelfTokenRestTemplateTest() {
+		RestTemplate mockRestTemplate = Mockito.mock(RestTemplate.class);
+		ReflectionTestUtils.setField(restUtil, "restTemplate", mockRestTemplate);
+		environment.setProperty(ApiName.KEYMANAGER_SIGN.name(), "http://localhost/v1/keymanager/sign");
+		Mockito.when(mockRestTemplate.postForObject(Mockito.anyString(), Mockito.any(), Mockito.eq(String.class)))
+				.thenReturn("signed");
+		ReflectionTestUtils.invokeMethod(restUtil, "init");
+
+		assertEquals("signed", restUtil.postApi(ApiName.KEYMANAGER_SIGN, null, "", "", MediaType.APPLICATION_JSON,
+				"request", String.class));
+		assertSame(mockRestTemplate, ReflectionTestUtils.invokeMethod(restUtil, "restTemplate",
+				ApiName.KEYMANAGER_SIGN));
+		assertTrue(meterRegistry.getMeters().isEmpty());
+	}
+
+	@Test
+	public void poolPerApiTest() {
+		ReflectionTestUtils.setField(restUtil, "poolEnabled", true);
+		environment.setProperty("mosip.data.share.rest.pool.cryptomanager-encrypt.max-connections", "50");
+		ReflectionTestUtils.invokeMethod(restUtil, "init");
+
+		RestTemplate encrypt = ReflectionTestUtils.invokeMethod(restUtil, "restTemplate",
+				ApiName.CRYPTOMANAGER_ENCRYPT);
+		RestTemplate sign = ReflectionTestUtils.invokeMethod(restUtil, "restTemplate", ApiName.KEYMANAGER_SIGN);
+		assertNotSame(selfTokenRestTemplate, encrypt);
+		assertNotSame(encrypt, sign);
+		assertEquals(Collections.singletonList(tokenInterceptor), encrypt.getInterceptors());
+		assertEquals(50, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+				.tag("api", ApiName.CRYPTOMANAGER_ENCRYPT.name()).gauge().value(), 0);
+		assertEquals(20, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+				.tag("api", ApiName.KEYMANAGER_SIGN.name()).gauge().value(), 0);
+	}
+
+	@Test
+	public void postApiAsyncTest() throws Exception {
+		HttpServer server = startServer(200, exchange -> "signed "
+				+ new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8) + " "
+				+ exchange.getRequestHeaders().getFirst("Authorization"));
+		try {
+			environment.setProperty(ApiName.KEYMANAGER_JWTSIGN.name(),
+					"http://localhost:" + server.getAddress().getPort() + "/v1/keymanager/jwtSign");
+			environment.setProperty("mosip.data.share.rest.pool.keymanager-jwtsign.max-connections", "5");
+			ReflectionTestUtils.invokeMethod(restUtil, "init");
+
+			CompletableFuture<String> response = restUtil.postApiAsync(ApiName.KEYMANAGER_JWTSIGN, null, "", "",
+					MediaType.TEXT_PLAIN, "request", String.class);
+			assertEquals("signed request token", response.get(5, TimeUnit.SECONDS));
+			assertEquals(5, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+					.tag("httpclient", "datashare-async").tag("api", ApiName.KEYMANAGER_JWTSIGN.name()).gauge()
+					.value(), 0);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void postApiAsyncServerErrorTest() throws Exception {
+		HttpServer server = startServer(500, exchange -> "failed");
+		try {
+			environment.setProperty(ApiName.KEYMANAGER_JWTSIGN.name(),
+					"http://localhost:" + server.getAddress().getPort() + "/v1/keymanager/jwtSign");
+			ReflectionTestUtils.invokeMethod(restUtil, "init");
+
+			restUtil.postApiAsync(ApiName.KEYMANAGER_JWTSIGN, null, "", "", MediaType.TEXT_PLAIN, "request",
+					String.class).get(5, TimeUnit.SECONDS);
+			fail("Server error not reported");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ApiNotAccessibleException);
+			assertTrue(e.getCause().getCause() instanceof HttpServerErrorException);
+			assertEquals("failed", ((HttpServerErrorException) e.getCause().getCause()).getResponseBodyAsString());
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void postApiAsyncNotConfiguredTest() throws Exception {
+		ReflectionTestUtils.invokeMethod(restUtil, "init");
+		assertNull(restUtil.postApiAsync(ApiName.KEYMANAGER_JWTSIGN, null, "", "", MediaType.TEXT_PLAIN, "request",
+				String.class).get());
+	}
+
+	private HttpServer startServer(int status, ResponseBody responseBody) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			byte[] body = responseBody.apply(exchange).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/plain;charset=UTF-8");
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		});
+		server.start();
+		return server;
+	}
+
+	private interface ResponseBody {
+		String apply(HttpExchange exchange) throws IOException;
+	}
+}
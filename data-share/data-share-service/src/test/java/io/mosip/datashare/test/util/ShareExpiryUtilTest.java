@@ -0,0 +1,101 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.commons.khazana.spi.ObjectStoreAdapter;
+import io.mosip.datashare.entity.ShareRecordEntity;
+import io.mosip.datashare.repository.ShareRecordRepository;
+import io.mosip.datashare.util.ShareExpiryUtil;
+import io.mosip.datashare.util.ShareRecordUtil;
+import io.mosip.datashare.util.UsageCounterUtil;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*" })
+public class ShareExpiryUtilTest {
+
+	@Mock
+	private ShareRecordRepository shareRecordRepository;
+
+	@Mock
+	private ShareRecordUtil shareRecordUtil;
+
+	@Mock
+	private UsageCounterUtil usageCounterUtil;
+
+	@Mock
+	private ObjectStoreAdapter objectStoreAdapter;
+
+	@InjectMocks
+	private ShareExpiryUtil shareExpiryUtil;
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(shareExpiryUtil, "sweeperEnabled", true);
+		ReflectionTestUtils.setField(shareExpiryUtil, "batchSize", 2);
+		ReflectionTestUtils.setField(shareExpiryUtil, "maxPerRun", 100);
+		ReflectionTestUtils.setField(shareExpiryUtil, "parallelism", 2);
+		ReflectionTestUtils.setField(shareExpiryUtil, "maxDeletesPerSecond", 1000);
+		ReflectionTestUtils.invokeMethod(shareExpiryUtil, "init");
+		Mockito.when(shareRecordUtil.isEnabled()).thenReturn(true);
+		Mockito.when(usageCounterUtil.isEnabled()).thenReturn(true);
+	}
+
+	@After
+	public void tearDown() {
+		ReflectionTestUtils.invokeMethod(shareExpiryUtil, "shutdown");
+	}
+
+	@Test
+	public void sweepExpiredSharesInBatchesTest() {
+		Mockito.when(shareRecordRepository.findByExpiryDtimesBefore(Mockito.any(LocalDateTime.class),
+				Mockito.any(Pageable.class)))
+				.thenReturn(Arrays.asList(createShareRecord("key1"), createShareRecord("key2")))
+				.thenReturn(Collections.singletonList(createShareRecord("key3")));
+		assertEquals(3, shareExpiryUtil.sweepExpiredShares());
+		Mockito.verify(objectStoreAdapter).deleteObject("subscriberId", "policyId", null, null, "key3");
+		Mockito.verify(usageCounterUtil).remove("key1");
+		Mockito.verify(shareRecordUtil).remove("key2");
+		Mockito.verify(shareRecordRepository, Mockito.times(2)).findByExpiryDtimesBefore(
+				Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class));
+	}
+
+	@Test
+	public void failedDeleteKeepsShareRecordTest() {
+		Mockito.when(shareRecordRepository.findByExpiryDtimesBefore(Mockito.any(LocalDateTime.class),
+				Mockito.any(Pageable.class)))
+				.thenReturn(Arrays.asList(createShareRecord("key1"), createShareRecord("key2")));
+		Mockito.when(objectStoreAdapter.deleteObject(Mockito.anyString(), Mockito.anyString(), Mockito.any(),
+				Mockito.any(), Mockito.anyString())).thenThrow(new RuntimeException("object store down"));
+		assertEquals(0, shareExpiryUtil.sweepExpiredShares());
+		Mockito.verify(shareRecordUtil, Mockito.never()).remove(Mockito.anyString());
+		Mockito.verify(shareRecordRepository, Mockito.times(1)).findByExpiryDtimesBefore(
+				Mockito.any(LocalDateTime.class), Mockito.any(Pageable.class));
+	}
+
+	private ShareRecordEntity createShareRecord(String shareKey) {
+		ShareRecordEntity shareRecord = new ShareRecordEntity();
+		shareRecord.setShareKey(shareKey);
+		shareRecord.setPolicyId("policyId");
+		shareRecord.setSubscriberId("subscriberId");
+		shareRecord.setExpiryDtimes(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+		return shareRecord;
+	}
+}
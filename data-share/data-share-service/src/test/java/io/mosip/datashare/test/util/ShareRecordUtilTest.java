@@ -0,0 +1,53 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.data.domain.Pageable;
+
+import io.mosip.datashare.entity.ShareRecordEntity;
+import io.mosip.datashare.repository.ShareRecordRepository;
+import io.mosip.datashare.util.ShareRecordUtil;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*" })
+public class ShareRecordUtilTest {
+
+	@Mock
+	private ShareRecordRepository shareRecordRepository;
+
+	@InjectMocks
+	private ShareRecordUtil shareRecordUtil;
+
+	@Test
+	public void findTest() {
+		ShareRecordEntity shareRecord = new ShareRecordEntity();
+		shareRecord.setShareKey("sharekey");
+		Mockito.when(shareRecordRepository.findById("sharekey")).thenReturn(Optional.of(shareRecord));
+		assertEquals(shareRecord, shareRecordUtil.find("sharekey"));
+	}
+
+	@Test
+	public void findLegacyShareTest() {
+		Mockito.when(shareRecordRepository.findById("sharekey")).thenReturn(Optional.empty());
+		assertNull(shareRecordUtil.find("sharekey"));
+	}
+
+	@Test
+	public void findBySubscriberTest() {
+		shareRecordUtil.findBySubscriber("subscriberId", 1, 20);
+		Mockito.verify(shareRecordRepository).findBySubscriberId(Mockito.eq("subscriberId"),
+				Mockito.argThat((Pageable pageable) -> pageable.getPageNumber() == 1 && pageable.getPageSize() == 20
+						&& pageable.getSort().getOrderFor("crDtimes") != null));
+	}
+}
@@ -0,0 +1,72 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Base64;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.datashare.exception.DataShareExpiredException;
+import io.mosip.datashare.exception.DataShareNotFoundException;
+import io.mosip.datashare.util.ShortUrlTokenUtil;
+import io.mosip.datashare.util.ShortUrlTokenUtil.ShortUrlClaims;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*", "javax.crypto.*" })
+public class ShortUrlTokenUtilTest {
+
+	@InjectMocks
+	ShortUrlTokenUtil shortUrlTokenUtil;
+
+	@Before
+	public void setUp() {
+		ReflectionTestUtils.setField(shortUrlTokenUtil, "tokenEnabled", true);
+		ReflectionTestUtils.setField(shortUrlTokenUtil, "tokenSecret",
+				Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes()));
+		ReflectionTestUtils.invokeMethod(shortUrlTokenUtil, "init");
+	}
+
+	@Test
+	public void tokenRoundTripTest() {
+		String token = shortUrlTokenUtil.createToken("policyId", "subscriberId", "subscriberIdpolicyIdrandom", 30);
+		ShortUrlClaims claims = shortUrlTokenUtil.verifyToken(token);
+		assertEquals("policyId", claims.getPolicyId());
+		assertEquals("subscriberId", claims.getSubscriberId());
+		assertEquals("subscriberIdpolicyIdrandom", claims.getShareKey());
+	}
+
+	@Test
+	public void unprefixedShareKeyTest() {
+		String token = shortUrlTokenUtil.createToken("policyId", "subscriberId", "randomShareKey", 30);
+		assertEquals("randomShareKey", shortUrlTokenUtil.verifyToken(token).getShareKey());
+	}
+
+	@Test(expected = DataShareNotFoundException.class)
+	public void tamperedTokenTest() {
+		String token = shortUrlTokenUtil.createToken("policyId", "subscriberId", "randomShareKey", 30);
+		char[] chars = token.toCharArray();
+		chars[4] = chars[4] == 'A' ? 'B' : 'A';
+		String tampered = new String(chars);
+		assertNotEquals(token, tampered);
+		shortUrlTokenUtil.verifyToken(tampered);
+	}
+
+	@Test(expected = DataShareExpiredException.class)
+	public void expiredTokenTest() {
+		String token = shortUrlTokenUtil.createToken("policyId", "subscriberId", "randomShareKey", -1);
+		shortUrlTokenUtil.verifyToken(token);
+	}
+
+	@Test(expected = DataShareNotFoundException.class)
+	public void malformedTokenTest() {
+		shortUrlTokenUtil.verifyToken("not*a*token");
+	}
+}
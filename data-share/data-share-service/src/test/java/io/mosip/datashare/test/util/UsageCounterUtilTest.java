@@ -0,0 +1,59 @@
+package io.mosip.datashare.test.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import io.mosip.datashare.entity.ShareUsageEntity;
+import io.mosip.datashare.repository.ShareUsageRepository;
+import io.mosip.datashare.util.UsageCounterUtil;
+import io.mosip.datashare.util.UsageCounterUtil.Consumption;
+
+@RunWith(PowerMockRunner.class)
+@PowerMockIgnore({ "com.sun.org.apache.xerces.*", "javax.xml.*", "org.xml.*", "javax.management.*", "org.w3c.dom.*",
+		"com.sun.org.apache.xalan.*" })
+public class UsageCounterUtilTest {
+
+	@Mock
+	private ShareUsageRepository shareUsageRepository;
+
+	@InjectMocks
+	private UsageCounterUtil usageCounterUtil;
+
+	@Test
+	public void registerTest() {
+		usageCounterUtil.register("sharekey", 2);
+		ArgumentCaptor<ShareUsageEntity> captor = ArgumentCaptor.forClass(ShareUsageEntity.class);
+		Mockito.verify(shareUsageRepository).save(captor.capture());
+		assertEquals("sharekey", captor.getValue().getShareKey());
+		assertEquals(2, captor.getValue().getRemaining());
+	}
+
+	@Test
+	public void consumeAllowedTest() {
+		Mockito.when(shareUsageRepository.consume("sharekey")).thenReturn(1);
+		assertEquals(Consumption.ALLOWED, usageCounterUtil.consume("sharekey"));
+		Mockito.verify(shareUsageRepository, Mockito.never()).existsById(Mockito.anyString());
+	}
+
+	@Test
+	public void consumeExhaustedTest() {
+		Mockito.when(shareUsageRepository.consume("sharekey")).thenReturn(0);
+		Mockito.when(shareUsageRepository.existsById("sharekey")).thenReturn(true);
+		assertEquals(Consumption.EXHAUSTED, usageCounterUtil.consume("sharekey"));
+	}
+
+	@Test
+	public void consumeUntrackedTest() {
+		Mockito.when(shareUsageRepository.consume("sharekey")).thenReturn(0);
+		Mockito.when(shareUsageRepository.existsById("sharekey")).thenReturn(false);
+		assertEquals(Consumption.UNTRACKED, usageCounterUtil.consume("sharekey"));
+	}
+}
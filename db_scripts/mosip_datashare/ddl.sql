@@ -0,0 +1,5 @@
+\c mosip_datashare
+
+\ir ddl/datashare-short_url.sql
+\ir ddl/datashare-share_usage.sql
+\ir ddl/datashare-share_record.sql
@@ -0,0 +1,32 @@
+-- -------------------------------------------------------------------------------------------------
+-- Database Name: mosip_datashare
+-- Table Name   : share_record
+-- Purpose      : Metadata of a share, kept apart from the shared object
+-- -------------------------------------------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS share_record (
+	share_key character varying(255) NOT NULL,
+	policy_id character varying(255) NOT NULL,
+	subscriber_id character varying(255) NOT NULL,
+	policy_publish_dtimes timestamp,
+	valid_for_minutes integer NOT NULL,
+	transactions_allowed integer NOT NULL,
+	signature character varying(8192),
+	expiry_dtimes timestamp NOT NULL,
+	cr_dtimes timestamp NOT NULL,
+	CONSTRAINT pk_share_record PRIMARY KEY (share_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_share_record_subscriber ON share_record (subscriber_id);
+CREATE INDEX IF NOT EXISTS idx_share_record_expiry ON share_record (expiry_dtimes);
+
+COMMENT ON TABLE share_record IS 'Metadata of a share, used when mosip.data.share.share-record.enabled is true';
+COMMENT ON COLUMN share_record.share_key IS 'Random share key of the shared object';
+COMMENT ON COLUMN share_record.policy_id IS 'Policy the share was created with';
+COMMENT ON COLUMN share_record.subscriber_id IS 'Subscriber the share was created for';
+COMMENT ON COLUMN share_record.policy_publish_dtimes IS 'Publish time of the policy the share was created with';
+COMMENT ON COLUMN share_record.valid_for_minutes IS 'Share validity in minutes';
+COMMENT ON COLUMN share_record.transactions_allowed IS 'Downloads allowed at creation, -1 for unlimited';
+COMMENT ON COLUMN share_record.signature IS 'JWT signature of the shared data';
+COMMENT ON COLUMN share_record.expiry_dtimes IS 'UTC time after which the share is expired';
+COMMENT ON COLUMN share_record.cr_dtimes IS 'UTC time the share was created';
@@ -0,0 +1,17 @@
+-- -------------------------------------------------------------------------------------------------
+-- Database Name: mosip_datashare
+-- Table Name   : share_usage
+-- Purpose      : Remaining downloads of a share, spent with one conditional update per download
+-- -------------------------------------------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS share_usage (
+	share_key character varying(255) NOT NULL,
+	remaining integer NOT NULL,
+	cr_dtimes timestamp NOT NULL,
+	CONSTRAINT pk_share_usage PRIMARY KEY (share_key)
+);
+
+COMMENT ON TABLE share_usage IS 'Remaining downloads of a share, used when mosip.data.share.usage-counter.enabled is true';
+COMMENT ON COLUMN share_usage.share_key IS 'Random share key of the shared object';
+COMMENT ON COLUMN share_usage.remaining IS 'Downloads left, -1 for unlimited';
+COMMENT ON COLUMN share_usage.cr_dtimes IS 'UTC time the share was created';
@@ -0,0 +1,25 @@
+-- -------------------------------------------------------------------------------------------------
+-- Database Name: mosip_datashare
+-- Table Name   : short_url
+-- Purpose      : Short url key to the share it resolves to, shared by all data share replicas
+-- -------------------------------------------------------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS short_url (
+	short_key character varying(128) NOT NULL,
+	policy_id character varying(255) NOT NULL,
+	subscriber_id character varying(255) NOT NULL,
+	share_key character varying(255) NOT NULL,
+	expiry_dtimes timestamp NOT NULL,
+	cr_dtimes timestamp NOT NULL,
+	CONSTRAINT pk_short_url PRIMARY KEY (short_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_short_url_expiry ON short_url (expiry_dtimes);
+
+COMMENT ON TABLE short_url IS 'Short url key to the share it resolves to, used when mosip.data.share.shorturl.durable-store.enabled is true';
+COMMENT ON COLUMN short_url.short_key IS 'Short random share key of the short url';
+COMMENT ON COLUMN short_url.policy_id IS 'Policy the share was created with';
+COMMENT ON COLUMN short_url.subscriber_id IS 'Subscriber the share was created for';
+COMMENT ON COLUMN short_url.share_key IS 'Random share key of the shared object';
+COMMENT ON COLUMN short_url.expiry_dtimes IS 'UTC time after which the short url no longer resolves';
+COMMENT ON COLUMN short_url.cr_dtimes IS 'UTC time the short url was created';